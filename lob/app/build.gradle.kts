@@ -10,6 +10,9 @@ plugins {
     application
 
     id("org.openjfx.javafxplugin") version "0.1.0"
+
+    // Apply the JMH plugin to run the microbenchmarks in `src/jmh/java`.
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 repositories {
@@ -26,6 +29,9 @@ dependencies {
     // This dependency is used by the application.
     implementation(libs.guava)
 
+    // This dependency is for recording latency histograms.
+    implementation(libs.hdrhistogram)
+
     // This dependency is for connecting to WebSocket servers.
     implementation("org.java-websocket:Java-WebSocket:1.5.6")
 
@@ -52,10 +58,32 @@ application {
     }
 }
 
+jmh {
+    // Select the benchmarks to run with e.g. `-Pbenchmark=TreeBenchmark`
+    if (hasProperty("benchmark")) {
+        includes.add("${property("benchmark")}")
+    }
+    // Attach profilers with e.g. `-Pprofilers=gc`
+    if (hasProperty("profilers")) {
+        profilers.addAll("${property("profilers")}".split(","))
+    }
+    // Write the results as e.g. `-Pformat=JSON` to `build/results/jmh/results.json`
+    // instead of text, the JSON keeps the histograms of `Mode.SampleTime`
+    if (hasProperty("format")) {
+        resultFormat.set("${property("format")}")
+        resultsFile.set(layout.buildDirectory.file("results/jmh/results.${property("format")}".lowercase()))
+    }
+}
+
 tasks.named<Test>("test") {
     // Use JUnit Platform for unit tests.
     useJUnitPlatform()
 
     // Show the STDOUT and STDERR during test execution.
     testLogging.showStandardStreams = true
+
+    // Configure `BookFuzzTest` with e.g. `-PfuzzOps=10000000 -PfuzzSeed=7`
+    mapOf("fuzzOps" to "lob.fuzz.ops", "fuzzCheck" to "lob.fuzz.check", "fuzzSeed" to "lob.fuzz.seed").forEach {
+        (name, key) -> if (project.hasProperty(name)) systemProperty(key, "${project.property(name)}")
+    }
 }
@@ -0,0 +1,73 @@
+package lob;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import lob.analytics.AnalyticsBook;
+import lob.io.EventLogReader;
+
+/**
+ * Measures the overhead of `AnalyticsBook` by replaying a whole event log into
+ * a new book with and without it, the way `ReplayBenchmark` does. The signals
+ * are read once per replay. Pass the converted Bitstamp feed with `log`:
+ *
+ * <pre>
+ * ./gradlew jmh -Pbenchmark=AnalyticsBenchmark
+ * java -jar app/build/libs/app-jmh.jar AnalyticsBenchmark -p log=app/src/main/resources/l3_orderbook.bin
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnalyticsBenchmark {
+    @Param({ "v1", "v2" })
+    String impl;
+
+    @Param({ "false", "true" })
+    boolean analytics;
+
+    // The path of a log written by `lob.example.Convert`, or `synthetic`.
+    @Param({ "synthetic" })
+    String log;
+
+    Path path;
+    EventLogReader reader;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        if (log.equals("synthetic")) {
+            path = Files.createTempFile("replay", ".bin");
+            ReplayBenchmark.write(new SyntheticFeed(1 << 20, 50, 42), path);
+        } else {
+            path = Path.of(log);
+        }
+        reader = new EventLogReader(path);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        reader.close();
+        if (log.equals("synthetic"))
+            Files.delete(path);
+    }
+
+    @Benchmark
+    public double replay() {
+        LimitOrderBook book = BookBenchmark.newOrderBook(impl);
+        if (!analytics) {
+            reader.replay(book);
+            return book.volume();
+        }
+
+        AnalyticsBook lob = new AnalyticsBook(book);
+        reader.replay(lob);
+        return lob.microprice() + lob.depthWeightedMid() + lob.orderFlowImbalance() + lob.vwap();
+    }
+}
@@ -0,0 +1,206 @@
+package lob;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import lob.common.Order;
+import lob.common.Side;
+import lob.v1.Limit;
+
+/**
+ * Measures each operation of a book on its own: inserting a limit order,
+ * cancelling it, amending it, sweeping a number of levels with a market order,
+ * reading the top of the book and pricing a large market order with the depth
+ * queries. The book is filled with `depth` levels on
+ * each side before the trial and every operation leaves it as it found it, so
+ * the depth stays the same during the whole measurement.
+ * <p>
+ * Every benchmark reports the throughput as well as the distribution of the
+ * latency of single operations: `Mode.SampleTime` prints the percentiles and
+ * the full histogram is kept in the results written with `-Pformat=JSON`. The
+ * operations that change the book are undone in a `Level.Invocation` fixture,
+ * the fixture is not measured but JMH has to timestamp every invocation, so the
+ * throughput of `limit`, `cancel` and `market` is a little pessimistic.
+ * </p>
+ *
+ * <pre>
+ * ./gradlew jmh -Pbenchmark=BookBenchmark
+ * ./gradlew jmh -Pbenchmark="BookBenchmark.market"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookBenchmark {
+    // The price between the two sides, the orders per level and the size of each order.
+    final static long MID = 30000;
+    final static int ORDERS = 4;
+    final static long SIZE = 10;
+
+    // The number of levels read by `topN`.
+    final static int TOP = 10;
+
+    @Param({ "v1", "v1-bst", "v2" })
+    String impl;
+
+    @Param({ "10", "1000" })
+    int depth;
+
+    LimitOrderBook book;
+    Order message = new Order();
+
+    // The next unused order id, a cursor over the levels and the number of amends.
+    long nextId = 1;
+    int cursor = 0;
+    long amends = 0;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        book = newOrderBook(impl);
+        for (int level = 0; level < depth; level++) {
+            for (int i = 0; i < ORDERS; i++) {
+                book.limit(message.set(nextId++, Side.BUY, SIZE, bid(level)));
+                book.limit(message.set(nextId++, Side.SELL, SIZE, ask(level)));
+            }
+        }
+    }
+
+    /**
+     * Create an empty book of the given implementation.
+     *
+     * @param impl - One of `v1`, `v1-bst` or `v2`.
+     */
+    static LimitOrderBook newOrderBook(String impl) {
+        switch (impl) {
+            case "v1":
+                return new lob.v1.LOB();
+            case "v1-bst":
+                return new lob.v1.LOB(lob.v1.LimitTree.TreeType.BST);
+            case "v2":
+                return new lob.v2.LOB();
+            default:
+                throw new IllegalArgumentException("unknown order book implementation: " + impl);
+        }
+    }
+
+    /**
+     * Returns the price of a bid level, 0 is the best bid.
+     */
+    static long bid(int level) {
+        return MID - 1 - level;
+    }
+
+    /**
+     * Returns the price of an ask level, 0 is the best ask.
+     */
+    static long ask(int level) {
+        return MID + 1 + level;
+    }
+
+    /**
+     * Returns the next level to operate on, the levels are visited in turn so
+     * that every operation has to find its level in the book.
+     */
+    int nextLevel() {
+        int level = cursor;
+        if (++cursor == depth)
+            cursor = 0;
+        return level;
+    }
+
+    /**
+     * An order inserted by `limit`, it is cancelled after every invocation.
+     */
+    @State(Scope.Thread)
+    public static class Inserted {
+        long id;
+
+        @TearDown(Level.Invocation)
+        public void cancel(BookBenchmark b) {
+            b.book.cancel(id);
+        }
+    }
+
+    /**
+     * An order to be cancelled by `cancel`, it is inserted before every
+     * invocation.
+     */
+    @State(Scope.Thread)
+    public static class Resting {
+        long id;
+
+        @Setup(Level.Invocation)
+        public void insert(BookBenchmark b) {
+            id = b.nextId++;
+            b.book.limit(b.message.set(id, Side.BUY, SIZE, bid(b.nextLevel())));
+        }
+    }
+
+    /**
+     * The levels taken by `market`, they are put back after every invocation.
+     */
+    @State(Scope.Thread)
+    public static class Sweep {
+        // The number of ask levels taken by one market order, at most the depth.
+        @Param({ "1", "10" })
+        int levels;
+
+        @TearDown(Level.Invocation)
+        public void refill(BookBenchmark b) {
+            for (int level = 0; level < levels; level++)
+                for (int i = 0; i < ORDERS; i++)
+                    b.book.limit(b.message.set(b.nextId++, Side.SELL, SIZE, ask(level)));
+        }
+    }
+
+    @Benchmark
+    public long limit(Inserted inserted) {
+        inserted.id = nextId++;
+        book.limit(message.set(inserted.id, Side.BUY, SIZE, bid(nextLevel())));
+        return book.volume();
+    }
+
+    @Benchmark
+    public long cancel(Resting resting) {
+        book.cancel(resting.id);
+        return book.volume();
+    }
+
+    @Benchmark
+    public long amend() {
+        // the first bid of every level has the id 1 + 2 * ORDERS * level, its size
+        // goes up by one on the first pass over the levels and back on the next
+        long id = 1 + (long) nextLevel() * 2 * ORDERS;
+        book.amend(id, (amends++ / depth) % 2 == 0 ? SIZE + 1 : SIZE);
+        return book.volume();
+    }
+
+    @Benchmark
+    public long market(Sweep sweep) {
+        book.market(message.set(nextId++, Side.BUY, sweep.levels * ORDERS * SIZE, 0));
+        return book.volume();
+    }
+
+    @Benchmark
+    public long topN() {
+        long volume = 0;
+        for (Iterator<Limit> it = book.topN(TOP, Side.BUY); it.hasNext();)
+            volume += it.next().volume;
+        for (Iterator<Limit> it = book.topN(TOP, Side.SELL); it.hasNext();)
+            volume += it.next().volume;
+        return volume;
+    }
+
+    @Benchmark
+    public long impact() {
+        // half of the volume of a side, it reaches the middle level
+        long quantity = (long) depth * ORDERS * SIZE / 2;
+        return book.cost(Side.SELL, quantity) + book.priceFor(Side.SELL, quantity)
+                + book.depth(Side.BUY, bid(depth / 2));
+    }
+}
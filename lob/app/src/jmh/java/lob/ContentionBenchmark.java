@@ -0,0 +1,103 @@
+package lob;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import lob.common.Order;
+import lob.common.Side;
+import lob.pipeline.ConcurrentBook;
+import lob.v1.Limit;
+
+/**
+ * One writer applies a mix of messages to a book while 8 readers read the best
+ * prices and the top 10 levels of each side. The seqlock of `ConcurrentBook` is
+ * compared with a book where the writer and the readers share a lock:
+ *
+ * <pre>
+ * ./gradlew jmh -Pbenchmark=ContentionBenchmark
+ * </pre>
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContentionBenchmark {
+    final static int DEPTH = 10;
+
+    SyntheticFeed feed;
+    ConcurrentBook seqlock;
+    LimitOrderBook locked;
+    int next = 0;
+    Order message = new Order();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        feed = new SyntheticFeed(1 << 20, 50, 42);
+        seqlock = new ConcurrentBook(new lob.v1.LOB(), DEPTH);
+        locked = new lob.v1.LOB();
+    }
+
+    /**
+     * A reader's buffer, every reader thread has its own.
+     */
+    @State(Scope.Thread)
+    public static class Reader {
+        ConcurrentBook.Depth depth = new ConcurrentBook.Depth(DEPTH);
+        long[] prices = new long[2 * DEPTH];
+        long[] volumes = new long[2 * DEPTH];
+    }
+
+    private void apply(LimitOrderBook book) {
+        feed.apply(next, book, message);
+        if (++next == feed.length)
+            next = 0;
+    }
+
+    @Benchmark
+    @Group("seqlock")
+    @GroupThreads(1)
+    public void seqlockWrite() {
+        apply(seqlock);
+    }
+
+    @Benchmark
+    @Group("seqlock")
+    @GroupThreads(8)
+    public ConcurrentBook.Depth seqlockRead(Reader reader) {
+        return seqlock.read(reader.depth);
+    }
+
+    @Benchmark
+    @Group("locked")
+    @GroupThreads(1)
+    public void lockedWrite() {
+        synchronized (locked) {
+            apply(locked);
+        }
+    }
+
+    @Benchmark
+    @Group("locked")
+    @GroupThreads(8)
+    public void lockedRead(Reader reader, Blackhole bh) {
+        synchronized (locked) {
+            bh.consume(locked.bestBuy());
+            bh.consume(locked.bestSell());
+            bh.consume(locked.volume());
+            int i = 0;
+            for (Side side : Side.values()) {
+                Iterator<Limit> it = locked.topN(DEPTH, side);
+                for (int n = 0; n < DEPTH && it.hasNext(); n++, i++) {
+                    Limit limit = it.next();
+                    reader.prices[i] = limit.price;
+                    reader.volumes[i] = limit.volume;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package lob;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import lob.common.Event;
+import lob.io.EventLogReader;
+import lob.io.EventLogWriter;
+
+/**
+ * Replays a whole event log into a new book, one replay per operation, the way
+ * `lob.example.Replay` does. The log is the converted Bitstamp feed when
+ * `log` points to it, otherwise a `SyntheticFeed` of about a million messages
+ * is written to a temporary log first.
+ *
+ * <pre>
+ * ./gradlew jmh -Pbenchmark=ReplayBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReplayBenchmark {
+    @Param({ "v1", "v1-bst", "v2" })
+    String impl;
+
+    // The path of a log written by `lob.example.Convert`, or `synthetic`.
+    @Param({ "synthetic" })
+    String log;
+
+    Path path;
+    EventLogReader reader;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        if (log.equals("synthetic")) {
+            path = Files.createTempFile("replay", ".bin");
+            write(new SyntheticFeed(1 << 20, 50, 42), path);
+        } else {
+            path = Path.of(log);
+        }
+        reader = new EventLogReader(path);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        reader.close();
+        if (log.equals("synthetic"))
+            Files.delete(path);
+    }
+
+    /**
+     * Write every message of a feed to a log.
+     */
+    static void write(SyntheticFeed feed, Path path) throws IOException {
+        Event event = new Event();
+        try (EventLogWriter writer = new EventLogWriter(path)) {
+            for (int i = 0; i < feed.length; i++)
+                writer.write(event.set(feed.type[i], feed.side[i], feed.id[i], feed.size[i], feed.price[i], i));
+        }
+    }
+
+    @Benchmark
+    public long replay() {
+        LimitOrderBook book = BookBenchmark.newOrderBook(impl);
+        reader.replay(book);
+        return book.volume();
+    }
+}
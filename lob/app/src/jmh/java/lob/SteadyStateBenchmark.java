@@ -0,0 +1,51 @@
+package lob;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import lob.common.Order;
+
+/**
+ * Applies a mix of limit, market, cancel and amend messages to a book, one
+ * message per operation. The feed leaves the book empty at its end and is
+ * replayed in a loop, so once the pools of the book are warm the mix should not
+ * allocate at all:
+ *
+ * <pre>
+ * ./gradlew jmh -Pbenchmark=SteadyStateBenchmark -Pprofilers=gc
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SteadyStateBenchmark {
+    @Param({ "v1", "v2" })
+    String version;
+
+    SyntheticFeed feed;
+    LimitOrderBook book;
+    Order message = new Order();
+    int next = 0;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        feed = new SyntheticFeed(1 << 20, 50, 42);
+        book = version.equals("v2") ? new lob.v2.LOB() : new lob.v1.LOB();
+
+        // replay the feed once so that the pools reach their largest size
+        for (int i = 0; i < feed.length; i++)
+            feed.apply(i, book, message);
+    }
+
+    @Benchmark
+    public long mix() {
+        feed.apply(next, book, message);
+        if (++next == feed.length)
+            next = 0;
+        return book.volume();
+    }
+}
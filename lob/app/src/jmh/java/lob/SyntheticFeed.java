@@ -0,0 +1,118 @@
+package lob;
+
+import java.util.Random;
+
+import lob.common.Order;
+import lob.common.Side;
+
+/**
+ * A reproducible stream of limit, market, cancel and amend messages around a
+ * randomly walking mid price, used when the downloaded Bitstamp feed is not
+ * available. Every order still resting at the end of the stream is cancelled,
+ * so replaying the stream leaves the book empty and it can be replayed again.
+ */
+public class SyntheticFeed {
+    public final static byte LIMIT = 0, MARKET = 1, CANCEL = 2, AMEND = 3;
+
+    public final byte[] type;
+    public final Side[] side;
+    public final long[] id;
+    public final long[] size;
+    public final long[] price;
+    public final int length;
+
+    /**
+     * Generate a stream of messages.
+     *
+     * @param messages - The number of messages before the final cancels.
+     * @param spread   - The number of ticks on each side of the mid where limit
+     *                 orders are placed.
+     * @param seed     - The seed of the random generator.
+     */
+    public SyntheticFeed(int messages, int spread, long seed) {
+        Random rand = new Random(seed);
+
+        int capacity = messages * 2;
+        type = new byte[capacity];
+        side = new Side[capacity];
+        id = new long[capacity];
+        size = new long[capacity];
+        price = new long[capacity];
+
+        long[] live = new long[capacity]; // the ids of the orders that may still be resting
+        Side[] liveSide = new Side[capacity];
+        int liveCount = 0;
+
+        long nextId = 1;
+        long mid = 30000;
+        int n = 0;
+        for (int i = 0; i < messages; i++, n++) {
+            if (rand.nextInt(16) == 0)
+                mid += rand.nextInt(3) - 1;
+
+            int dice = rand.nextInt(100);
+            if (dice < 40 || liveCount == 0) { // limit
+                Side s = rand.nextBoolean() ? Side.BUY : Side.SELL;
+                long offset = 1 + (long) (Math.abs(rand.nextGaussian()) * spread / 3);
+                type[n] = LIMIT;
+                side[n] = s;
+                id[n] = nextId++;
+                size[n] = 1 + rand.nextInt(100);
+                price[n] = s == Side.BUY ? mid - offset : mid + offset;
+                live[liveCount] = id[n];
+                liveSide[liveCount++] = s;
+            } else if (dice < 75) { // cancel
+                int j = rand.nextInt(liveCount);
+                type[n] = CANCEL;
+                id[n] = live[j];
+                side[n] = liveSide[j];
+                live[j] = live[--liveCount];
+                liveSide[j] = liveSide[liveCount];
+            } else if (dice < 90) { // amend
+                int j = rand.nextInt(liveCount);
+                type[n] = AMEND;
+                id[n] = live[j];
+                side[n] = liveSide[j];
+                size[n] = 1 + rand.nextInt(100);
+            } else { // market
+                type[n] = MARKET;
+                side[n] = rand.nextBoolean() ? Side.BUY : Side.SELL;
+                id[n] = nextId++;
+                size[n] = 1 + rand.nextInt(200);
+            }
+        }
+
+        // cancel whatever may still be resting so the book ends up empty
+        for (int j = 0; j < liveCount; j++, n++) {
+            type[n] = CANCEL;
+            id[n] = live[j];
+            side[n] = liveSide[j];
+        }
+
+        length = n;
+    }
+
+    /**
+     * Apply one message of the stream to a book.
+     *
+     * @param i       - The index of the message.
+     * @param book    - The book to apply the message to.
+     * @param message - An order reused for limit and market messages.
+     */
+    public void apply(int i, LimitOrderBook book, Order message) {
+        switch (type[i]) {
+            case LIMIT:
+                book.limit(message.set(id[i], side[i], size[i], price[i]));
+                break;
+            case MARKET:
+                book.market(message.set(id[i], side[i], size[i], 0));
+                break;
+            case CANCEL:
+                book.cancel(id[i]);
+                break;
+            case AMEND:
+                book.amend(id[i], size[i]);
+                break;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package lob;
+
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import lob.common.Order;
+import lob.common.Side;
+import lob.v1.Limit;
+
+/**
+ * Measures reading the best `n` levels of both sides of a deep book with
+ * `topN`. The levels are added in random order, or from the worst price to the
+ * best price (`sorted`), which turns `v1-bst` into a chain as deep as the book:
+ *
+ * <pre>
+ * ./gradlew jmh -Pbenchmark=TopNBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TopNBenchmark {
+    @Param({ "v1", "v1-bst", "v2" })
+    String impl;
+
+    @Param({ "random", "sorted" })
+    String order;
+
+    @Param({ "10000" })
+    int levels;
+
+    @Param({ "50" })
+    int n;
+
+    LimitOrderBook book;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        int[] rank = new int[levels];
+        for (int i = 0; i < levels; i++)
+            rank[i] = levels - 1 - i; // the worst level first
+        if (order.equals("random")) {
+            Random rand = new Random(42);
+            for (int i = levels - 1; i > 0; i--) {
+                int j = rand.nextInt(i + 1);
+                int tmp = rank[i];
+                rank[i] = rank[j];
+                rank[j] = tmp;
+            }
+        }
+
+        // a window as deep as the book keeps every v2 level in its array
+        book = impl.equals("v2") ? new lob.v2.LOB(2 * levels) : BookBenchmark.newOrderBook(impl);
+        Order message = new Order();
+        long id = 1;
+        for (int level : rank) {
+            book.limit(message.set(id++, Side.BUY, BookBenchmark.SIZE, BookBenchmark.bid(level)));
+            book.limit(message.set(id++, Side.SELL, BookBenchmark.SIZE, BookBenchmark.ask(level)));
+        }
+    }
+
+    @Benchmark
+    public long topN() {
+        long volume = 0;
+        for (Iterator<Limit> it = book.topN(n, Side.BUY); it.hasNext();)
+            volume += it.next().volume;
+        for (Iterator<Limit> it = book.topN(n, Side.SELL); it.hasNext();)
+            volume += it.next().volume;
+        return volume;
+    }
+}
@@ -0,0 +1,50 @@
+package lob.common;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compares parsing the amounts and prices of the wire into fixed-point with
+ * `FixedPoint` against the previous path through a double, i.e.
+ * `(long) (Double.parseDouble(s) * 1e9)`:
+ *
+ * <pre>
+ * ./gradlew jmh -Pbenchmark=FixedPointBenchmark -Pprofilers=gc
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FixedPointBenchmark {
+    final static int SCALE = 9;
+
+    @Param({ "0.01050000", "37012.57", "1e-05" })
+    String value;
+
+    byte[] bytes;
+
+    @Setup
+    public void setup() {
+        bytes = value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Benchmark
+    public long parseDouble() {
+        return (long) (Double.parseDouble(value) * FixedPoint.pow10(SCALE));
+    }
+
+    @Benchmark
+    public long parseString() {
+        return FixedPoint.parse(value, SCALE);
+    }
+
+    @Benchmark
+    public long parseBytes() {
+        return FixedPoint.parse(bytes, 0, bytes.length, SCALE);
+    }
+}
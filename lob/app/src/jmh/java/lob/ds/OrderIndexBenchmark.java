@@ -0,0 +1,93 @@
+package lob.ds;
+
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import lob.common.Order;
+import lob.common.Side;
+
+/**
+ * Compares `HashMap<Long, Order>` with `LongMap<Order>` as the order index of a
+ * book. `cancel` removes a random resting order and places a new one, which is
+ * what the index sees for every cancel on the Bitstamp feed. `fill` builds an
+ * index presized for `orders` entries; with the GC profiler,
+ * `gc.alloc.rate.norm / orders` is the number of bytes the index retains per
+ * resting order:
+ *
+ * <pre>
+ * ./gradlew jmh -Pbenchmark=OrderIndexBenchmark -Pprofilers=gc
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderIndexBenchmark {
+    @Param({ "HashMap", "LongMap" })
+    String index;
+
+    @Param({ "20000" })
+    int orders;
+
+    HashMap<Long, Order> hashMap;
+    LongMap<Order> longMap;
+
+    // the ids of the resting orders, ids are increasing like exchange ids
+    long[] ids;
+    long nextId;
+    Order[] pool;
+    Random rand = new Random(42);
+
+    @Setup(Level.Trial)
+    public void setup() {
+        hashMap = new HashMap<>();
+        longMap = new LongMap<>();
+        ids = new long[orders];
+        pool = new Order[orders];
+        nextId = 1_700_000_000_000L;
+        for (int i = 0; i < orders; i++) {
+            ids[i] = nextId++;
+            pool[i] = new Order(ids[i], Side.BUY, 1, 30000);
+            hashMap.put(ids[i], pool[i]);
+            longMap.put(ids[i], pool[i]);
+        }
+    }
+
+    @Benchmark
+    public Order cancel() {
+        int i = rand.nextInt(orders);
+        Order order;
+        long id = nextId++;
+        if (index.equals("HashMap")) {
+            order = hashMap.remove(ids[i]);
+            order.id = id;
+            hashMap.put(id, order);
+        } else {
+            order = longMap.remove(ids[i]);
+            order.id = id;
+            longMap.put(id, order);
+        }
+        ids[i] = id;
+        return order;
+    }
+
+    @Benchmark
+    public Object fill() {
+        if (index.equals("HashMap")) {
+            HashMap<Long, Order> map = new HashMap<>((int) (orders / 0.75f) + 1);
+            for (int i = 0; i < orders; i++)
+                map.put(ids[i], pool[i]);
+            return map;
+        } else {
+            LongMap<Order> map = new LongMap<>(orders);
+            for (int i = 0; i < orders; i++)
+                map.put(ids[i], pool[i]);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package lob.ds;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures `Stack` the way a stack-driven in-order traversal uses it to read
+ * the best `n` levels of a tree: the path from the root to the best level is
+ * pushed, `depth` elements, then `n` levels are popped. `depth` 16 is a
+ * balanced tree of 10k levels and 10000 is a `BST` degenerated into a chain.
+ * `fresh` allocates a stack per walk, `reused` clears one stack between walks:
+ *
+ * <pre>
+ * ./gradlew jmh -Pbenchmark=StackBenchmark -Pprofilers=gc
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StackBenchmark {
+    @Param({ "16", "1000", "10000" })
+    int depth;
+
+    @Param({ "50" })
+    int n;
+
+    Long[] levels;
+    Stack<Long> stack = new Stack<>();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        levels = new Long[depth];
+        for (int i = 0; i < depth; i++)
+            levels[i] = Long.valueOf(i);
+    }
+
+    @Benchmark
+    public long fresh() {
+        return walk(new Stack<>());
+    }
+
+    @Benchmark
+    public long reused() {
+        stack.clear();
+        return walk(stack);
+    }
+
+    private long walk(Stack<Long> stack) {
+        for (Long level : levels)
+            stack.add(level);
+        long sum = 0;
+        for (int i = 0; i < n && !stack.isEmpty(); i++)
+            sum += stack.pop();
+        return sum;
+    }
+}
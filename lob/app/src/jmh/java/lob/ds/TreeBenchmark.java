@@ -0,0 +1,114 @@
+package lob.ds;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares `BST` with `AVL` on sequences of limit prices. The prices arrive in
+ * sorted order (worst case for `BST`), in random order, or as a trending market
+ * where prices mostly move up with some noise. The height of every tree is
+ * printed at the end of each trial to show that `AVL` stays logarithmic.
+ *
+ * <pre>
+ * ./gradlew jmh -Pbenchmark=TreeBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TreeBenchmark {
+    @Param({ "BST", "AVL" })
+    String tree;
+
+    @Param({ "sorted", "random", "trending" })
+    String sequence;
+
+    @Param({ "1000", "10000" })
+    int levels;
+
+    Long[] prices;
+    Tree<Long> filled;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        prices = prices(sequence, levels, new Random(42));
+        filled = newTree();
+        for (Long price : prices)
+            filled.add(price);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.printf("%n%s %s %d levels: height %d (log2(n) = %.1f)%n", tree, sequence, filled.size(),
+                filled.height(), Math.log(filled.size()) / Math.log(2));
+    }
+
+    @Benchmark
+    public Tree<Long> add() {
+        Tree<Long> t = newTree();
+        for (Long price : prices)
+            t.add(price);
+        return t;
+    }
+
+    @Benchmark
+    public void search(Blackhole bh) {
+        for (Long price : prices)
+            bh.consume(filled.search(price));
+    }
+
+    @Benchmark
+    public Tree<Long> addRemove() {
+        Tree<Long> t = newTree();
+        for (Long price : prices)
+            t.add(price);
+        for (Long price : prices)
+            t.remove(price);
+        return t;
+    }
+
+    private Tree<Long> newTree() {
+        return tree.equals("AVL") ? new AVL<>() : new BST<>();
+    }
+
+    /**
+     * Generate `n` distinct prices in the given order.
+     */
+    static Long[] prices(String sequence, int n, Random rand) {
+        Long[] prices = new Long[n];
+        switch (sequence) {
+            case "sorted":
+                for (int i = 0; i < n; i++)
+                    prices[i] = 30000L + i;
+                break;
+            case "random":
+                for (int i = 0; i < n; i++)
+                    prices[i] = 30000L + i;
+                for (int i = n - 1; i > 0; i--) { // shuffle
+                    int j = rand.nextInt(i + 1);
+                    Long tmp = prices[i];
+                    prices[i] = prices[j];
+                    prices[j] = tmp;
+                }
+                break;
+            case "trending":
+            default:
+                // a random walk with an upward drift, skipping prices seen before
+                java.util.HashSet<Long> seen = new java.util.HashSet<>();
+                long price = 30000;
+                for (int i = 0; i < n;) {
+                    price += rand.nextInt(8) - 2;
+                    if (seen.add(price))
+                        prices[i++] = price;
+                }
+                break;
+        }
+        return prices;
+    }
+}
@@ -0,0 +1,43 @@
+package lob.exchange;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compares decoding a `live_orders` message with Jackson against
+ * `BitstampDecoder`:
+ *
+ * <pre>
+ * ./gradlew jmh -Pbenchmark=ParserBenchmark -Pprofilers=gc
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+    final static String MESSAGE = "{\"data\": {\"id\": 1711234567890123, \"id_str\": \"1711234567890123\", "
+            + "\"order_type\": 1, \"datetime\": \"1700000000\", \"microtimestamp\": \"1700000000123456\", "
+            + "\"amount\": 0.0105, \"amount_str\": \"0.01050000\", \"price\": 37012, \"price_str\": \"37012\"}, "
+            + "\"channel\": \"live_orders_btcusd\", \"event\": \"order_created\"}";
+
+    ObjectMapper mapper = new ObjectMapper();
+    BitstampDecoder decoder = new BitstampDecoder();
+    BitstampOrder order = new BitstampOrder();
+
+    @Benchmark
+    public BitstampOrder jackson() throws Exception {
+        return Bitstamp.parseOrderMessage(mapper, MESSAGE);
+    }
+
+    @Benchmark
+    public BitstampOrder streaming() {
+        decoder.decode(MESSAGE, order);
+        return order;
+    }
+}
@@ -0,0 +1,89 @@
+package lob.io;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.*;
+
+import lob.LimitOrderBook;
+import lob.SyntheticFeed;
+import lob.common.Order;
+
+/**
+ * Measures the cost of journaling every command of a book. The mix of
+ * `SteadyStateBenchmark` is applied to a book with no journal (`batch` 0) and
+ * to a `JournaledBook` that commits every `batch` commands, with or without
+ * forcing the records to the disk:
+ *
+ * <pre>
+ * ./gradlew jmh -Pbenchmark=JournalBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JournalBenchmark {
+    // The number of records of a segment, 40MB.
+    final static int SEGMENT_RECORDS = 1 << 20;
+
+    @Param({ "v2" })
+    String version;
+
+    // The number of commands per commit, 0 for a book without a journal.
+    @Param({ "0", "64", "4096" })
+    int batch;
+
+    @Param({ "true", "false" })
+    boolean sync;
+
+    SyntheticFeed feed;
+    LimitOrderBook book;
+    Journal journal;
+    Path dir;
+    Order message = new Order();
+    int next = 0;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        feed = new SyntheticFeed(1 << 20, 50, 42);
+        book = version.equals("v2") ? new lob.v2.LOB() : new lob.v1.LOB();
+        if (batch > 0) {
+            dir = Files.createTempDirectory("journal");
+            journal = new Journal(dir, SEGMENT_RECORDS, batch, sync);
+            book = new JournaledBook(book, journal);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void truncate() throws IOException {
+        // keep the disk usage bounded, the book itself is never recovered
+        if (journal != null)
+            journal.truncate(journal.sequence());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (journal == null)
+            return;
+        journal.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList())
+                Files.delete(path);
+        }
+    }
+
+    @Benchmark
+    public long mix() {
+        feed.apply(next, book, message);
+        if (++next == feed.length)
+            next = 0;
+        return book.volume();
+    }
+}
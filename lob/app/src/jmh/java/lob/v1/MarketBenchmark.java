@@ -0,0 +1,80 @@
+package lob.v1;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.openjdk.jmh.annotations.*;
+
+import lob.common.Order;
+import lob.common.Side;
+
+/**
+ * Measures the matching path of `LimitTree.market`. Run it with the GC profiler
+ * to see the bytes allocated per market order (`gc.alloc.rate.norm`):
+ *
+ * <pre>
+ * ./gradlew jmh -Pbenchmark=MarketBenchmark -Pprofilers=gc
+ * </pre>
+ *
+ * `partialFill` only matches part of the head order of the best level so the
+ * tree does not change, while `sweep` fully fills `levels` levels and then puts
+ * the same orders back onto the tree. With `subscribed` an execution listener
+ * receives every fill, otherwise the listener is null.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MarketBenchmark {
+    @Param({ "1", "10", "100" })
+    int levels;
+
+    @Param({ "false", "true" })
+    boolean subscribed;
+
+    LimitTree tree;
+    Order[] resting;
+    Order taker = new Order(0, Side.BUY, 0, 0);
+
+    // counts the filled orders so that the callback is not optimised away
+    long filled = 0;
+    Consumer<Order> onFilled = order -> filled++;
+
+    // sums the filled sizes so that the listener is not optimised away
+    long executed = 0;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        tree = new LimitTree(Side.SELL);
+        if (subscribed)
+            tree.executionListener = execution -> executed += execution.size;
+        resting = new Order[levels];
+        for (int i = 0; i < levels; i++) {
+            resting[i] = new Order(i + 1, Side.SELL, 10, 30000 + i);
+            tree.limit(resting[i]);
+        }
+        // a deep level behind the others that is never fully filled
+        tree.limit(new Order(levels + 1, Side.SELL, Long.MAX_VALUE / 2, 30000 + levels));
+    }
+
+    @Benchmark
+    public long partialFill() {
+        taker.size = 1;
+        tree.market(taker, onFilled);
+        tree.amend(resting[0], 10); // restore the filled size
+        return tree.volume;
+    }
+
+    @Benchmark
+    public long sweep() {
+        taker.size = 10L * levels;
+        tree.market(taker, onFilled);
+        for (Order order : resting) { // put the filled orders back
+            order.size = 10;
+            tree.limit(order);
+        }
+        return tree.volume;
+    }
+}
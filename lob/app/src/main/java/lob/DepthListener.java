@@ -0,0 +1,23 @@
+package lob;
+
+import lob.common.Side;
+
+/**
+ * Receives the incremental L2 updates of an order book: every time an order is
+ * placed, filled, cancelled or amended, the level it belongs to is reported
+ * with its new volume and number of orders. A subscriber can keep its own copy
+ * of the depth by applying the updates instead of pulling `topN`.
+ */
+@FunctionalInterface
+public interface DepthListener {
+    /**
+     * Called once for every level that changed, after the change.
+     *
+     * @param side   - The side of the level.
+     * @param price  - The price of the level.
+     * @param volume - The new total volume at the level.
+     * @param count  - The new number of orders at the level, 0 if the level was
+     *               removed from the book.
+     */
+    public void onDepth(Side side, long price, long volume, int count);
+}
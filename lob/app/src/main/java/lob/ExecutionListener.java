@@ -0,0 +1,18 @@
+package lob;
+
+import lob.common.Execution;
+
+/**
+ * Receives every fill of a market order as it is matched against the resting
+ * orders of a book, see `Execution`.
+ */
+@FunctionalInterface
+public interface ExecutionListener {
+    /**
+     * Called once per fill, in matching order. The execution object is reused for
+     * the next fill, so it must be copied if it is kept.
+     *
+     * @param execution - The fill.
+     */
+    public void onExecution(Execution execution);
+}
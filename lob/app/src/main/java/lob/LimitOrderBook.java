@@ -22,4 +22,85 @@ public interface LimitOrderBook {
     public long volume();
 
     public Iterator<Limit> topN(int n, Side side);
+
+    /**
+     * Returns the volume resting on a side at prices at least as good as a price,
+     * e.g. the size within 10 ticks of the best ask is
+     * `depth(Side.SELL, bestSell() + 10)`. The default walks `topN`, a book that
+     * keeps aggregates of its levels answers in O(log n).
+     *
+     * @param side  - The side of the levels.
+     * @param price - The worst price counted.
+     */
+    public default long depth(Side side, long price) {
+        long depth = 0;
+        for (Iterator<Limit> it = topN(Integer.MAX_VALUE, side); it.hasNext();) {
+            Limit limit = it.next();
+            if (side == Side.SELL ? limit.price > price : limit.price < price)
+                break;
+            depth += limit.volume;
+        }
+        return depth;
+    }
+
+    /**
+     * Returns the worst price a market order of a quantity would be filled at
+     * against the levels of a side, e.g. `priceFor(Side.SELL, q)` for a market
+     * buy of `q`.
+     *
+     * @param side     - The side of the levels.
+     * @param quantity - The quantity of the market order.
+     * @return the price, or 0 if the side holds less than the quantity.
+     */
+    public default long priceFor(Side side, long quantity) {
+        long remaining = quantity;
+        for (Iterator<Limit> it = topN(Integer.MAX_VALUE, side); it.hasNext();) {
+            Limit limit = it.next();
+            remaining -= limit.volume;
+            if (remaining <= 0)
+                return limit.price;
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the cost of a market order of a quantity against the levels of a
+     * side, the sum of price times size of the fills it would get. Divided by the
+     * quantity it is the average price, whose distance to the best price is the
+     * market impact of the order. If the side holds less than the quantity only
+     * what can be filled is counted.
+     * <p>
+     * The cost is in units of both scales of the instrument, so it overflows a
+     * long much sooner than the prices or the sizes do, e.g. above about 922
+     * million with a price scale of 2 and a size scale of 8.
+     * </p>
+     *
+     * @param side     - The side of the levels.
+     * @param quantity - The quantity of the market order.
+     * @throws ArithmeticException if the cost does not fit in a long.
+     */
+    public default long cost(Side side, long quantity) {
+        long cost = 0, remaining = quantity;
+        for (Iterator<Limit> it = topN(Integer.MAX_VALUE, side); it.hasNext() && remaining > 0;) {
+            Limit limit = it.next();
+            long size = Math.min(remaining, limit.volume);
+            cost = Math.addExact(cost, Math.multiplyExact(limit.price, size));
+            remaining -= size;
+        }
+        return cost;
+    }
+
+    /**
+     * Subscribe to the changes of the levels of the book, see `DepthListener`.
+     *
+     * @param listener - The listener, or null to unsubscribe.
+     */
+    public void setDepthListener(DepthListener listener);
+
+    /**
+     * Subscribe to the fills of market orders, see `ExecutionListener`.
+     *
+     * @param listener - The listener, or null to unsubscribe.
+     */
+    public void setExecutionListener(ExecutionListener listener);
 }
\ No newline at end of file
@@ -0,0 +1,330 @@
+package lob.analytics;
+
+import java.util.Iterator;
+
+import lob.DepthListener;
+import lob.ExecutionListener;
+import lob.LimitOrderBook;
+import lob.common.Execution;
+import lob.common.Order;
+import lob.common.Side;
+import lob.v1.Limit;
+
+/**
+ * AnalyticsBook wraps an order book and keeps market-data signals up to date
+ * from its depth updates and fills, instead of polling `bestBuy`, `bestSell`
+ * and `topN`:
+ * <ul>
+ * <li>the spread, the mid and the microprice of the touch,</li>
+ * <li>the depth-weighted mid and the imbalance of the volume of the best
+ * `levels` levels of each side,</li>
+ * <li>the order-flow imbalance of the best `levels` levels, i.e. the volume
+ * added to the bids and taken from the asks minus the volume taken from the
+ * bids and added to the asks, over the last `window` updates of those
+ * levels,</li>
+ * <li>the VWAP of the last `window` fills.</li>
+ * </ul>
+ * <p>
+ * The book keeps its own copy of the depth (see `DepthLadder`), every update
+ * and fill costs a constant amount of work on top of finding its level and
+ * never walks the book or allocates once the copy has grown to the depth of
+ * the book. The depth signals are read in O(1) from the sums of the top levels
+ * that the copy keeps. The prices are in the fixed-point units of the book.
+ * </p>
+ * <p>
+ * The signals are not thread-safe, they must be read by the thread that
+ * writes the book, e.g. between commands or from a listener. The listeners of
+ * the caller are called after the signals are updated.
+ * </p>
+ */
+public class AnalyticsBook implements LimitOrderBook {
+    // The default number of levels of the depth signals and of updates and fills
+    // of the rolling signals.
+    public final static int DEFAULT_LEVELS = 5;
+    public final static int DEFAULT_WINDOW = 1000;
+
+    // The initial capacity of the copy of each side of the depth.
+    private final static int LADDER_CAPACITY = 1024;
+
+    private final LimitOrderBook book;
+    private final int levels;
+    private final int window;
+
+    private final DepthLadder bids;
+    private final DepthLadder asks;
+
+    // The listeners of the caller, if any.
+    private DepthListener depthListener;
+    private ExecutionListener executionListener;
+
+    // The signed flows of the last `window` updates of the best levels.
+    private final long[] flows;
+    private int flowNext = 0, flowCount = 0;
+    private long flow = 0, totalFlow = 0;
+
+    // The prices and sizes of the last `window` fills, the notional is
+    // recomputed from them every `window` fills so rounding errors do not build up.
+    private final long[] fillPrices, fillSizes;
+    private int fillNext = 0, fillCount = 0;
+    private long fillVolume = 0;
+    private double fillNotional = 0;
+
+    /**
+     * Wrap a book with the default levels and window.
+     *
+     * @param book - The order book.
+     */
+    public AnalyticsBook(LimitOrderBook book) {
+        this(book, DEFAULT_LEVELS, DEFAULT_WINDOW);
+    }
+
+    /**
+     * Wrap a book, the book must not be used directly afterwards. The levels
+     * already in the book are copied once.
+     *
+     * @param book   - The order book.
+     * @param levels - The number of levels of each side in the depth-weighted mid,
+     *               the imbalance and the order-flow imbalance.
+     * @param window - The number of updates in the order-flow imbalance and of
+     *               fills in the VWAP.
+     */
+    public AnalyticsBook(LimitOrderBook book, int levels, int window) {
+        if (levels <= 0 || window <= 0)
+            throw new IllegalArgumentException("levels and window must be positive");
+        this.book = book;
+        this.levels = levels;
+        this.window = window;
+        this.flows = new long[window];
+        this.fillPrices = new long[window];
+        this.fillSizes = new long[window];
+        this.bids = new DepthLadder(Side.BUY, LADDER_CAPACITY, levels);
+        this.asks = new DepthLadder(Side.SELL, LADDER_CAPACITY, levels);
+
+        for (Side side : Side.values()) {
+            DepthLadder ladder = ladder(side);
+            Iterator<Limit> it = book.topN(Integer.MAX_VALUE, side);
+            while (it.hasNext()) {
+                Limit limit = it.next();
+                ladder.update(limit.price, limit.volume, limit.count);
+            }
+        }
+        book.setDepthListener(this::onDepth);
+        book.setExecutionListener(this::onExecution);
+    }
+
+    private DepthLadder ladder(Side side) {
+        return side == Side.BUY ? bids : asks;
+    }
+
+    private void onDepth(Side side, long price, long volume, int count) {
+        DepthLadder ladder = ladder(side);
+        long delta = ladder.update(price, volume, count);
+        int rank = ladder.rank();
+        if (rank >= 0 && rank < levels && delta != 0)
+            addFlow(side == Side.BUY ? delta : -delta);
+
+        if (depthListener != null)
+            depthListener.onDepth(side, price, volume, count);
+    }
+
+    private void addFlow(long value) {
+        if (flowCount == window)
+            flow -= flows[flowNext];
+        else
+            flowCount++;
+        flows[flowNext] = value;
+        flowNext = (flowNext + 1) % window;
+        flow += value;
+        totalFlow += value;
+    }
+
+    private void onExecution(Execution execution) {
+        if (fillCount == window) {
+            fillVolume -= fillSizes[fillNext];
+            fillNotional -= (double) fillPrices[fillNext] * fillSizes[fillNext];
+        } else {
+            fillCount++;
+        }
+        fillPrices[fillNext] = execution.price;
+        fillSizes[fillNext] = execution.size;
+        fillVolume += execution.size;
+        fillNotional += (double) execution.price * execution.size;
+        fillNext = (fillNext + 1) % window;
+
+        if (fillNext == 0 && fillCount == window) {
+            fillNotional = 0;
+            for (int i = 0; i < window; i++)
+                fillNotional += (double) fillPrices[i] * fillSizes[i];
+        }
+
+        if (executionListener != null)
+            executionListener.onExecution(execution);
+    }
+
+    /**
+     * Returns the best ask minus the best bid, 0 if a side is empty.
+     */
+    public long spread() {
+        if (bids.size() == 0 || asks.size() == 0)
+            return 0;
+        return asks.price(0) - bids.price(0);
+    }
+
+    /**
+     * Returns the average of the best bid and the best ask, NaN if a side is
+     * empty.
+     */
+    public double mid() {
+        if (bids.size() == 0 || asks.size() == 0)
+            return Double.NaN;
+        return (bids.price(0) + asks.price(0)) / 2.0;
+    }
+
+    /**
+     * Returns the microprice, the best bid and the best ask weighted by the
+     * volume on the opposite side, so it leans towards the side that is more
+     * likely to be taken. NaN if a side is empty.
+     */
+    public double microprice() {
+        if (bids.size() == 0 || asks.size() == 0)
+            return Double.NaN;
+        double bidVolume = bids.volume(0), askVolume = asks.volume(0);
+        if (bidVolume + askVolume == 0)
+            return mid();
+        return (bids.price(0) * askVolume + asks.price(0) * bidVolume) / (bidVolume + askVolume);
+    }
+
+    /**
+     * Returns the microprice of the best `levels` levels: the volume-weighted
+     * price of each side weighted by the volume of the other side. It is the
+     * microprice when `levels` is 1. NaN if a side is empty.
+     */
+    public double depthWeightedMid() {
+        if (bids.size() == 0 || asks.size() == 0)
+            return Double.NaN;
+        double bidVolume = bids.topVolume(), askVolume = asks.topVolume();
+        if (bidVolume == 0 || askVolume == 0)
+            return mid();
+        return (bids.topNotional() / bidVolume * askVolume + asks.topNotional() / askVolume * bidVolume)
+                / (bidVolume + askVolume);
+    }
+
+    /**
+     * Returns the imbalance of the volume of the best `levels` levels, from -1
+     * when there are only asks to 1 when there are only bids, 0 if both sides are
+     * empty.
+     */
+    public double imbalance() {
+        long bidVolume = bids.topVolume(), askVolume = asks.topVolume();
+        if (bidVolume + askVolume == 0)
+            return 0;
+        return (double) (bidVolume - askVolume) / (bidVolume + askVolume);
+    }
+
+    /**
+     * Returns the order-flow imbalance of the last `window` updates of the best
+     * `levels` levels, positive when buyers add or sellers take more than the
+     * other way around.
+     */
+    public long orderFlowImbalance() {
+        return flow;
+    }
+
+    /**
+     * Returns the order-flow imbalance of every update since the book was
+     * wrapped, sampling it at two points gives the imbalance in between.
+     */
+    public long totalOrderFlowImbalance() {
+        return totalFlow;
+    }
+
+    /**
+     * Returns the volume-weighted price of the last `window` fills, NaN if there
+     * were none.
+     */
+    public double vwap() {
+        if (fillVolume == 0)
+            return Double.NaN;
+        return fillNotional / fillVolume;
+    }
+
+    /**
+     * Returns the volume of the last `window` fills.
+     */
+    public long tradedVolume() {
+        return fillVolume;
+    }
+
+    @Override
+    public void limit(Order order) {
+        book.limit(order);
+    }
+
+    @Override
+    public void market(Order order) {
+        book.market(order);
+    }
+
+    @Override
+    public void cancel(long orderId) {
+        book.cancel(orderId);
+    }
+
+    @Override
+    public void amend(long orderId, long size) {
+        book.amend(orderId, size);
+    }
+
+    @Override
+    public long bestBuy() {
+        return book.bestBuy();
+    }
+
+    @Override
+    public long bestSell() {
+        return book.bestSell();
+    }
+
+    @Override
+    public long volume() {
+        return book.volume();
+    }
+
+    @Override
+    public Iterator<Limit> topN(int n, Side side) {
+        return book.topN(n, side);
+    }
+
+    @Override
+    public long depth(Side side, long price) {
+        return book.depth(side, price);
+    }
+
+    @Override
+    public long priceFor(Side side, long quantity) {
+        return book.priceFor(side, quantity);
+    }
+
+    @Override
+    public long cost(Side side, long quantity) {
+        return book.cost(side, quantity);
+    }
+
+    /**
+     * Subscribe to the depth updates of the wrapped book, the book keeps its
+     * signals up to date through its own listener.
+     */
+    @Override
+    public void setDepthListener(DepthListener listener) {
+        this.depthListener = listener;
+    }
+
+    /**
+     * Subscribe to the fills of the wrapped book, the book keeps its signals up
+     * to date through its own listener.
+     */
+    @Override
+    public void setExecutionListener(ExecutionListener listener) {
+        this.executionListener = listener;
+    }
+}
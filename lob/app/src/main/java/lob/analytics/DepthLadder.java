@@ -0,0 +1,192 @@
+package lob.analytics;
+
+import java.util.Arrays;
+
+import lob.common.Side;
+
+/**
+ * DepthLadder keeps a copy of the levels of one side of a book, built from its
+ * `DepthListener` updates, in two sorted arrays with the best level at the end.
+ * The prices are stored as keys that grow towards the touch (the price of a bid
+ * and the negated price of an ask), so both sides share the same code.
+ * <p>
+ * Most updates are at or near the touch, where finding a level is one
+ * comparison and inserting or removing one shifts a few entries. A level deep
+ * in the book costs a binary search and a shift of the levels in front of it,
+ * so an update is O(log n + rank) rather than O(1): the ranks are what the
+ * signals need, and keeping them in a structure with O(1) updates would cost
+ * more for the common updates at the touch than it saves deep in the book.
+ * The arrays only grow, so the ladder stops allocating once it has seen the
+ * deepest book.
+ * </p>
+ * <p>
+ * The volume and the notional of the best `levels` levels are kept up to date
+ * by every update in O(1), a level that enters or leaves the top is added or
+ * subtracted, so reading them does not walk the levels. The notional is a
+ * double, recomputed from the levels every `RECOMPUTE` changes so that rounding
+ * errors do not build up.
+ * </p>
+ */
+final class DepthLadder {
+    // The number of changes of the notional between two recomputations.
+    private final static int RECOMPUTE = 4096;
+
+    private final Side side;
+
+    // The keys and volumes of the levels, the best level is at `size - 1`.
+    private long[] keys, volumes;
+    private int size = 0;
+
+    // The rank of the level of the last update, 0 for the best level.
+    private int rank = -1;
+
+    // The number of levels summed, and the volume and notional of those levels.
+    private final int levels;
+    private long topVolume = 0;
+    private double topNotional = 0;
+    private int changes = 0;
+
+    DepthLadder(Side side, int capacity, int levels) {
+        this.side = side;
+        this.keys = new long[capacity];
+        this.volumes = new long[capacity];
+        this.levels = levels;
+    }
+
+    private long key(long price) {
+        return side == Side.BUY ? price : -price;
+    }
+
+    /**
+     * Apply the update of a level.
+     *
+     * @param price  - The price of the level.
+     * @param volume - The new volume of the level.
+     * @param count  - The new number of orders, 0 if the level was removed.
+     * @return the change of the volume of the level.
+     */
+    long update(long price, long volume, int count) {
+        long delta = apply(price, volume, count);
+        if (changes >= RECOMPUTE) {
+            changes = 0;
+            topNotional = 0;
+            for (int i = 0; i < Math.min(levels, size); i++)
+                topNotional += (double) price(i) * volume(i);
+        }
+        return delta;
+    }
+
+    /**
+     * Apply the update of a level to the arrays and to the sums of the top
+     * levels, see `update`.
+     */
+    private long apply(long price, long volume, int count) {
+        long key = key(price);
+        int i = search(key);
+        if (i >= 0) {
+            rank = size - 1 - i;
+            long delta = volume - volumes[i];
+            if (count == 0) {
+                if (rank < levels)
+                    addTop(price, -volumes[i]);
+                System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+                System.arraycopy(volumes, i + 1, volumes, i, size - i - 1);
+                size--;
+                if (rank < levels && size >= levels) // the next level enters the top
+                    addTop(price(levels - 1), volume(levels - 1));
+            } else {
+                volumes[i] = volume;
+                if (rank < levels)
+                    addTop(price, delta);
+            }
+            return delta;
+        }
+
+        if (count == 0) { // a level that was never reported
+            rank = -1;
+            return 0;
+        }
+
+        i = -i - 1;
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            volumes = Arrays.copyOf(volumes, size * 2);
+        }
+        System.arraycopy(keys, i, keys, i + 1, size - i);
+        System.arraycopy(volumes, i, volumes, i + 1, size - i);
+        keys[i] = key;
+        volumes[i] = volume;
+        size++;
+        rank = size - 1 - i;
+        if (rank < levels) {
+            if (size > levels) // the last level of the top leaves it
+                addTop(price(levels), -volume(levels));
+            addTop(price, volume);
+        }
+        return volume;
+    }
+
+    /**
+     * Add a change of the volume of a level to the sums of the top levels.
+     */
+    private void addTop(long price, long volume) {
+        topVolume += volume;
+        topNotional += (double) price * volume;
+        changes++;
+    }
+
+    /**
+     * Returns the index of a key, or `-(insertion point) - 1` if it is missing,
+     * checking the best level first.
+     */
+    private int search(long key) {
+        if (size > 0 && keys[size - 1] == key)
+            return size - 1;
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    /**
+     * Returns the rank of the level of the last update, 0 for the best level and
+     * -1 if the update removed an unknown level. The rank of a removed level is
+     * its rank before the removal.
+     */
+    int rank() {
+        return rank;
+    }
+
+    /**
+     * Returns the volume of the best `levels` levels.
+     */
+    long topVolume() {
+        return topVolume;
+    }
+
+    /**
+     * Returns the sum of price times volume of the best `levels` levels.
+     */
+    double topNotional() {
+        return topNotional;
+    }
+
+    /**
+     * Returns the number of levels.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the price of a level, 0 for the best level.
+     */
+    long price(int rank) {
+        long key = keys[size - 1 - rank];
+        return side == Side.BUY ? key : -key;
+    }
+
+    /**
+     * Returns the volume of a level, 0 for the best level.
+     */
+    long volume(int rank) {
+        return volumes[size - 1 - rank];
+    }
+}
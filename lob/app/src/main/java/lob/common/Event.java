@@ -0,0 +1,99 @@
+package lob.common;
+
+import lob.LimitOrderBook;
+
+/**
+ * Event is one command to an order book: placing a limit order, placing a
+ * market order, cancelling or amending an order. It is the unit of a recorded
+ * feed (see `lob.io.EventLog`) and is meant to be reused, a reader copies every
+ * record into the same event instead of creating a new one.
+ */
+public class Event {
+    public final static byte LIMIT = 0, MARKET = 1, CANCEL = 2, AMEND = 3;
+
+    // One of `LIMIT`, `MARKET`, `CANCEL` or `AMEND`.
+    public byte type;
+
+    // The side of the order.
+    public Side side;
+
+    // The instrument the event belongs to, an index chosen by whoever recorded it.
+    public int symbol = 0;
+
+    // The id of the order.
+    public long id = 0;
+
+    // The size of the order, or the new size for `AMEND`.
+    public long size = 0;
+
+    // The price of the order, 0 for `MARKET`, `CANCEL` and `AMEND`.
+    public long price = 0;
+
+    // The time of the event in microseconds since the epoch, 0 if unknown.
+    public long timestamp = 0;
+
+    // The time in force and the post-only flag of a `LIMIT`, see `Order`.
+    public TimeInForce timeInForce = TimeInForce.GTC;
+    public boolean postOnly = false;
+
+    /**
+     * Reset the event to new values so that the object can be reused, the symbol
+     * is left unchanged and a limit order is good till cancelled.
+     *
+     * @return the event itself.
+     */
+    public Event set(byte type, Side side, long id, long size, long price, long timestamp) {
+        this.type = type;
+        this.side = side;
+        this.id = id;
+        this.size = size;
+        this.price = price;
+        this.timestamp = timestamp;
+        this.timeInForce = TimeInForce.GTC;
+        this.postOnly = false;
+        return this;
+    }
+
+    /**
+     * Copy every field of another event, including the symbol.
+     *
+     * @return the event itself.
+     */
+    public Event set(Event other) {
+        symbol = other.symbol;
+        set(other.type, other.side, other.id, other.size, other.price, other.timestamp);
+        timeInForce = other.timeInForce;
+        postOnly = other.postOnly;
+        return this;
+    }
+
+    /**
+     * Apply the event to an order book.
+     *
+     * @param book    - The order book.
+     * @param message - An order that is reused to pass limit and market orders to
+     *                the book, the book copies it when the order rests.
+     */
+    public void apply(LimitOrderBook book, Order message) {
+        switch (type) {
+            case LIMIT:
+                book.limit(message.set(id, side, size, price, timeInForce, postOnly));
+                break;
+            case MARKET:
+                book.market(message.set(id, side, size, price));
+                break;
+            case CANCEL:
+                book.cancel(id);
+                break;
+            case AMEND:
+                book.amend(id, size);
+                break;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return type + " symbol: " + symbol + " id: " + id + " side: " + side + " size: " + size + " price: "
+                + price + " timestamp: " + timestamp;
+    }
+}
@@ -0,0 +1,61 @@
+package lob.common;
+
+/**
+ * Execution reports one fill between a resting (maker) order and an incoming
+ * (taker) order. It is a flyweight: the book fills the same object for every
+ * fill and passes it to the `ExecutionListener`, so it must be copied if it is
+ * kept after the listener returns.
+ */
+public class Execution {
+    // Set in `flags` when the maker order has nothing left and leaves the book.
+    public final static int MAKER_FILLED = 1;
+
+    // Set in `flags` when the taker order has nothing left.
+    public final static int TAKER_FILLED = 2;
+
+    // The ids of the resting order and of the incoming order.
+    public long makerId, takerId;
+
+    // The side of the incoming order.
+    public Side takerSide;
+
+    // The price and the quantity of the fill, the price is the maker's.
+    public long price, size;
+
+    // The quantity left on each order after the fill.
+    public long makerRemaining, takerRemaining;
+
+    // A combination of `MAKER_FILLED` and `TAKER_FILLED`.
+    public int flags;
+
+    /**
+     * Reset the execution to a new fill so that the object can be reused.
+     *
+     * @return the execution itself.
+     */
+    public Execution set(Order maker, Order taker, long price, long size) {
+        this.makerId = maker.id;
+        this.takerId = taker.id;
+        this.takerSide = taker.side;
+        this.price = price;
+        this.size = size;
+        this.makerRemaining = maker.size;
+        this.takerRemaining = taker.size;
+        this.flags = (maker.size == 0 ? MAKER_FILLED : 0) | (taker.size == 0 ? TAKER_FILLED : 0);
+        return this;
+    }
+
+    public boolean makerFilled() {
+        return (flags & MAKER_FILLED) != 0;
+    }
+
+    public boolean takerFilled() {
+        return (flags & TAKER_FILLED) != 0;
+    }
+
+    @Override
+    public String toString() {
+        return "maker: " + makerId + " taker: " + takerId + " side: " + takerSide + " price: " + price + " size: "
+                + size + " maker remaining: " + makerRemaining + " taker remaining: " + takerRemaining;
+    }
+}
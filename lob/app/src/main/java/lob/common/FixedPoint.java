@@ -0,0 +1,175 @@
+package lob.common;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * FixedPoint converts decimal numbers to and from longs with a fixed number of
+ * decimals (the scale), e.g. `0.0105` with a scale of 9 is `10500000`. Prices
+ * and sizes are kept this way from the wire to the book, the conversion works
+ * on the digits directly and never goes through a double, so `0.29` is exactly
+ * `290000000` and not `289999999`.
+ * <p>
+ * A number with more decimals than the scale is rejected rather than truncated,
+ * e.g. `37012.57` with a scale of 0, except for trailing zeros such as
+ * `0.01050000` with a scale of 8. The value must fit in a long once it is
+ * scaled, i.e. about 18 significant digits, a larger value is rejected.
+ * </p>
+ */
+public final class FixedPoint {
+    // The largest scale supported, 10^18 is the largest power of ten in a long.
+    public final static int MAX_SCALE = 18;
+
+    private final static long[] POW10 = new long[MAX_SCALE + 1];
+
+    // A value can take one more digit without overflowing while it is below this,
+    // or equal to it and the digit is at most `Long.MAX_VALUE % 10`.
+    private final static long MAX_BEFORE_DIGIT = Long.MAX_VALUE / 10;
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i <= MAX_SCALE; i++)
+            POW10[i] = POW10[i - 1] * 10;
+    }
+
+    private FixedPoint() {
+    }
+
+    /**
+     * Returns 10 to the power of a scale.
+     */
+    public static long pow10(int scale) {
+        return POW10[scale];
+    }
+
+    /**
+     * Parse a decimal number, e.g. `-12.5`, `0.01050000` or `1e-05`.
+     *
+     * @param s     - The number.
+     * @param scale - The number of decimals to keep.
+     * @return the number multiplied by 10^scale.
+     * @throws NumberFormatException if the string is not a decimal number or it
+     *                               has more decimals than the scale.
+     */
+    public static long parse(CharSequence s, int scale) {
+        int length = s.length();
+        byte[] digits = new byte[length];
+        for (int i = 0; i < length; i++)
+            digits[i] = (byte) s.charAt(i);
+        return parse(digits, 0, length, scale);
+    }
+
+    /**
+     * Parse a decimal number written in ASCII, without allocating.
+     *
+     * @param buf   - The buffer holding the number.
+     * @param from  - The index of the first character, inclusive.
+     * @param to    - The index of the last character, exclusive.
+     * @param scale - The number of decimals to keep.
+     * @return the number multiplied by 10^scale.
+     * @throws NumberFormatException if the characters are not a decimal number or
+     *                               they have more decimals than the scale.
+     */
+    public static long parse(byte[] buf, int from, int to, int scale) {
+        int pos = from;
+        boolean negative = pos < to && buf[pos] == '-';
+        if (negative || (pos < to && buf[pos] == '+'))
+            pos++;
+
+        long value = 0;
+        int digits = 0;
+        int fraction = -1; // the number of digits kept after the decimal point
+        int exponent = 0;
+        for (; pos < to; pos++) {
+            byte c = buf[pos];
+            if (c >= '0' && c <= '9') {
+                digits++;
+                int digit = c - '0';
+                if (value < MAX_BEFORE_DIGIT || (value == MAX_BEFORE_DIGIT && digit <= Long.MAX_VALUE % 10)) {
+                    value = value * 10 + digit;
+                    if (fraction >= 0)
+                        fraction++;
+                } else if (fraction < 0) // only zeros can be dropped after the decimal point
+                    throw new NumberFormatException("too large: " + string(buf, from, to));
+                else if (digit != 0)
+                    throw new NumberFormatException("too many digits: " + string(buf, from, to));
+            } else if (c == '.' && fraction < 0)
+                fraction = 0;
+            else if ((c == 'e' || c == 'E') && digits > 0) {
+                exponent = parseExponent(buf, pos + 1, to);
+                break;
+            } else
+                throw new NumberFormatException("not a decimal number: " + string(buf, from, to));
+        }
+        if (digits == 0)
+            throw new NumberFormatException("not a decimal number: " + string(buf, from, to));
+
+        // value * 10^(scale + exponent - fraction)
+        int shift = scale + exponent - Math.max(fraction, 0);
+        for (; shift > 0; shift--) {
+            if (value > Long.MAX_VALUE / 10)
+                throw new NumberFormatException("too large: " + string(buf, from, to));
+            value *= 10;
+        }
+        for (; shift < 0 && value != 0; shift++) {
+            if (value % 10 != 0)
+                throw new NumberFormatException("more decimals than the scale " + scale + ": " + string(buf, from, to));
+            value /= 10;
+        }
+
+        return negative ? -value : value;
+    }
+
+    private static int parseExponent(byte[] buf, int pos, int to) {
+        boolean negative = pos < to && buf[pos] == '-';
+        if (negative || (pos < to && buf[pos] == '+'))
+            pos++;
+        if (pos == to)
+            throw new NumberFormatException("missing exponent");
+
+        int exponent = 0;
+        for (; pos < to; pos++) {
+            byte c = buf[pos];
+            if (c < '0' || c > '9')
+                throw new NumberFormatException("not an exponent: " + string(buf, pos, to));
+            exponent = exponent * 10 + (c - '0');
+        }
+        return negative ? -exponent : exponent;
+    }
+
+    private static String string(byte[] buf, int from, int to) {
+        return new String(buf, from, to - from, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Format a fixed-point number with all the decimals of its scale, e.g.
+     * `10500000` with a scale of 9 is `0.010500000`.
+     *
+     * @param value - The number multiplied by 10^scale.
+     * @param scale - The number of decimals.
+     */
+    public static String format(long value, int scale) {
+        if (scale == 0)
+            return Long.toString(value);
+
+        StringBuilder s = new StringBuilder(24);
+        if (value < 0)
+            s.append('-');
+        long abs = Math.abs(value);
+        s.append(abs / POW10[scale]).append('.');
+
+        String fraction = Long.toString(abs % POW10[scale]);
+        for (int i = fraction.length(); i < scale; i++)
+            s.append('0');
+        return s.append(fraction).toString();
+    }
+
+    /**
+     * Convert a fixed-point number to a double, only for display and statistics.
+     *
+     * @param value - The number multiplied by 10^scale.
+     * @param scale - The number of decimals.
+     */
+    public static double toDouble(long value, int scale) {
+        return (double) value / POW10[scale];
+    }
+}
@@ -0,0 +1,106 @@
+package lob.common;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Instrument gives the fixed-point scales of the prices and sizes of a symbol,
+ * e.g. a price scale of 2 means `Order.price` is in cents. The decoders parse
+ * the prices and sizes of a symbol straight into its scales (see `FixedPoint`)
+ * and reporting formats them back with the same scales.
+ * <p>
+ * The instruments are kept in a registry by symbol, `Bitstamp` registers the
+ * pairs it quotes. A symbol that was not registered uses `DEFAULT`, the scales
+ * the books used before instruments existed: whole prices and sizes with 9
+ * decimals. Instruments should be registered before any message of their symbol
+ * is decoded.
+ * </p>
+ */
+public final class Instrument {
+    public final static Instrument DEFAULT = new Instrument("default", 0, 9);
+
+    private final static ConcurrentHashMap<String, Instrument> registry = new ConcurrentHashMap<>();
+
+    // The symbol in lower case, e.g. `btcusd`.
+    public final String symbol;
+
+    // The number of decimals of the prices and of the sizes.
+    public final int priceScale, sizeScale;
+
+    /**
+     * Create an instrument, it is not registered.
+     *
+     * @param symbol     - The symbol, e.g. `BTCUSD`.
+     * @param priceScale - The number of decimals of the prices.
+     * @param sizeScale  - The number of decimals of the sizes.
+     */
+    public Instrument(String symbol, int priceScale, int sizeScale) {
+        if (priceScale < 0 || priceScale > FixedPoint.MAX_SCALE || sizeScale < 0 || sizeScale > FixedPoint.MAX_SCALE)
+            throw new IllegalArgumentException("the scales must be between 0 and " + FixedPoint.MAX_SCALE);
+        this.symbol = symbol.toLowerCase();
+        this.priceScale = priceScale;
+        this.sizeScale = sizeScale;
+    }
+
+    /**
+     * Register the scales of a symbol, replacing any previous instrument of the
+     * symbol.
+     *
+     * @return the registered instrument.
+     */
+    public static Instrument register(String symbol, int priceScale, int sizeScale) {
+        Instrument instrument = new Instrument(symbol, priceScale, sizeScale);
+        registry.put(instrument.symbol, instrument);
+        return instrument;
+    }
+
+    /**
+     * Register the scales of a symbol unless it is already registered.
+     *
+     * @return the instrument of the symbol, the registered one if there is one.
+     */
+    public static Instrument registerIfAbsent(String symbol, int priceScale, int sizeScale) {
+        return registry.computeIfAbsent(symbol.toLowerCase(), s -> new Instrument(s, priceScale, sizeScale));
+    }
+
+    /**
+     * Get the instrument of a symbol.
+     *
+     * @param symbol - The symbol in any case, or null.
+     * @return the registered instrument, or `DEFAULT`.
+     */
+    public static Instrument of(String symbol) {
+        if (symbol == null)
+            return DEFAULT;
+        Instrument instrument = registry.get(symbol.toLowerCase());
+        return instrument == null ? DEFAULT : instrument;
+    }
+
+    public long parsePrice(CharSequence price) {
+        return FixedPoint.parse(price, priceScale);
+    }
+
+    public long parseSize(CharSequence size) {
+        return FixedPoint.parse(size, sizeScale);
+    }
+
+    public String formatPrice(long price) {
+        return FixedPoint.format(price, priceScale);
+    }
+
+    public String formatSize(long size) {
+        return FixedPoint.format(size, sizeScale);
+    }
+
+    /**
+     * Returns the value of a size at a price in units of the quote currency, e.g.
+     * the USD value of an amount of BTC. It is only meant for display.
+     */
+    public double notional(long price, long size) {
+        return FixedPoint.toDouble(price, priceScale) * FixedPoint.toDouble(size, sizeScale);
+    }
+
+    @Override
+    public String toString() {
+        return symbol + " price scale: " + priceScale + " size scale: " + sizeScale;
+    }
+}
@@ -1,5 +1,7 @@
 package lob.common;
 
+import lob.v1.Limit;
+
 /**
  * Order represents an individual order placed on a particular price level
  * (limit) of the orderbook.
@@ -11,17 +13,59 @@ public class Order {
     // The side of the order, either buy or sell only.
     public Side side;
 
-    // The quantity of the order.
+    // The quantity of the order, fixed-point with the size scale of its `Instrument`.
     public long size = 0;
 
-    // The price of the order.
+    // The price of the order, fixed-point with the price scale of its `Instrument`.
     public long price = 0;
 
+    // What happens to the part of a limit order that cannot be matched immediately.
+    public TimeInForce timeInForce = TimeInForce.GTC;
+
+    // A post-only limit order is dropped instead of matched if it crosses the book.
+    public boolean postOnly = false;
+
+    // The previous and next order in the queue of the limit level, these are
+    // maintained by `Limit` so that an order can be unlinked in O(1).
+    public Order prev, next;
+
+    // The limit level this order is currently queued at, null if not resting.
+    public Limit limit;
+
     public Order(long id, Side side, long size, long price) {
+        set(id, side, size, price);
+    }
+
+    /**
+     * Creates an empty order, this is used by pools and by callers that reuse one
+     * order object for every incoming message.
+     */
+    public Order() {
+    }
+
+    /**
+     * Reset the order to new values so that the object can be reused, the order
+     * becomes a plain good till cancelled order.
+     *
+     * @return the order itself.
+     */
+    public Order set(long id, Side side, long size, long price) {
+        return set(id, side, size, price, TimeInForce.GTC, false);
+    }
+
+    /**
+     * Reset the order to new values so that the object can be reused.
+     *
+     * @return the order itself.
+     */
+    public Order set(long id, Side side, long size, long price, TimeInForce timeInForce, boolean postOnly) {
         this.id = id;
         this.side = side;
         this.size = size;
         this.price = price;
+        this.timeInForce = timeInForce;
+        this.postOnly = postOnly;
+        return this;
     }
 
     @Override
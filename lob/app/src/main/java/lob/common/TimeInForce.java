@@ -0,0 +1,11 @@
+package lob.common;
+
+/**
+ * How long a limit order stays active, this only matters when the order crosses
+ * the opposite side of the book.
+ */
+public enum TimeInForce {
+    GTC, // good till cancelled, the part that cannot be matched rests on the book
+    IOC, // immediate or cancel, the part that cannot be matched is dropped
+    FOK, // fill or kill, the order is dropped unless it can be matched in full
+}
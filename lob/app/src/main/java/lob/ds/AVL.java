@@ -0,0 +1,241 @@
+package lob.ds;
+
+/**
+ * AVL is a self-balancing binary search tree, the heights of the two child
+ * subtrees of any node differ by at most one. This keeps the height of the tree
+ * at O(log n) even when elements are inserted in sorted order, which would turn
+ * a plain `BST` into a linked list. Like `BST`, duplicates are not allowed.
+ * <p>
+ * Removed nodes are kept in a free list and reused by later insertions, so a
+ * tree whose size stays about the same (like the price levels of a book) stops
+ * allocating once it has reached its largest size.
+ * </p>
+ * <p>
+ * The searches and the iterators are the ones of `LinkedTree`, this class only
+ * adds, removes and rebalances the nodes.
+ * </p>
+ * <p>
+ * A subclass can keep aggregates of every subtree (e.g. sums, for range
+ * queries in O(log n)) by extending `Node` with its fields, creating its nodes
+ * in `createNode` and recomputing them in `update`, which the tree calls on
+ * every node whose children or element changed, bottom-up.
+ * </p>
+ *
+ * @param <T> - Generic Type (can be any object types but not primitive types)
+ */
+public class AVL<T extends Comparable<T>> extends LinkedTree<T> {
+  // removed nodes available for reuse, linked through their right child
+  private Node free = null;
+
+  /**
+   * Returns the height of the tree
+   * <p>
+   * Every node stores the height of its subtree, so this is O(1)
+   * </p>
+   *
+   * @return the number of nodes on the longest path from the root to a leaf
+   */
+  @Override
+  public int height() {
+    return height(root);
+  }
+
+  /**
+   * Add an element in to the tree. The tree is searched once, iteratively, and a
+   * duplicate is found on the way down, then the subtrees are rebalanced on the
+   * way back up through the parent links.
+   *
+   * @param element - The element to add into the tree
+   * @return - Whether the element is successfully added
+   */
+  @Override
+  public boolean add(T element) {
+    Node parent = null, node = root;
+    int cmp = 0;
+
+    while (node != null) {
+      cmp = element.compareTo(node.data);
+      if (cmp == 0) // duplicates cannot be added
+        return false;
+      parent = node;
+      node = cmp > 0 ? node.right : node.left;
+    }
+
+    Node added = newNode(element);
+    if (parent == null)
+      root = added;
+    else if (cmp > 0)
+      setRight(parent, added);
+    else
+      setLeft(parent, added);
+
+    nodeCount++;
+    rebalance(parent);
+    return true;
+  }
+
+  /**
+   * Remove an element from the tree. The node is found with a single iterative
+   * search, a missing element returns on the way down, then the subtrees are
+   * rebalanced on the way back up through the parent links.
+   *
+   * @param element - the element to remove
+   * @return true if removed successfully, false otherwise
+   */
+  @Override
+  public boolean remove(T element) {
+    Node node = find(element);
+    if (node == null)
+      return false;
+
+    // A node with two children takes the element of its inorder successor, which
+    // has no left child, and the successor is unlinked instead
+    if (node.left != null && node.right != null) {
+      Node successor = first(node.right, false);
+      node.data = successor.data;
+      node = successor;
+    }
+
+    Node parent = node.parent;
+    Node child = node.left == null ? node.right : node.left;
+    replace(parent, node, child);
+    recycle(node);
+
+    nodeCount--;
+    rebalance(parent);
+    return true;
+  }
+
+  /**
+   * Balance every subtree from a node up to the root, each rotation is linked
+   * back to the parent of the subtree.
+   *
+   * @param node - the lowest node whose subtree changed, or null
+   */
+  private void rebalance(Node node) {
+    while (node != null) {
+      Node parent = node.parent;
+      replace(parent, node, balance(node));
+      node = parent;
+    }
+  }
+
+  /**
+   * Replace a child of a node, or the root if the node is null.
+   */
+  private void replace(Node parent, Node child, Node replacement) {
+    if (parent == null) {
+      root = replacement;
+      if (replacement != null)
+        replacement.parent = null;
+    } else if (parent.left == child)
+      setLeft(parent, replacement);
+    else
+      setRight(parent, replacement);
+  }
+
+  /**
+   * Take a node from the free list, or allocate one if it is empty.
+   */
+  private Node newNode(T element) {
+    Node node = free;
+    if (node == null)
+      node = createNode();
+    else
+      free = node.right;
+
+    node.init(element);
+    update(node);
+    return node;
+  }
+
+  /**
+   * Allocate a node, a subclass that extends `Node` returns its own nodes.
+   */
+  protected Node createNode() {
+    return new Node();
+  }
+
+  /**
+   * Put a node that was removed from the tree onto the free list.
+   */
+  private void recycle(Node node) {
+    node.data = null; // do not keep the element alive
+    node.left = null;
+    node.parent = null;
+    node.right = free;
+    free = node;
+  }
+
+  /**
+   * Get the height of a subtree, an empty subtree has height 0.
+   */
+  private int height(Node node) {
+    return node == null ? 0 : node.height;
+  }
+
+  /**
+   * Recompute the height of a node from its children. A subclass that keeps
+   * aggregates recomputes them here too, after calling this method, the tree
+   * calls it whenever the children or the element of a node changed and its
+   * children are already up to date.
+   *
+   * @param node - the node to update
+   */
+  protected void update(Node node) {
+    node.height = 1 + Math.max(height(node.left), height(node.right));
+  }
+
+  /**
+   * Restore the AVL property of a node whose children differ in height by at
+   * most two, this takes at most two rotations.
+   *
+   * @param node - the node to balance
+   * @return the new root of the subtree
+   */
+  private Node balance(Node node) {
+    update(node);
+
+    int factor = height(node.left) - height(node.right);
+
+    if (factor > 1) { // left heavy
+      if (height(node.left.left) < height(node.left.right)) // left-right case
+        setLeft(node, rotateLeft(node.left));
+      return rotateRight(node);
+    }
+
+    if (factor < -1) { // right heavy
+      if (height(node.right.right) < height(node.right.left)) // right-left case
+        setRight(node, rotateRight(node.right));
+      return rotateLeft(node);
+    }
+
+    return node;
+  }
+
+  /**
+   * Rotate a subtree to the right, the left child becomes the new root, the
+   * caller links it to the parent of the subtree.
+   */
+  private Node rotateRight(Node node) {
+    Node pivot = node.left;
+    setLeft(node, pivot.right);
+    setRight(pivot, node);
+    update(node);
+    update(pivot);
+    return pivot;
+  }
+
+  /**
+   * Rotate a subtree to the left, the right child becomes the new root, the
+   * caller links it to the parent of the subtree.
+   */
+  private Node rotateLeft(Node node) {
+    Node pivot = node.right;
+    setRight(node, pivot.left);
+    setLeft(pivot, node);
+    update(node);
+    update(pivot);
+    return pivot;
+  }
+}
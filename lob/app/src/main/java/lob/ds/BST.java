@@ -1,145 +1,41 @@
 package lob.ds;
 
-import java.util.Iterator;
-
 /**
  * BST helps preserve any comparable data in a sorted manner. Note
  * that the tree has distinct keys therefore duplicates are not allowed. This is
  * helpful for organizing unique data.
+ * <p>
+ * The searches and the iterators are the ones of `LinkedTree`, which follow
+ * the parent links of the nodes, this class only adds and removes them.
+ * </p>
  * 
  * @param <T> - Generic Type (can be any object types but not primitive types)
  */
-public class BST<T extends Comparable<T>> implements Tree<T> {
-  // to keep track of number of nodes in the tree
-  private int nodeCount = 0;
-
-  // BST is a rooted tree, so we need to keep track of its root node
-  private Node root = null;
-
-  /**
-   * An internal class for constructing node in the tree
-   */
-  private class Node implements Comparable<Node> {
-    T data;
-    Node left, right;
-
-    public Node(T data, Node left, Node right) {
-      this.data = data;
-      this.left = left;
-      this.right = right;
-    }
-
-    @Override
-    public int compareTo(Node anotherNode) {
-      // Since BST cannot have duplicate, so every node is unique
-      // therefore the data within is unique as well.
-      return data.compareTo(anotherNode.data);
-    }
-  }
-
+public class BST<T extends Comparable<T>> extends LinkedTree<T> {
   /**
-   * Check if the tree is empty
+   * Returns the height of the tree
    * <p>
-   * Since we're storing the node count, checking it is in constant time, so 0(1)
+   * The tree is not balanced so we have to visit every node, so O(n). Note that
+   * the height is n when the elements were added in sorted order.
    * </p>
-   * 
-   * @return true if nodeCount is 0, false otherwise
-   */
-  @Override
-  public boolean isEmpty() {
-    return nodeCount == 0;
-  }
-
-  /**
-   * Returns the total nodes in the tree
-   * <p>
-   * Since we're storing the node count, accesing it is in constant time, so 0(1)
-   * </p>
-   */
-  @Override
-  public int size() {
-    return nodeCount;
-  }
-
-  /**
-   * Return the smallest node in the tree (leftmost node)
-   * 
-   * @return - the data of the smallest node (leftmost node) in the tree
-   */
-  @Override
-  public T min() {
-    // Start from the root node
-    Node node = root;
-
-    // Keep looking for the left node until there's none
-    while (node.left != null)
-      node = node.left;
-
-    // Return the leftmost node
-    return node.data;
-  }
-
-  /**
-   * Return the greatest node in the tree (rightmost node)
-   * 
-   * @return the data of the greatest node (rightmost node) in the tree
-   */
-  @Override
-  public T max() {
-    // Start from the root node
-    Node node = root;
-
-    // Keep looking for the right node until there's none
-    while (node.right != null)
-      node = node.right;
-
-    // Return the rightmost node
-    return node.data;
-  }
-
-  /**
-   * Search whether the tree contains an element.
-   * 
-   * @param element - the element to search for
-   * @return true if duplicate of the element is found and false otherwise
+   *
+   * @return the number of nodes on the longest path from the root to a leaf
    */
   @Override
-  public boolean contains(T element) {
-    return contains(root, element) != null;
-  }
-
-  /**
-   * Search for a node in the tree.
-   * 
-   * @param element - the element to search for
-   * @return node if the element is found and null otherwise
-   */
-  public T search(T element) {
-    return contains(root, element);
+  public int height() {
+    return height(root);
   }
 
   /**
-   * Private method to check if the tree contains the element. This works by going
-   * down the tree level by level to check for the equivalent element.
-   * 
-   * @param node    - node of the tree
-   * @param element - the element to search for
-   * @return node if the element is found and null otherwise
+   * Private method to compute the height of a subtree.
+   *
+   * @param node - the root of the subtree
+   * @return the height of the subtree, 0 if it is empty
    */
-  private T contains(Node node, T element) {
-    // Base case: reached bottom of the tree and found none
+  private int height(Node node) {
     if (node == null)
-      return null;
-
-    // If element is larger, traverse the right subtree
-    if (element.compareTo(node.data) > 0)
-      return contains(node.right, element);
-    // If element is smaller, traverse the left subtree
-    else if (element.compareTo(node.data) < 0)
-      return contains(node.left, element);
-    // If the element is equal, the duplicate has been found
-    else
-      return node.data;
+      return 0;
+    return 1 + Math.max(height(node.left), height(node.right));
   }
 
   /**
@@ -152,15 +48,15 @@ public class BST<T extends Comparable<T>> implements Tree<T> {
   public boolean add(T element) {
     // If the root is empty then set it as the root
     if (root == null) {
-      root = new Node(element, null, null);
+      root = new Node().init(element);
       nodeCount++;
       return true;
     }
 
     if (element.compareTo(root.data) > 0) // If the element is larger than root, insert it at right subtree
-      root.right = add(element, root.right);
+      setRight(root, add(element, root.right));
     else if (element.compareTo(root.data) < 0) // If the element is smaller than root, insert it at left subtree
-      root.left = add(element, root.left);
+      setLeft(root, add(element, root.left));
     else // If the element is equals to root, it cannot be added
       return false;
 
@@ -177,14 +73,14 @@ public class BST<T extends Comparable<T>> implements Tree<T> {
   private Node add(T element, Node node) {
     // if the node is null then set it and return
     if (node == null) {
-      node = new Node(element, null, null);
+      node = new Node().init(element);
       return node;
     }
 
     if (element.compareTo(node.data) > 0) // if larger then traverse right subtree
-      node.right = add(element, node.right);
+      setRight(node, add(element, node.right));
     else if (element.compareTo(node.data) < 0) // if smaller then traverse right subtree
-      node.left = add(element, node.left);
+      setLeft(node, add(element, node.left));
 
     // When done setting the subtree just return the node
     return node;
@@ -202,6 +98,8 @@ public class BST<T extends Comparable<T>> implements Tree<T> {
     if (contains(element)) {
       // remove it
       root = remove(root, element);
+      if (root != null)
+        root.parent = null;
       nodeCount--;
       return true;
     }
@@ -223,10 +121,10 @@ public class BST<T extends Comparable<T>> implements Tree<T> {
 
     // Traverse down the tree
     if (element.compareTo(node.data) < 0) { // If smaller then go to left subtree
-      node.left = remove(node.left, element);
+      setLeft(node, remove(node.left, element));
       return node;
     } else if (element.compareTo(node.data) > 0) { // If larger then go to right subtree
-      node.right = remove(node.right, element);
+      setRight(node, remove(node.right, element));
       return node;
     }
 
@@ -250,153 +148,12 @@ public class BST<T extends Comparable<T>> implements Tree<T> {
 
     // delete the inorder successor
     if (succesorParent != node)
-      succesorParent.left = successor.right;
+      setLeft(succesorParent, successor.right);
     else
-      succesorParent.right = successor.right;
+      setRight(succesorParent, successor.right);
 
     node.data = successor.data; // replace the root node's data with the successor's data
 
     return node;
   }
-
-  /**
-   * Get an iterator to different traversals of the tree
-   * 
-   * @param order - the order that the tree should be traversed
-   * @return an iterator to the tree
-   */
-  @Override
-  public Iterator<T> traverse(Tree.TraversalOrder order) {
-    switch (order) {
-      case InOrderTraversal:
-        return inOrderTraversal();
-      case PreOrderTraversal:
-        return preOrderTraversal();
-      case PostOrderTraversal:
-        return postOrderTraversal();
-      default:
-        return null;
-    }
-  }
-
-  /**
-   * Private method to perform in-order traversal
-   * 
-   * @return an Iterator to the tree
-   */
-  private Iterator<T> inOrderTraversal() {
-    // A stack to keep track of node traversed
-    final Stack<Node> stack = new Stack<>();
-    stack.add(root);
-
-    return new Iterator<T>() {
-      Node trav = root;
-
-      @Override
-      public boolean hasNext() {
-        // If root is null means tree is invalid
-        // If stack is empty means traverse is complete
-        return root != null && !stack.isEmpty();
-      }
-
-      @Override
-      public T next() {
-        // Start at the leftmost node
-        while (trav != null && trav.left != null) {
-          stack.add(trav.left);
-          trav = trav.left;
-        }
-
-        // Pop each time the node from stack
-        Node node = stack.pop();
-
-        // Look one level down at the right
-        if (node.right != null) {
-          stack.add(node.right);
-          trav = node.right;
-        }
-
-        return node.data;
-      }
-    };
-  }
-
-  /**
-   * Private method to perform pre-order traversal
-   * 
-   * @return an Iterator to the tree
-   */
-  private Iterator<T> preOrderTraversal() {
-    // A stack to keep track of node traversed
-    final Stack<Node> stack = new Stack<Node>();
-
-    // The root is the starting point (first node to traverse)
-    stack.add(root);
-
-    return new Iterator<T>() {
-
-      @Override
-      public boolean hasNext() {
-        // If root is null means tree is invalid
-        // If stack is empty means traverse is complete
-        return root != null && !stack.isEmpty();
-      }
-
-      @Override
-      public T next() {
-        // Root
-        Node node = stack.pop();
-        // Left (Push the right first because left will get popped first from the stack)
-        if (node.right != null)
-          stack.add(node.right);
-        // Right (Push the left last because it will get popped first from the stack)
-        if (node.left != null)
-          stack.add(node.left);
-
-        return node.data;
-      }
-    };
-  }
-
-  /**
-   * Private method to perform post-order traversal
-   * 
-   * @return an Iterator to the tree
-   */
-  private Iterator<T> postOrderTraversal() {
-    // A stack to keep track of node traversed
-    final Stack<Node> stack = new Stack<>();
-    stack.add(root);
-
-    return new Iterator<T>() {
-      Node trav = root;
-
-      @Override
-      public boolean hasNext() {
-        // If root is null means tree is invalid
-        // If stack is empty means traverse is complete
-        return root != null && !stack.isEmpty();
-      }
-
-      @Override
-      public T next() {
-        // Start at the rightmost node
-        while (trav != null && trav.right != null) {
-          stack.add(trav.right);
-          trav = trav.right;
-        }
-
-        // Pop each time the node from stack
-        Node node = stack.pop();
-
-        // Look one level down at the left
-        if (node.left != null) {
-          stack.add(node.left);
-          trav = node.left;
-        }
-
-        return node.data;
-      }
-    };
-  }
-}
\ No newline at end of file
+}
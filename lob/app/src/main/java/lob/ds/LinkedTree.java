@@ -0,0 +1,380 @@
+package lob.ds;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * LinkedTree is the base of the binary search trees whose nodes link to their
+ * parent, `BST` and `AVL`. It keeps the root and the size and has everything
+ * that only reads the shape of the tree: the searches, the bounds and the
+ * iterators, which move from a node to the next one by following the links,
+ * O(1) amortised per step and without allocating, however deep the tree is.
+ * The subclasses add and remove the nodes, and link them with `setLeft` and
+ * `setRight` so that the parents stay up to date.
+ *
+ * @param <T> - Generic Type (can be any object types but not primitive types)
+ */
+public abstract class LinkedTree<T extends Comparable<T>> implements Tree<T> {
+  // to keep track of number of nodes in the tree
+  int nodeCount = 0;
+
+  // the tree is rooted, so we need to keep track of its root node
+  Node root = null;
+
+  /**
+   * An internal class for constructing node in the tree, subclasses of the tree
+   * can extend it and read its links but only the tree changes them
+   */
+  protected class Node implements Comparable<Node> {
+    T data;
+    Node left, right, parent;
+
+    // the height of the subtree rooted at this node, a leaf has height 1, only
+    // kept up to date by the trees that balance themselves
+    int height = 1;
+
+    protected Node() {
+    }
+
+    /**
+     * Returns the element of the node.
+     */
+    public final T data() {
+      return data;
+    }
+
+    /**
+     * Returns the left child, or null.
+     */
+    public Node left() {
+      return left;
+    }
+
+    /**
+     * Returns the right child, or null.
+     */
+    public Node right() {
+      return right;
+    }
+
+    /**
+     * Returns the parent, or null for the root.
+     */
+    public final Node parent() {
+      return parent;
+    }
+
+    /**
+     * Reset the node so that it can be reused for another element.
+     */
+    Node init(T data) {
+      this.data = data;
+      this.left = null;
+      this.right = null;
+      this.parent = null;
+      this.height = 1;
+      return this;
+    }
+
+    @Override
+    public int compareTo(Node anotherNode) {
+      // Since the tree cannot have duplicates, every node is unique
+      // therefore the data within is unique as well.
+      return data.compareTo(anotherNode.data);
+    }
+  }
+
+  /**
+   * Check if the tree is empty
+   * <p>
+   * Since we're storing the node count, checking it is in constant time, so 0(1)
+   * </p>
+   *
+   * @return true if nodeCount is 0, false otherwise
+   */
+  @Override
+  public boolean isEmpty() {
+    return nodeCount == 0;
+  }
+
+  /**
+   * Returns the total nodes in the tree
+   * <p>
+   * Since we're storing the node count, accesing it is in constant time, so 0(1)
+   * </p>
+   */
+  @Override
+  public int size() {
+    return nodeCount;
+  }
+
+  /**
+   * Return the smallest node in the tree (leftmost node)
+   *
+   * @return - the data of the smallest node (leftmost node) in the tree
+   */
+  @Override
+  public T min() {
+    return first(root, false).data;
+  }
+
+  /**
+   * Return the greatest node in the tree (rightmost node)
+   *
+   * @return the data of the greatest node (rightmost node) in the tree
+   */
+  @Override
+  public T max() {
+    return first(root, true).data;
+  }
+
+  /**
+   * Search whether the tree contains an element.
+   *
+   * @param element - the element to search for
+   * @return true if duplicate of the element is found and false otherwise
+   */
+  @Override
+  public boolean contains(T element) {
+    return find(element) != null;
+  }
+
+  /**
+   * Search for a node in the tree, iteratively, one level at a time.
+   *
+   * @param element - the element to search for
+   * @return node if the element is found and null otherwise
+   */
+  @Override
+  public T search(T element) {
+    Node node = find(element);
+    return node == null ? null : node.data;
+  }
+
+  /**
+   * Returns the root of the tree, or null if it is empty.
+   */
+  protected final Node root() {
+    return root;
+  }
+
+  /**
+   * Search for the node of an element, iteratively.
+   *
+   * @param element - the element to search for
+   * @return the node if the element is found and null otherwise
+   */
+  protected final Node find(T element) {
+    Node node = root;
+
+    while (node != null) {
+      int cmp = element.compareTo(node.data);
+      if (cmp > 0)
+        node = node.right;
+      else if (cmp < 0)
+        node = node.left;
+      else
+        return node;
+    }
+
+    return null;
+  }
+
+  /**
+   * Set the left child of a node and link the child back to it.
+   */
+  final void setLeft(Node node, Node child) {
+    node.left = child;
+    if (child != null)
+      child.parent = node;
+  }
+
+  /**
+   * Set the right child of a node and link the child back to it.
+   */
+  final void setRight(Node node, Node child) {
+    node.right = child;
+    if (child != null)
+      child.parent = node;
+  }
+
+  /**
+   * Get an iterator to different traversals of the tree
+   *
+   * @param order - the order that the tree should be traversed
+   * @return an iterator to the tree
+   */
+  @Override
+  public Iterator<T> traverse(Tree.TraversalOrder order) {
+    switch (order) {
+      case InOrderTraversal:
+        return inOrderTraversal();
+      case PreOrderTraversal:
+        return preOrderTraversal();
+      case PostOrderTraversal:
+        return postOrderTraversal();
+      default:
+        return null;
+    }
+  }
+
+  @Override
+  public Iterator<T> ascending(T from) {
+    return new Cursor(from == null ? first(root, false) : bound(from, false), false);
+  }
+
+  @Override
+  public Iterator<T> descending(T from) {
+    return new Cursor(from == null ? first(root, true) : bound(from, true), true);
+  }
+
+  /**
+   * Private method to perform in-order traversal
+   *
+   * @return an Iterator to the tree
+   */
+  private Iterator<T> inOrderTraversal() {
+    return ascending(null);
+  }
+
+  /**
+   * Private method to perform post-order traversal, which visits the right
+   * subtree first, so the elements come in descending order
+   *
+   * @return an Iterator to the tree
+   */
+  private Iterator<T> postOrderTraversal() {
+    return descending(null);
+  }
+
+  /**
+   * Private method to perform pre-order traversal
+   *
+   * @return an Iterator to the tree
+   */
+  private Iterator<T> preOrderTraversal() {
+    return new Iterator<T>() {
+      Node next = root;
+
+      @Override
+      public boolean hasNext() {
+        return next != null;
+      }
+
+      @Override
+      public T next() {
+        if (next == null)
+          throw new NoSuchElementException();
+
+        Node node = next;
+
+        // Go down to the left child first, then to the right child
+        if (node.left != null)
+          next = node.left;
+        else if (node.right != null)
+          next = node.right;
+        else {
+          // Go up until a node whose right subtree was not visited yet
+          Node child = node;
+          next = null;
+          for (Node parent = child.parent; parent != null; child = parent, parent = parent.parent) {
+            if (parent.left == child && parent.right != null) {
+              next = parent.right;
+              break;
+            }
+          }
+        }
+
+        return node.data;
+      }
+    };
+  }
+
+  /**
+   * An iterator that walks the nodes in sorted order through the parent links.
+   */
+  private class Cursor implements Iterator<T> {
+    Node next;
+    final boolean descending;
+
+    Cursor(Node first, boolean descending) {
+      this.next = first;
+      this.descending = descending;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next != null;
+    }
+
+    @Override
+    public T next() {
+      if (next == null)
+        throw new NoSuchElementException();
+
+      Node node = next;
+      next = descending ? predecessor(node) : successor(node);
+      return node.data;
+    }
+  }
+
+  /**
+   * Get the smallest (or the greatest if `max`) node of a subtree.
+   */
+  final Node first(Node node, boolean max) {
+    if (node == null)
+      return null;
+    while ((max ? node.right : node.left) != null)
+      node = max ? node.right : node.left;
+    return node;
+  }
+
+  /**
+   * Get the node that comes after a node in ascending order.
+   */
+  private Node successor(Node node) {
+    if (node.right != null)
+      return first(node.right, false);
+
+    // Go up until we come from a left subtree
+    while (node.parent != null && node.parent.right == node)
+      node = node.parent;
+    return node.parent;
+  }
+
+  /**
+   * Get the node that comes before a node in ascending order.
+   */
+  private Node predecessor(Node node) {
+    if (node.left != null)
+      return first(node.left, true);
+
+    // Go up until we come from a right subtree
+    while (node.parent != null && node.parent.left == node)
+      node = node.parent;
+    return node.parent;
+  }
+
+  /**
+   * Find the smallest node greater than or equal to an element, or the greatest
+   * node less than or equal to it if `floor`.
+   */
+  private Node bound(T element, boolean floor) {
+    Node node = root, found = null;
+    while (node != null) {
+      int cmp = element.compareTo(node.data);
+      if (cmp == 0)
+        return node;
+      if (cmp < 0) {
+        if (!floor)
+          found = node;
+        node = node.left;
+      } else {
+        if (floor)
+          found = node;
+        node = node.right;
+      }
+    }
+    return found;
+  }
+}
@@ -0,0 +1,211 @@
+package lob.ds;
+
+import java.util.Arrays;
+
+/**
+ * LongMap is a hash map from primitive `long` keys to objects. Unlike
+ * `java.util.HashMap<Long, V>`, the keys are not boxed and there is no entry
+ * node per mapping: keys and values are stored in two parallel arrays and
+ * collisions are resolved with linear probing.
+ * <p>
+ * Removal uses backward-shift deletion instead of tombstones, the entries
+ * following the removed slot are moved back to fill the gap. This way lookups
+ * never have to skip deleted slots no matter how many keys were removed, which
+ * matters for an order index where every order is eventually removed.
+ * </p>
+ * <p>
+ * A slot is empty when its value is null, hence null values are not allowed.
+ * </p>
+ *
+ * @param <V> - Generic Type of the values
+ */
+public class LongMap<V> {
+    // since linear probing works best when the load factor is low, we resize
+    // the table once the load factor exceeds this specified limit. Fibonacci
+    // hashing spreads the keys well enough to keep the probe sequences short
+    // at this load.
+    private final static double MAX_LOAD_FACTOR = 0.7;
+
+    private final static int MIN_CAPACITY = 16;
+
+    private int size = 0; // the number of entries in the map
+    private int mask; // capacity - 1, the capacity is always a power of two
+    private int shift; // 64 - log2(capacity), used by the hash function
+    private int threshold; // the size at which the table is resized
+
+    private long[] keys;
+    private Object[] values;
+
+    /**
+     * Creates an empty map with a small capacity.
+     */
+    public LongMap() {
+        this(0);
+    }
+
+    /**
+     * Creates an empty map that can hold the expected number of entries without
+     * resizing.
+     *
+     * @param expectedSize - The number of entries expected to be in the map.
+     */
+    public LongMap(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * MAX_LOAD_FACTOR < expectedSize)
+            capacity <<= 1;
+        allocate(capacity);
+    }
+
+    /**
+     * Returns the number of entries in the map in O(1).
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Check if the map is empty in O(1).
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Check if the map contains a key.
+     *
+     * @param key - The key to look for.
+     * @return true if the key is found, false otherwise
+     */
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Get the value of a key.
+     *
+     * @param key - The key to look for.
+     * @return the value if the key is found, null otherwise
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        for (int i = hash(key);; i = (i + 1) & mask) {
+            Object value = values[i];
+            if (value == null)
+                return null;
+            if (keys[i] == key)
+                return (V) value;
+        }
+    }
+
+    /**
+     * Map a key to a value, replacing the existing value of the key if any.
+     *
+     * @param key   - The key.
+     * @param value - The value, must not be null.
+     * @return the previous value of the key, null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (value == null)
+            throw new IllegalArgumentException("LongMap does not allow null values");
+
+        int i = hash(key);
+        for (; values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) { // found existing, update
+                V previous = (V) values[i];
+                values[i] = value;
+                return previous;
+            }
+        }
+
+        keys[i] = key;
+        values[i] = value;
+        if (++size > threshold)
+            allocate(2 * (mask + 1));
+
+        return null;
+    }
+
+    /**
+     * Remove a key from the map.
+     *
+     * @param key - The key to remove.
+     * @return the value of the removed key, null if the key was not found
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int i = hash(key);
+        for (;; i = (i + 1) & mask) {
+            if (values[i] == null)
+                return null; // not able to find the key to remove
+            if (keys[i] == key)
+                break;
+        }
+
+        V removed = (V) values[i];
+        size--;
+
+        // Shift back the entries after the removed one until an empty slot or an
+        // entry that is already at its ideal slot, so that no entry ends up behind
+        // an empty slot on its probe sequence.
+        int gap = i;
+        for (int j = (gap + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+            int ideal = hash(keys[j]);
+            // move the entry if its ideal slot is not in the cyclic range (gap, j]
+            if (((j - ideal) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        values[gap] = null;
+
+        return removed;
+    }
+
+    /**
+     * Remove all entries, keeping the current capacity.
+     */
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * Fibonacci hashing: multiply by 2^64 / golden ratio and keep the top bits, this
+     * spreads sequential ids (like exchange order ids) evenly over the table.
+     */
+    private int hash(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+
+    /**
+     * Allocate a table of the given capacity and re-insert the existing entries.
+     *
+     * @param capacity - The new capacity, a power of two.
+     */
+    private void allocate(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        shift = 64 - Integer.numberOfTrailingZeros(capacity);
+        threshold = (int) (capacity * MAX_LOAD_FACTOR);
+
+        if (oldValues == null)
+            return;
+
+        // Copy over previous entries
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] == null)
+                continue;
+            int j = hash(oldKeys[i]);
+            while (values[j] != null)
+                j = (j + 1) & mask;
+            keys[j] = oldKeys[i];
+            values[j] = oldValues[i];
+        }
+    }
+}
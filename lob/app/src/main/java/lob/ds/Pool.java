@@ -0,0 +1,73 @@
+package lob.ds;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * Pool keeps a free list of objects that can be reused, so that objects which
+ * are created and discarded at a high rate (like orders and price levels) do
+ * not have to be allocated and garbage collected every time. Objects are only
+ * allocated when the free list is empty.
+ * <p>
+ * The free list is an array used as a stack so both `acquire` and `release` are
+ * O(1) (amortised for `release` when the array grows).
+ * </p>
+ *
+ * @param <T> - Generic Type of the pooled objects
+ */
+public class Pool<T> {
+    // Creates a new object when the free list is empty.
+    private final Supplier<T> factory;
+
+    // The objects available for reuse, the top of the stack is at `size - 1`.
+    private Object[] free;
+    private int size = 0;
+
+    /**
+     * Creates a pool with a number of objects allocated upfront.
+     *
+     * @param factory - Creates a new object when the pool is empty.
+     * @param initial - The number of objects to allocate upfront.
+     */
+    public Pool(Supplier<T> factory, int initial) {
+        this.factory = factory;
+        this.free = new Object[Math.max(initial, 16)];
+        for (; size < initial; size++)
+            free[size] = factory.get();
+    }
+
+    /**
+     * Returns the number of objects available for reuse.
+     */
+    public int available() {
+        return size;
+    }
+
+    /**
+     * Take an object from the pool, allocating a new one if it is empty. Note that
+     * the object is returned as it was released so the caller has to reset it.
+     *
+     * @return an object
+     */
+    @SuppressWarnings("unchecked")
+    public T acquire() {
+        if (size == 0)
+            return factory.get();
+
+        T object = (T) free[--size];
+        free[size] = null;
+        return object;
+    }
+
+    /**
+     * Give an object back to the pool. The caller must not use the object
+     * afterwards since it will be handed out again by `acquire`.
+     *
+     * @param object - The object to reuse.
+     */
+    public void release(T object) {
+        if (size == free.length)
+            free = Arrays.copyOf(free, size * 2);
+        free[size++] = object;
+    }
+}
@@ -1,28 +1,46 @@
 package lob.ds;
 
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 /**
  * Stack is a helpful data structure for storing a collection of data. It is
- * implemented using a SinglyLinkedList so the memory is all dynamically
- * allocated where it grows and shrink at runtime, preventing memory waste.
- * Addtionally, since it's a stack, it follows the LIFO (Last In First Out)
- * principle.
+ * implemented using an array that doubles whenever it is full, so pushing and
+ * popping are amortised constant time and no object is allocated per element.
+ * `clear()` keeps the array so that one stack can be reused, e.g. for every
+ * traversal of a tree. Addtionally, since it's a stack, it follows the LIFO
+ * (Last In First Out) principle.
  * 
  * @param <T> - Generic Type (can be any object types but not primitive types)
  */
 public class Stack<T extends Comparable<T>> implements Iterable<T> {
+    private final static int DEFAULT_CAPACITY = 16;
+
     private int size = 0;
-    private Node<T> head = null;
 
-    private static class Node<T> {
-        private T data;
-        private Node<T> next;
+    // The elements from the bottom to the top of the stack, the slots from `size`
+    // on are always null so that popped elements can be collected.
+    private Object[] elements;
 
-        public Node(T data, Node<T> next) {
-            this.data = data;
-            this.next = next;
-        }
+    public Stack() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create a stack that holds up to `capacity` elements before it grows.
+     *
+     * @param capacity - The initial length of the array.
+     */
+    public Stack(int capacity) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("capacity must not be negative");
+        elements = new Object[Math.max(capacity, 1)];
+    }
+
+    @SuppressWarnings("unchecked")
+    private T elementAt(int index) {
+        return (T) elements[index];
     }
 
     /**
@@ -49,109 +67,73 @@ public class Stack<T extends Comparable<T>> implements Iterable<T> {
         return size == 0;
     }
 
+    /**
+     * Remove every element, the capacity is kept
+     * <p>
+     * The slots in use are cleared so Time Complexity is O(n) where n is the size
+     * of the list
+     * </p>
+     */
+    public void clear() {
+        Arrays.fill(elements, 0, size, null);
+        size = 0;
+    }
+
     /**
      * Add an element to the back of the list
      * <p>
-     * In the worst case scenario, we have to iterate till the last element so Time
-     * Complexity is O(n) where n is the size of the list
+     * The array is doubled when it is full, which copies every element, but that
+     * happens once per doubling so Time Complexity is amortised O(1)
      * </p>
      * 
      * @param elem - element to be added
      * @return true if element is added, false otherwise
      */
     public boolean add(T elem) {
-        // If list is empty
-        if (head == null && size == 0) {
-            head = new Node<T>(elem, null);
-            size++;
-            return true;
-        }
-
-        Node<T> trav = head;
-
-        while (trav.next != null) {
-            trav = trav.next;
-        }
-
-        trav.next = new Node<T>(elem, null);
-        size++;
-
+        if (size == elements.length)
+            elements = Arrays.copyOf(elements, size << 1);
+        elements[size++] = elem;
         return true;
     }
 
     /**
      * Pop an element from the top of the list
      * <p>
-     * In the worst case scenario, we have to iterate till the last element so Time
-     * Complexity is O(n) where n is the size of the list
+     * The top is the last slot in use so Time Complexity is O(1)
      * </p>
      * 
      * @return data if found, null otherwise
      */
     public T pop() {
         // If list is empty
-        if (head == null && size == 0)
+        if (size == 0)
             return null;
 
-        // If list only has the head
-        if (size == 1) {
-            T data = head.data;
-            head = null;
-            size--;
-            return data;
-        }
-
-        Node<T> trav = head;
-
-        // Iterate to the node before last
-        for (int i = size - 1; i > 1; i--)
-            trav = trav.next;
-
-        // Take the last node data
-        T data = trav.next.data;
-
-        // Set the tail to null
-        trav.next = null;
-
-        size--;
-
+        T data = elementAt(--size);
+        elements[size] = null;
         return data;
     }
 
     /**
      * Get the last element in the list
      * <p>
-     * In the worst case scenario, we have to iterate till the last element so Time
-     * Complexity is O(n) where n is the size of the list
+     * The top is the last slot in use so Time Complexity is O(1)
      * </p>
      * 
      * @return data if found, null otherwise
      */
     public T peek() {
         // If list is empty
-        if (head == null && size == 0)
+        if (size == 0)
             return null;
 
-        // If list only has head
-        if (size == 1)
-            return head.data;
-
-        Node<T> trav = head;
-
-        // Iterate to the node before last
-        for (int i = size - 1; i > 1; i--)
-            trav = trav.next;
-
-        // Take the last node data
-        T data = trav.next.data;
-
-        return data;
+        return elementAt(size - 1);
     }
 
     /**
      * Remove an element from the list based on its position
      * <p>
-     * In the worst case scenario, we have to iterate till the last element so Time
+     * In the worst case scenario, we have to shift every element above it so Time
      * Complexity is O(n) where n is the size of the list
      * </p>
      * 
@@ -160,34 +142,19 @@ public class Stack<T extends Comparable<T>> implements Iterable<T> {
      */
     public T remove(int index) {
         // index out of bounds
-        if (index >= size)
+        if (index < 0 || index >= size)
             return null;
 
-        // If removing the head
-        if (index == 0) {
-            T data = head.data;
-            head = head.next;
-            size--;
-            return data;
-        }
-
-        Node<T> trav = head;
-
-        for (; index > 1; index--)
-            trav = trav.next;
-
-        T data = trav.next.data;
-        trav.next = trav.next.next;
-        size--;
-
+        T data = elementAt(index);
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        elements[--size] = null;
         return data;
     }
 
     /**
      * Replace an element in the list with a new value based on its position
      * <p>
-     * In the worst case scenario, we have to iterate till the last element so Time
-     * Complexity is O(n) where n is the size of the list
+     * The position is an index into the array so Time Complexity is O(1)
      * </p>
      * 
      * @param index   - position of the element
@@ -195,43 +162,24 @@ public class Stack<T extends Comparable<T>> implements Iterable<T> {
      * @return original value of the element before getting replaced
      */
     public T replace(int index, T newData) {
-        // If replacing the head
-        if (index == 0) {
-            T data = head.data;
-            head = new Node<T>(newData, head.next);
-            return data;
-        }
-
-        Node<T> trav = head;
-
-        for (; index > 1; index--) {
-            trav = trav.next;
-        }
-
-        T data = trav.next.data;
-        trav.next = new Node<T>(newData, trav.next.next);
-
+        T data = get(index);
+        elements[index] = newData;
         return data;
     }
 
     /**
      * Get the element based on its position in the list
      * <p>
-     * In the worst case scenario, we have to iterate till the last element so Time
-     * Complexity is O(n) where n is the size of the list
+     * The position is an index into the array so Time Complexity is O(1)
      * </p>
      * 
      * @param index - position of the element
      * @return data of the element
      */
     public T get(int index) {
-        Node<T> trav = head;
-
-        for (; index > 0; index--) {
-            trav = trav.next;
-        }
-
-        return trav.data;
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("index " + index + " out of bounds for size " + size);
+        return elementAt(index);
     }
 
     /**
@@ -245,15 +193,7 @@ public class Stack<T extends Comparable<T>> implements Iterable<T> {
      * @return true if element exists, false otherwise
      */
     public boolean contains(T elem) {
-        Node<T> trav = head;
-
-        while (trav != null) {
-            if (trav.data.compareTo(elem) == 0)
-                return true;
-            trav = trav.next;
-        }
-
-        return false;
+        return findIndex(elem) >= 0;
     }
 
     /**
@@ -267,14 +207,9 @@ public class Stack<T extends Comparable<T>> implements Iterable<T> {
      * @return index of found element, or -1 if not found
      */
     public int findIndex(T elem) {
-        Node<T> trav = head;
-        int index = 0;
-
-        while (trav != null) {
-            if (trav.data.compareTo(elem) == 0)
+        for (int index = 0; index < size; index++) {
+            if (elementAt(index).compareTo(elem) == 0)
                 return index;
-            trav = trav.next;
-            index++;
         }
 
         return -1;
@@ -291,23 +226,16 @@ public class Stack<T extends Comparable<T>> implements Iterable<T> {
      */
     @Override
     public String toString() {
-        if (head == null && size == 0)
-            return "";
-
         StringBuilder sb = new StringBuilder();
 
-        Node<T> trav = head;
-
-        while (trav != null) {
-            sb.append(trav.data + " ");
-            trav = trav.next;
-        }
+        for (int index = 0; index < size; index++)
+            sb.append(elements[index] + " ");
 
         return sb.toString();
     }
 
     /**
-     * Returns an iterator object for the list.
+     * Returns an iterator object for the list, from the bottom to the top.
      * <p>
      * Constant time operation because we are just returning an iterator we are not
      * iterating through the list, therefore O(1)
@@ -318,19 +246,19 @@ public class Stack<T extends Comparable<T>> implements Iterable<T> {
     @Override
     public Iterator<T> iterator() {
         return new Iterator<T>() {
-            private Node<T> trav = head;
+            private int index = 0;
 
             @Override
             public boolean hasNext() {
-                return trav != null;
+                return index < size;
             }
 
             @Override
             public T next() {
-                T data = trav.data;
-                trav = trav.next;
-                return data;
+                if (index >= size)
+                    throw new NoSuchElementException();
+                return elementAt(index++);
             }
         };
     }
-}
\ No newline at end of file
+}
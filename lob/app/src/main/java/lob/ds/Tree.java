@@ -21,15 +21,37 @@ public interface Tree<T extends Comparable<T>> {
 
     public int size();
 
+    public int height();
+
     public T min();
 
     public T max();
 
     public boolean contains(T element);
 
+    public T search(T element);
+
     public boolean add(T element);
 
     public boolean remove(T element);
 
     public Iterator<T> traverse(TraversalOrder order);
+
+    /**
+     * Get an iterator over the elements in ascending order, starting from the
+     * smallest element that is greater than or equal to a given element.
+     *
+     * @param from - The element to start from, or null to start from the smallest
+     *             element.
+     */
+    public Iterator<T> ascending(T from);
+
+    /**
+     * Get an iterator over the elements in descending order, starting from the
+     * greatest element that is less than or equal to a given element.
+     *
+     * @param from - The element to start from, or null to start from the greatest
+     *             element.
+     */
+    public Iterator<T> descending(T from);
 }
\ No newline at end of file
@@ -7,11 +7,17 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import lob.LimitOrderBook;
 import lob.common.Order;
 import lob.exchange.Bitstamp;
+import lob.exchange.BitstampDecoder;
 import lob.exchange.BitstampOrder;
+import lob.metrics.InstrumentedBook;
+import lob.metrics.OperationStats;
 
 class BenchmarkResult {
     long readDuration, parseDuration, opDuration, count;
 
+    // The latency histograms of the run, null unless the book was instrumented.
+    OperationStats stats;
+
     public BenchmarkResult(long readDuration, long parseDuration, long opDuration, long count) {
         this.readDuration = readDuration;
         this.parseDuration = parseDuration;
@@ -27,22 +33,63 @@ public class Benchmark {
             + "/src/main/resources/benchmark.csv";
 
     public static void main(String[] args) throws IOException {
+        // the order book implementation to benchmark, e.g. `--args=v2`
+        String version = args.length > 0 ? args[0] : "v1";
+
+        // the parser used to decode the messages, e.g. `--args="v2 jackson"`
+        Bitstamp.Parser parser = args.length > 1 ? Bitstamp.Parser.valueOf(args[1].toUpperCase())
+                : Bitstamp.Parser.STREAMING;
+
+        // record the latency percentiles of every operation, e.g. `--args="v2
+        // streaming instrumented"`, they are added as extra columns to the csv
+        boolean instrumented = args.length > 2 && args[2].equals("instrumented");
+
         PrintWriter writer = new PrintWriter(new FileWriter(benchmarkFilepath));
 
-        writer.println("readDuration,parseDuration,opDuration,count");
+        writer.println(instrumented ? OperationStats.CSV_HEADER : "readDuration,parseDuration,opDuration,count");
         for (int i = 0; i < 10; i++) {
-            BenchmarkResult result = benchmark();
-            writer.printf("%d,%d,%d,%d\n", result.readDuration, result.parseDuration, result.opDuration,
-                    result.count);
+            BenchmarkResult result = benchmark(version, parser, instrumented);
+            if (instrumented) {
+                System.out.println(result.stats);
+                writer.println(result.stats.toCsv(result.readDuration, result.parseDuration));
+            } else
+                writer.printf("%d,%d,%d,%d\n", result.readDuration, result.parseDuration, result.opDuration,
+                        result.count);
         }
 
         writer.close();
     }
 
-    private static BenchmarkResult benchmark() throws IOException {
-        LimitOrderBook lob = new lob.v1.LOB();
+    /**
+     * Create an order book of the given implementation.
+     *
+     * @param version - One of `v1` (AVL tree), `v1-bst` (unbalanced tree) or `v2`
+     *                (price ladder).
+     * @return an empty order book.
+     */
+    static LimitOrderBook newOrderBook(String version) {
+        switch (version) {
+            case "v1":
+                return new lob.v1.LOB();
+            case "v1-bst":
+                return new lob.v1.LOB(lob.v1.LimitTree.TreeType.BST);
+            case "v2":
+                return new lob.v2.LOB();
+            default:
+                throw new IllegalArgumentException("unknown order book version: " + version);
+        }
+    }
+
+    private static BenchmarkResult benchmark(String version, Bitstamp.Parser parser, boolean instrumented)
+            throws IOException {
+        LimitOrderBook lob = instrumented ? new InstrumentedBook(newOrderBook(version)) : newOrderBook(version);
         BufferedReader reader = new BufferedReader(new FileReader(filepath));
         ObjectMapper mapper = new ObjectMapper();
+        BitstampDecoder decoder = new BitstampDecoder();
+        BitstampOrder decoded = new BitstampOrder();
+
+        // the book copies resting orders so one order object is reused for every message
+        Order message = new Order();
 
         String line = reader.readLine();
         long count = 0;
@@ -52,7 +99,13 @@ public class Benchmark {
         while (line != null) {
             try {
                 long parseStart = System.nanoTime();
-                BitstampOrder order = Bitstamp.parseOrderMessage(mapper, line);
+                BitstampOrder order;
+                if (parser == Bitstamp.Parser.STREAMING) {
+                    if (!decoder.decode(line, decoded))
+                        throw new Exception("Received non-order message: " + line);
+                    order = decoded;
+                } else
+                    order = Bitstamp.parseOrderMessage(mapper, line);
                 long parseEnd = System.nanoTime();
                 parseDuration += parseEnd - parseStart;
 
@@ -60,9 +113,9 @@ public class Benchmark {
                 switch (order.event) {
                     case Created:
                         if (order.price == 0) // if the price is 0 then it is a market order
-                            lob.market(new Order(order.id, order.side, order.amount, order.price));
+                            lob.market(message.set(order.id, order.side, order.amount, order.price));
                         else // limit otherwise
-                            lob.limit(new Order(order.id, order.side, order.amount, order.price));
+                            lob.limit(message.set(order.id, order.side, order.amount, order.price));
                         break;
                     case Deleted:
                         lob.cancel(order.id);
@@ -91,6 +144,9 @@ public class Benchmark {
 
         reader.close();
 
-        return new BenchmarkResult(readDuration, parseDuration, opDuration, count);
+        BenchmarkResult result = new BenchmarkResult(readDuration, parseDuration, opDuration, count);
+        if (instrumented)
+            result.stats = ((InstrumentedBook) lob).snapshot();
+        return result;
     }
 }
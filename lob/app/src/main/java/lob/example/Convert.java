@@ -0,0 +1,67 @@
+package lob.example;
+
+import java.io.*;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import lob.common.Event;
+import lob.common.Instrument;
+import lob.exchange.BitstampDecoder;
+import lob.exchange.BitstampOrder;
+import lob.io.EventLogWriter;
+
+public class Convert {
+    private final static String inputFilepath = System.getProperty("user.dir")
+            + "/src/main/resources/l3_orderbook.ndjson";
+    private final static String outputFilepath = System.getProperty("user.dir")
+            + "/src/main/resources/l3_orderbook.bin";
+
+    public static void main(String[] args) throws IOException {
+        BufferedReader reader = new BufferedReader(new FileReader(inputFilepath));
+        BitstampDecoder decoder = new BitstampDecoder();
+        BitstampOrder order = new BitstampOrder();
+        Event event = new Event();
+
+        // every channel gets the next symbol index in the order it is first seen
+        Map<String, Integer> symbols = new HashMap<>();
+
+        // the log is written with the scales of the first order, the orders of an
+        // instrument with other scales cannot share it
+        EventLogWriter writer = null;
+        Instrument instrument = null;
+
+        long skipped = 0, otherScales = 0;
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            if (!decoder.decode(line, order)) {
+                skipped++;
+                continue;
+            }
+
+            if (writer == null) {
+                instrument = order.instrument;
+                writer = new EventLogWriter(Path.of(outputFilepath), instrument);
+            } else if (order.instrument.priceScale != instrument.priceScale
+                    || order.instrument.sizeScale != instrument.sizeScale) {
+                otherScales++;
+                continue;
+            }
+
+            order.toEvent(event);
+            event.symbol = order.channel == null ? 0 : symbols.computeIfAbsent(order.channel, k -> symbols.size());
+            writer.write(event);
+        }
+
+        reader.close();
+        if (writer == null) {
+            System.out.printf("No order messages in %s\n", inputFilepath);
+            return;
+        }
+        writer.close();
+
+        System.out.printf("Converted %d messages into %s with the scales of %s, skipped %d non-order messages"
+                + " and %d orders with other scales\n", writer.count(), outputFilepath, instrument.symbol, skipped,
+                otherScales);
+        symbols.forEach((channel, symbol) -> System.out.printf("  symbol %d: %s\n", symbol, channel));
+    }
+}
@@ -0,0 +1,135 @@
+package lob.example;
+
+import java.io.*;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lob.common.Order;
+import lob.exchange.Bitstamp;
+import lob.exchange.BitstampOrder;
+import lob.v1.Limit;
+
+/**
+ * Replays the downloaded messages against the order queues of every price level
+ * and compares the intrusive queue in `Limit` with a `LinkedList` queue (the
+ * previous implementation of `Limit`). Only the queue operations are timed, the
+ * map lookups needed to find the level or the order are shared by both.
+ */
+public class LimitBenchmark {
+    private final static String filepath = System.getProperty("user.dir")
+            + "/src/main/resources/l3_orderbook.ndjson";
+
+    public static void main(String[] args) throws IOException {
+        for (int i = 0; i < 10; i++)
+            benchmark();
+    }
+
+    private static void benchmark() throws IOException {
+        BufferedReader reader = new BufferedReader(new FileReader(filepath));
+        ObjectMapper mapper = new ObjectMapper();
+
+        HashMap<Long, Order> orders = new HashMap<>();
+        HashMap<Long, Limit> limits = new HashMap<>();
+        HashMap<Long, LinkedList<Order>> queues = new HashMap<>();
+
+        long count = 0;
+        long intrusiveDuration = 0;
+        long linkedListDuration = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            BitstampOrder message;
+            try {
+                message = Bitstamp.parseOrderMessage(mapper, line);
+            } catch (Exception e) {
+                continue;
+            }
+
+            long start, end;
+            switch (message.event) {
+                case Created: {
+                    if (message.price == 0) // market orders do not rest on any level
+                        continue;
+
+                    Order order = new Order(message.id, message.side, message.amount, message.price);
+                    orders.put(order.id, order);
+                    Limit limit = limits.get(order.price);
+                    LinkedList<Order> queue = queues.computeIfAbsent(order.price, _price -> new LinkedList<>());
+
+                    start = System.nanoTime();
+                    if (limit == null)
+                        limits.put(order.price, new Limit(order));
+                    else
+                        limit.add(order);
+                    end = System.nanoTime();
+                    intrusiveDuration += end - start;
+
+                    start = System.nanoTime();
+                    queue.add(order);
+                    end = System.nanoTime();
+                    linkedListDuration += end - start;
+                    break;
+                }
+                case Deleted: {
+                    Order order = orders.remove(message.id);
+                    if (order == null)
+                        continue;
+                    Limit limit = order.limit;
+                    LinkedList<Order> queue = queues.get(order.price);
+
+                    start = System.nanoTime();
+                    limit.remove(order);
+                    end = System.nanoTime();
+                    intrusiveDuration += end - start;
+
+                    start = System.nanoTime();
+                    queue.remove(order);
+                    end = System.nanoTime();
+                    linkedListDuration += end - start;
+
+                    if (limit.count == 0)
+                        limits.remove(order.price);
+                    if (queue.isEmpty())
+                        queues.remove(order.price);
+                    break;
+                }
+                case Changed: {
+                    Order order = orders.get(message.id);
+                    if (order == null)
+                        continue;
+                    Limit limit = order.limit;
+                    LinkedList<Order> queue = queues.get(order.price);
+
+                    start = System.nanoTime();
+                    limit.update(order, message.amount);
+                    end = System.nanoTime();
+                    intrusiveDuration += end - start;
+
+                    // this is how the `LinkedList` version finds the order to update
+                    start = System.nanoTime();
+                    Iterator<Order> iter = queue.iterator();
+                    while (iter.hasNext()) {
+                        Order o = iter.next();
+                        if (o.id == order.id) {
+                            o.size = message.amount;
+                            break;
+                        }
+                    }
+                    end = System.nanoTime();
+                    linkedListDuration += end - start;
+                    break;
+                }
+            }
+            count++;
+        }
+
+        System.out.printf("Time used by intrusive queue for %d operations: %.2fms\n", count,
+                intrusiveDuration * 1e-6);
+        System.out.printf("Time used by LinkedList queue for %d operations: %.2fms\n", count,
+                linkedListDuration * 1e-6);
+
+        reader.close();
+    }
+}
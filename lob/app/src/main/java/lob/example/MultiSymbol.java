@@ -0,0 +1,42 @@
+package lob.example;
+
+import java.net.URISyntaxException;
+
+import lob.exchange.Bitstamp;
+import lob.pipeline.BookManager;
+import lob.pipeline.MatchingEngine;
+import lob.pipeline.Snapshot;
+
+public class MultiSymbol {
+    public static void main(String[] args) throws URISyntaxException, InterruptedException {
+        // the symbols to subscribe to, e.g. `--args="BTCUSD ETHUSD XRPUSD"`
+        String[] symbols = args.length > 0 ? args : new String[] { "BTCUSD", "ETHUSD", "XRPUSD", "LTCUSD" };
+
+        int shards = Math.min(symbols.length, Runtime.getRuntime().availableProcessors());
+        BookManager manager = new BookManager(() -> Benchmark.newOrderBook("v2"), shards, 1 << 16, 1);
+        for (String symbol : symbols)
+            manager.register(Bitstamp.channel(symbol));
+        manager.start();
+
+        Bitstamp client = new Bitstamp(symbols, (order, _message) -> manager.publish(order));
+        client.connect();
+
+        long[] previous = new long[shards];
+        while (true) {
+            Thread.sleep(5000);
+
+            for (int i = 0; i < shards; i++) {
+                MatchingEngine shard = manager.shard(i);
+                long events = shard.events();
+                System.out.printf("shard %d: %.1f events/s, queue depth: %d, match latency: %s\n", i,
+                        (events - previous[i]) / 5.0, shard.queueDepth(), shard.matchLatency());
+                previous[i] = events;
+            }
+
+            for (int symbol = 0; symbol < manager.size(); symbol++) {
+                Snapshot snapshot = manager.snapshot(symbol);
+                System.out.printf("  %s: %d / %d\n", manager.channel(symbol), snapshot.bestBuy, snapshot.bestSell);
+            }
+        }
+    }
+}
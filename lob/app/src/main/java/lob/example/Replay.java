@@ -0,0 +1,35 @@
+package lob.example;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import lob.io.EventLogReader;
+import lob.io.ReplayEngine;
+
+public class Replay {
+    private final static String filepath = System.getProperty("user.dir")
+            + "/src/main/resources/l3_orderbook.bin";
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        // the order book implementation to replay into, e.g. `--args=v2`
+        String version = args.length > 0 ? args[0] : "v1";
+
+        // the number of books replayed in parallel or `symbol` for one book per
+        // symbol, e.g. `--args="v2 8"`
+        String books = args.length > 1 ? args[1] : "1";
+
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        EventLogReader reader = new EventLogReader(Path.of(filepath));
+        ReplayEngine engine = new ReplayEngine(reader);
+        for (int i = 0; i < 10; i++) {
+            ReplayEngine.Result result = books.equals("symbol")
+                    ? engine.replayBySymbol(() -> Benchmark.newOrderBook(version), threads)
+                    : engine.replay(() -> Benchmark.newOrderBook(version), Integer.parseInt(books), threads);
+
+            System.out.printf("Replayed %d events into %d books in %.2fms (%.2fM events/s)\n", result.events,
+                    result.books.length, result.duration * 1e-6, result.eventsPerSecond() * 1e-6);
+        }
+        reader.close();
+    }
+}
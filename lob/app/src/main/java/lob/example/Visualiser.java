@@ -2,7 +2,6 @@ package lob.example;
 
 import java.net.*;
 import java.util.*;
-import java.util.stream.*;
 import java.util.concurrent.*;
 
 import javafx.application.*;
@@ -16,38 +15,26 @@ import javafx.geometry.Insets;
 import javafx.stage.Stage;
 import javafx.util.Callback;
 
-import lob.LimitOrderBook;
-import lob.common.Order;
+import lob.common.Instrument;
 import lob.common.Side;
 import lob.exchange.Bitstamp;
+import lob.pipeline.MatchingEngine;
+import lob.pipeline.Snapshot;
 import lob.v1.LOB;
-import lob.v1.Limit;
 
 public class Visualiser extends Application {
-    private LimitOrderBook lob = new LOB();
+    // the book is only touched by the matching thread, the UI reads its snapshots
+    private MatchingEngine engine = new MatchingEngine(new LOB(), 1 << 16, 8);
     private Bitstamp client;
 
     private final String symbol = "BTCUSD";
+    private final Instrument instrument = Bitstamp.instrument(symbol);
     private final static int WIDTH = 242;
     private final static int HEIGHT = 503;
 
     private void startOrderBook() throws URISyntaxException {
-        client = new Bitstamp(new String[] { symbol }, (order, _message) -> {
-            switch (order.event) {
-                case Created:
-                    if (order.price == 0) // if the price is 0 then it is a market order
-                        lob.market(new Order(order.id, order.side, order.amount, order.price));
-                    else // limit otherwise
-                        lob.limit(new Order(order.id, order.side, order.amount, order.price));
-                    break;
-                case Deleted:
-                    lob.cancel(order.id);
-                    break;
-                case Changed:
-                    lob.amend(order.id, order.amount);
-                    break;
-            }
-        });
+        engine.start();
+        client = new Bitstamp(new String[] { symbol }, (order, _message) -> engine.publish(order));
         client.connect();
     }
 
@@ -61,8 +48,16 @@ public class Visualiser extends Application {
 
         startOrderBook();
         stage.setOnCloseRequest(event -> {
-            client.close(1000, "User closed the application");
             executor.close();
+            try {
+                // no message is published once the connection is closed, then the
+                // matching thread applies the last ones and stops
+                client.closeBlocking();
+                engine.close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            printMetrics();
         });
         stage.setTitle("Bitstamp - " + symbol);
         stage.setMinWidth(WIDTH);
@@ -70,8 +65,8 @@ public class Visualiser extends Application {
         stage.setMinHeight(HEIGHT);
         stage.setMaxHeight(HEIGHT);
 
-        TableView<Limit> bidsTable = makeOfferTable(Side.BUY);
-        TableView<Limit> asksTable = makeOfferTable(Side.SELL);
+        TableView<Snapshot.Level> bidsTable = makeOfferTable(Side.BUY);
+        TableView<Snapshot.Level> asksTable = makeOfferTable(Side.SELL);
         Text price = new Text("");
         Text spread = new Text("");
         price.setFont(Font.font(Font.getDefault().getName(), FontWeight.BOLD, 14));
@@ -90,22 +85,17 @@ public class Visualiser extends Application {
         // Run a repeated task on an interval to measure messages received
         TimerTask repeatedTask = new TimerTask() {
             public void run() {
+                Snapshot snapshot = engine.snapshot();
                 Platform.runLater(() -> {
-                    Iterator<Limit> bids = lob.topN(8, Side.BUY);
-                    Iterator<Limit> asks = lob.topN(8, Side.SELL);
+                    price.setText(instrument.formatPrice((snapshot.bestBuy + snapshot.bestSell) / 2));
+                    spread.setText("Spread: " + instrument.formatPrice(snapshot.bestSell - snapshot.bestBuy));
 
-                    price.setText("" + (lob.bestBuy() + lob.bestSell()) / 2);
-                    spread.setText("Spread: " + (lob.bestSell() - lob.bestBuy()));
+                    bidsTable.getItems().setAll(snapshot.bids);
 
-                    bidsTable.getItems().clear();
-                    while (bids.hasNext())
-                        bidsTable.getItems().add(bids.next());
-
-                    asksTable.getItems().clear();
-                    StreamSupport
-                            .stream(Spliterators.spliteratorUnknownSize(asks, Spliterator.ORDERED), false)
-                            .sorted(Collections.reverseOrder())
-                            .forEach(limit -> asksTable.getItems().add(limit));
+                    // the asks are shown with the best price at the bottom
+                    List<Snapshot.Level> asks = new ArrayList<>(snapshot.asks);
+                    Collections.reverse(asks);
+                    asksTable.getItems().setAll(asks);
                 });
             }
         };
@@ -114,15 +104,21 @@ public class Visualiser extends Application {
         stage.show();
     }
 
+    private void printMetrics() {
+        System.out.printf("queue depth: %d, producer stalls: %d\n", engine.queueDepth(), engine.stalls());
+        System.out.println("queue latency: " + engine.queueLatency());
+        System.out.println("match latency: " + engine.matchLatency());
+    }
+
     @SuppressWarnings("unchecked")
-    private TableView<Limit> makeOfferTable(Side side) {
-        TableView<Limit> table = new TableView<>();
-        TableColumn<Limit, Long> colPrice = new TableColumn<>("Price");
+    private TableView<Snapshot.Level> makeOfferTable(Side side) {
+        TableView<Snapshot.Level> table = new TableView<>();
+        TableColumn<Snapshot.Level, Long> colPrice = new TableColumn<>("Price");
         colPrice.setSortable(false);
-        colPrice.setCellFactory(new Callback<TableColumn<Limit, Long>, TableCell<Limit, Long>>() {
+        colPrice.setCellFactory(new Callback<TableColumn<Snapshot.Level, Long>, TableCell<Snapshot.Level, Long>>() {
             @Override
-            public TableCell<Limit, Long> call(TableColumn<Limit, Long> param) {
-                return new TableCell<Limit, Long>() {
+            public TableCell<Snapshot.Level, Long> call(TableColumn<Snapshot.Level, Long> param) {
+                return new TableCell<Snapshot.Level, Long>() {
                     @Override
                     public void updateItem(Long item, boolean empty) {
                         super.updateItem(item, empty);
@@ -133,24 +129,24 @@ public class Visualiser extends Application {
                             setTextFill(side == Side.BUY ? Color.GREEN : Color.RED);
                             setFont(Font.font(Font.getDefault().getName(), FontWeight.SEMI_BOLD,
                                     Font.getDefault().getSize()));
-                            setText(item.toString());
+                            setText(instrument.formatPrice(item));
                         }
                     }
                 };
             }
         });
-        TableColumn<Limit, String> colVolume = new TableColumn<>("Volume");
+        TableColumn<Snapshot.Level, String> colVolume = new TableColumn<>("Volume");
         colVolume.setSortable(false);
-        TableColumn<Limit, String> colValue = new TableColumn<>("Value");
+        TableColumn<Snapshot.Level, String> colValue = new TableColumn<>("Value");
         colValue.setSortable(false);
 
         table.getColumns().addAll(colPrice, colVolume, colValue);
         colPrice.setCellValueFactory(cell -> new SimpleLongProperty(cell.getValue().price).asObject());
         colVolume.setCellValueFactory(
-                cell -> new SimpleStringProperty(String.format("%.8f", (double) cell.getValue().volume / 1e9)));
+                cell -> new SimpleStringProperty(instrument.formatSize(cell.getValue().volume)));
         colValue.setCellValueFactory(
                 cell -> new SimpleStringProperty(
-                        String.format("%.2f", cell.getValue().price * ((double) cell.getValue().volume / 1e9))));
+                        String.format("%.2f", instrument.notional(cell.getValue().price, cell.getValue().volume))));
         return table;
     }
 }
\ No newline at end of file
@@ -0,0 +1,61 @@
+package lob.example;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import lob.LimitOrderBook;
+import lob.common.Instrument;
+import lob.io.BookSnapshot;
+import lob.io.EventLogReader;
+
+public class WarmStart {
+    private final static String filepath = System.getProperty("user.dir")
+            + "/src/main/resources/l3_orderbook.bin";
+    private final static String snapshotFilepath = System.getProperty("user.dir")
+            + "/src/main/resources/l3_orderbook.snapshot";
+
+    public static void main(String[] args) throws IOException {
+        // the order book implementation to restore into, e.g. `--args=v2`
+        String version = args.length > 0 ? args[0] : "v1";
+
+        EventLogReader reader = new EventLogReader(Path.of(filepath));
+
+        // the feed handler ran through 90% of the log before it went down
+        int sequence = (int) (reader.count() * 0.9);
+        LimitOrderBook running = Benchmark.newOrderBook(version);
+        reader.replay(running, 0, sequence);
+        long start = System.nanoTime();
+        BookSnapshot snapshot = BookSnapshot.capture(running, sequence,
+                new Instrument("log", reader.priceScale(), reader.sizeScale()));
+        long captured = System.nanoTime();
+        snapshot.write(Path.of(snapshotFilepath));
+        System.out.printf("Captured %d orders after %d events in %.2fms, wrote %d bytes in %.2fms\n",
+                snapshot.orders(), sequence, (captured - start) * 1e-6, snapshot.size(),
+                (System.nanoTime() - captured) * 1e-6);
+        reader.replay(running, sequence, reader.count());
+
+        for (int i = 0; i < 5; i++) {
+            // cold start: replay the whole log
+            start = System.nanoTime();
+            LimitOrderBook cold = Benchmark.newOrderBook(version);
+            reader.replay(cold, 0, reader.count());
+            long coldDuration = System.nanoTime() - start;
+
+            // warm start: load the snapshot and replay the tail
+            start = System.nanoTime();
+            LimitOrderBook warm = Benchmark.newOrderBook(version);
+            BookSnapshot loaded = BookSnapshot.read(Path.of(snapshotFilepath));
+            if (loaded.priceScale() != reader.priceScale() || loaded.sizeScale() != reader.sizeScale())
+                throw new IOException("the snapshot and the log have different scales");
+            loaded.restore(warm);
+            reader.replay(warm, (int) loaded.sequence(), reader.count());
+            long warmDuration = System.nanoTime() - start;
+
+            boolean same = warm.bestBuy() == running.bestBuy() && warm.bestSell() == running.bestSell()
+                    && warm.volume() == running.volume();
+            System.out.printf("Cold start %.2fms, warm start %.2fms (%s)\n", coldDuration * 1e-6,
+                    warmDuration * 1e-6, same ? "same book" : "different book");
+        }
+        reader.close();
+    }
+}
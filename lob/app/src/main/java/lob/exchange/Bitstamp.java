@@ -2,6 +2,7 @@ package lob.exchange;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Map;
 
 import org.java_websocket.client.WebSocketClient;
 import org.java_websocket.handshake.ServerHandshake;
@@ -9,20 +10,62 @@ import org.java_websocket.handshake.ServerHandshake;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import lob.common.Instrument;
+
 public class Bitstamp extends WebSocketClient {
     private final static String uri = "wss://ws.bitstamp.net";
+
+    // The number of decimals of the amounts, Bitstamp quotes every pair with 8.
+    public final static int SIZE_SCALE = 8;
+
+    // The number of decimals of the prices of a pair that is not in `PRICE_SCALES`,
+    // no pair is quoted with more.
+    public final static int MAX_PRICE_SCALE = 8;
+
+    // The number of decimals of the prices of the pairs used by the examples.
+    private final static Map<String, Integer> PRICE_SCALES = Map.of(
+            "btcusd", 0, "btceur", 0, "btcgbp", 0,
+            "ethusd", 2, "etheur", 2,
+            "ltcusd", 2, "ltceur", 2,
+            "xrpusd", 5, "xrpeur", 5);
+
     private ObjectMapper mapper = new ObjectMapper();
+    private BitstampDecoder decoder = new BitstampDecoder();
     private OrderCallback orderCallback;
     private String[] symbols;
+    private Parser parser;
+
+    // The order reused for every message decoded by `BitstampDecoder`.
+    private final BitstampOrder order = new BitstampOrder();
 
     public interface OrderCallback {
+        /**
+         * Called for every order message. Note that with `Parser.STREAMING` the same
+         * order object is passed for every message, so it must be copied if it is
+         * kept after the callback returns.
+         */
         public void onOrderMessage(BitstampOrder order, String message);
     }
 
+    /**
+     * The parser used to decode the messages.
+     */
+    public enum Parser {
+        JACKSON, // build a `JsonNode` tree with Jackson, a new order for every message
+        STREAMING, // scan the message once with `BitstampDecoder` into a reused order
+    }
+
     public Bitstamp(String[] symbols, OrderCallback orderCallback) throws URISyntaxException {
+        this(symbols, orderCallback, Parser.STREAMING);
+    }
+
+    public Bitstamp(String[] symbols, OrderCallback orderCallback, Parser parser) throws URISyntaxException {
         super(new URI(Bitstamp.uri));
+        for (String symbol : symbols)
+            instrument(symbol); // the scales must be known before the first message
         this.symbols = symbols;
         this.orderCallback = orderCallback;
+        this.parser = parser;
     }
 
     public static BitstampOrder parseOrderMessage(ObjectMapper mapper, String message) throws Exception {
@@ -47,6 +90,13 @@ public class Bitstamp extends WebSocketClient {
 
     @Override
     public void onMessage(String message) {
+        if (parser == Parser.STREAMING) {
+            // non-order messages such as subscription replies are ignored
+            if (decoder.decode(message, order))
+                orderCallback.onOrderMessage(order, message);
+            return;
+        }
+
         try {
             BitstampOrder order = Bitstamp.parseOrderMessage(mapper, message);
             orderCallback.onOrderMessage(order, message);
@@ -67,14 +117,61 @@ public class Bitstamp extends WebSocketClient {
         ex.printStackTrace();
     }
 
+    /**
+     * Get the instrument of a pair, it is registered with the scales Bitstamp
+     * quotes the pair with the first time, unless it was registered before.
+     *
+     * @param symbol - The symbol, e.g. `BTCUSD`.
+     */
+    public static Instrument instrument(String symbol) {
+        String pair = symbol.toLowerCase();
+        return Instrument.registerIfAbsent(pair, PRICE_SCALES.getOrDefault(pair, MAX_PRICE_SCALE), SIZE_SCALE);
+    }
+
+    /**
+     * Get the instrument of the messages of a channel.
+     *
+     * @param channel - The channel, e.g. `live_orders_btcusd`, or null.
+     * @return the instrument of the pair of a `live_orders` channel, otherwise the
+     *         registered instrument of the channel or `Instrument.DEFAULT`.
+     */
+    public static Instrument channelInstrument(String channel) {
+        if (channel == null || !channel.startsWith("live_orders_"))
+            return Instrument.of(channel);
+        return instrument(symbol(channel));
+    }
+
+    /**
+     * Get the name of the `live_orders` channel of a symbol, this is the
+     * `channel` of the messages of that symbol.
+     *
+     * @param symbol - The symbol, e.g. `BTCUSD`.
+     * @return the channel, e.g. `live_orders_btcusd`.
+     */
+    public static String channel(String symbol) {
+        return "live_orders_" + symbol.toLowerCase();
+    }
+
+    /**
+     * Get the symbol of a `live_orders` channel.
+     *
+     * @param channel - The channel, e.g. `live_orders_btcusd`, or null.
+     * @return the symbol, e.g. `btcusd`, or null if the channel is null.
+     */
+    public static String symbol(String channel) {
+        if (channel == null || !channel.startsWith("live_orders_"))
+            return channel;
+        return channel.substring("live_orders_".length());
+    }
+
     private void subscribeLiveOrders() {
         for (String symbol : symbols)
             send(String.format("""
                     {
                         "event": "bts:subscribe",
                         "data": {
-                            "channel": "live_orders_%s"
+                            "channel": "%s"
                         }
-                    }""", symbol.toLowerCase()));
+                    }""", channel(symbol)));
     }
 }
\ No newline at end of file
@@ -0,0 +1,373 @@
+package lob.exchange;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import lob.common.FixedPoint;
+import lob.common.Instrument;
+import lob.common.Side;
+
+/**
+ * A streaming decoder for the messages of Bitstamp's `live_orders` channel. It
+ * scans the raw bytes of a message once and copies the fields the order book
+ * needs into a reusable `BitstampOrder`, instead of building a `JsonNode` tree
+ * for every message like `Bitstamp.parseOrderMessage` does.
+ * <p>
+ * A message looks like:
+ * </p>
+ *
+ * <pre>
+ * {"data": {"id": 1700000000000000, "id_str": "1700000000000000", "order_type": 0,
+ *           "datetime": "1700000000", "microtimestamp": "1700000000000000",
+ *           "amount": 0.0105, "amount_str": "0.01050000", "price": 37000, "price_str": "37000"},
+ *  "channel": "live_orders_btcusd", "event": "order_created"}
+ * </pre>
+ *
+ * The fields may come in any order and unknown fields are skipped. The price
+ * and the amount are converted to fixed-point numbers with the scales of the
+ * `Instrument` of the channel (see `Bitstamp.channelInstrument`) straight from
+ * their digits, without going through a double (see `FixedPoint`). As the
+ * channel may come after the data, they are converted once the whole message
+ * has been scanned, a message with more decimals than the scales is rejected.
+ * The `microtimestamp` and `channel` are optional, they are left as 0 and null
+ * when missing, a message without a channel uses `Instrument.DEFAULT`.
+ */
+public class BitstampDecoder {
+    private final static byte[] EVENT = "event".getBytes();
+    private final static byte[] DATA = "data".getBytes();
+    private final static byte[] ID = "id".getBytes();
+    private final static byte[] ORDER_TYPE = "order_type".getBytes();
+    private final static byte[] AMOUNT = "amount".getBytes();
+    private final static byte[] PRICE = "price".getBytes();
+    private final static byte[] MICROTIMESTAMP = "microtimestamp".getBytes();
+    private final static byte[] CHANNEL = "channel".getBytes();
+
+    private final static byte[] ORDER_CREATED = "order_created".getBytes();
+    private final static byte[] ORDER_DELETED = "order_deleted".getBytes();
+    private final static byte[] ORDER_CHANGED = "order_changed".getBytes();
+
+    // The fields that must be found for a message to be an order message.
+    private final static int HAS_EVENT = 1, HAS_ID = 2, HAS_SIDE = 4, HAS_AMOUNT = 8, HAS_PRICE = 16;
+    private final static int HAS_ALL = HAS_EVENT | HAS_ID | HAS_SIDE | HAS_AMOUNT | HAS_PRICE;
+
+    // The message being decoded and the current position in it.
+    private byte[] buf;
+    private int pos, end;
+
+    // The fields found so far in the message being decoded.
+    private int found;
+
+    // The bounds of the last number scanned by `number`, without its quotes.
+    private int numberStart, numberEnd;
+
+    // The bounds of the amount and of the price, converted once the channel is known.
+    private int amountStart, amountEnd, priceStart, priceEnd;
+
+    // Used to decode messages received as strings without allocating.
+    private byte[] scratch = new byte[1024];
+
+    // The channels seen so far, a message reuses the string of its channel so
+    // that decoding does not allocate once every channel has been seen, and the
+    // instrument of each channel.
+    private String[] channels = new String[0];
+    private Instrument[] instruments = new Instrument[0];
+
+    /**
+     * Decode a message received as a string, the characters are copied into a
+     * reusable buffer first.
+     *
+     * @param message - The message.
+     * @param order   - The order to copy the fields into.
+     * @return true if the message is an order message, false otherwise
+     */
+    public boolean decode(String message, BitstampOrder order) {
+        int length = message.length();
+        if (length > scratch.length)
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+
+        // the messages are plain ASCII so each character fits in a byte
+        for (int i = 0; i < length; i++)
+            scratch[i] = (byte) message.charAt(i);
+
+        return decode(scratch, 0, length, order);
+    }
+
+    /**
+     * Decode a message from a byte buffer.
+     *
+     * @param buf    - The buffer holding the message.
+     * @param offset - The index of the first byte of the message.
+     * @param length - The number of bytes in the message.
+     * @param order  - The order to copy the fields into.
+     * @return true if the message is an order message, false otherwise
+     */
+    public boolean decode(byte[] buf, int offset, int length, BitstampOrder order) {
+        this.buf = buf;
+        this.pos = offset;
+        this.end = offset + length;
+        this.found = 0;
+        order.timestamp = 0;
+        order.channel = null;
+
+        try {
+            skipWhitespace();
+            if (!consume('{'))
+                return false;
+            decodeMessage(order);
+            if (found != HAS_ALL || !consume('}')) // a message cut after its data is not complete
+                return false;
+
+            Instrument instrument = instrument(order.channel);
+            order.instrument = instrument;
+            order.amount = FixedPoint.parse(buf, amountStart, amountEnd, instrument.sizeScale);
+            order.price = FixedPoint.parse(buf, priceStart, priceEnd, instrument.priceScale);
+        } catch (IndexOutOfBoundsException e) { // the message was truncated
+            return false;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Decode the fields of the outer object, the opening brace is consumed.
+     */
+    private void decodeMessage(BitstampOrder order) {
+        do {
+            skipWhitespace();
+            if (peek() == '}')
+                return;
+
+            int keyStart = pos + 1, keyEnd = skipString();
+            expectColon();
+
+            if (equals(keyStart, keyEnd, DATA) && peek() == '{') {
+                pos++;
+                decodeData(order);
+            } else if (equals(keyStart, keyEnd, EVENT) && peek() == '"') {
+                int start = pos + 1, stringEnd = skipString();
+                if (equals(start, stringEnd, ORDER_CREATED))
+                    order.event = BitstampOrder.OrderEvent.Created;
+                else if (equals(start, stringEnd, ORDER_DELETED))
+                    order.event = BitstampOrder.OrderEvent.Deleted;
+                else if (equals(start, stringEnd, ORDER_CHANGED))
+                    order.event = BitstampOrder.OrderEvent.Changed;
+                else
+                    return; // not an order message
+                found |= HAS_EVENT;
+            } else if (equals(keyStart, keyEnd, CHANNEL) && peek() == '"') {
+                int start = pos + 1, stringEnd = skipString();
+                order.channel = channel(start, stringEnd);
+            } else
+                skipValue();
+        } while (nextMember());
+    }
+
+    /**
+     * Decode the fields of the `data` object, the opening brace is consumed.
+     */
+    private void decodeData(BitstampOrder order) {
+        do {
+            skipWhitespace();
+            if (peek() == '}') {
+                pos++;
+                return;
+            }
+
+            int keyStart = pos + 1, keyEnd = skipString();
+            expectColon();
+
+            if (equals(keyStart, keyEnd, ID)) {
+                order.id = parseLong();
+                found |= HAS_ID;
+            } else if (equals(keyStart, keyEnd, ORDER_TYPE)) {
+                long side = parseLong();
+                if (side == 0)
+                    order.side = Side.BUY;
+                else if (side == 1)
+                    order.side = Side.SELL;
+                else
+                    continue; // not a valid side, HAS_SIDE stays unset
+                found |= HAS_SIDE;
+            } else if (equals(keyStart, keyEnd, AMOUNT)) {
+                number();
+                amountStart = numberStart;
+                amountEnd = numberEnd;
+                found |= HAS_AMOUNT;
+            } else if (equals(keyStart, keyEnd, PRICE)) {
+                number();
+                priceStart = numberStart;
+                priceEnd = numberEnd;
+                found |= HAS_PRICE;
+            } else if (equals(keyStart, keyEnd, MICROTIMESTAMP)) {
+                order.timestamp = parseLong();
+            } else
+                skipValue();
+        } while (nextMember());
+
+        if (!consume('}')) // the closing brace
+            throw new IndexOutOfBoundsException(pos);
+    }
+
+    /**
+     * Scan a number, which may be quoted, and keep its bounds in `numberStart`
+     * and `numberEnd`.
+     */
+    private void number() {
+        if (consume('"')) {
+            numberStart = pos;
+            while (peek() != '"')
+                pos++;
+            numberEnd = pos++;
+            return;
+        }
+
+        numberStart = pos;
+        while (pos < end && buf[pos] != ',' && buf[pos] != '}' && buf[pos] != ']' && buf[pos] > ' ')
+            pos++;
+        numberEnd = pos;
+    }
+
+    /**
+     * Parse a whole number, which may be quoted.
+     */
+    private long parseLong() {
+        number();
+        return FixedPoint.parse(buf, numberStart, numberEnd, 0);
+    }
+
+    /**
+     * Get the string of the channel in `[start, end)`, the string is only created
+     * the first time a channel is seen.
+     */
+    private String channel(int start, int end) {
+        for (String channel : channels) {
+            if (channel.length() != end - start)
+                continue;
+            int i = 0;
+            while (i < end - start && channel.charAt(i) == buf[start + i])
+                i++;
+            if (i == end - start)
+                return channel;
+        }
+
+        String channel = new String(buf, start, end - start, StandardCharsets.US_ASCII);
+        channels = Arrays.copyOf(channels, channels.length + 1);
+        channels[channels.length - 1] = channel;
+        instruments = Arrays.copyOf(instruments, instruments.length + 1);
+        instruments[instruments.length - 1] = Bitstamp.channelInstrument(channel);
+        return channel;
+    }
+
+    /**
+     * Get the instrument of a channel returned by `channel`.
+     */
+    private Instrument instrument(String channel) {
+        for (int i = 0; i < channels.length; i++)
+            if (channels[i] == channel)
+                return instruments[i];
+        return Instrument.DEFAULT;
+    }
+
+    /**
+     * Move past the comma between two members of an object.
+     *
+     * @return true if there is another member, false if the object ended
+     */
+    private boolean nextMember() {
+        skipWhitespace();
+        return consume(',');
+    }
+
+    private void expectColon() {
+        skipWhitespace();
+        consume(':');
+        skipWhitespace();
+    }
+
+    /**
+     * Skip a string starting at the current position.
+     *
+     * @return the index of the closing quote
+     */
+    private int skipString() {
+        pos++; // the opening quote
+        while (peek() != '"') {
+            if (buf[pos] == '\\')
+                pos++; // skip the escaped character
+            pos++;
+        }
+        return pos++;
+    }
+
+    /**
+     * Skip any JSON value starting at the current position.
+     */
+    private void skipValue() {
+        byte c = peek();
+        if (c == '"') {
+            skipString();
+            return;
+        }
+
+        if (c == '{' || c == '[') { // skip until the matching bracket
+            int depth = 0;
+            do {
+                c = peek();
+                if (c == '"') {
+                    skipString();
+                    continue;
+                }
+                if (c == '{' || c == '[')
+                    depth++;
+                else if (c == '}' || c == ']')
+                    depth--;
+                pos++;
+            } while (depth > 0);
+            return;
+        }
+
+        // a number, true, false or null
+        while (pos < end && buf[pos] != ',' && buf[pos] != '}' && buf[pos] != ']')
+            pos++;
+    }
+
+    private void skipWhitespace() {
+        while (pos < end && (buf[pos] == ' ' || buf[pos] == '\n' || buf[pos] == '\r' || buf[pos] == '\t'))
+            pos++;
+    }
+
+    /**
+     * Get the byte at the current position. Every scan reads through it so that
+     * a truncated message is never completed by bytes left in the buffer from a
+     * longer message.
+     *
+     * @throws IndexOutOfBoundsException if the message ended.
+     */
+    private byte peek() {
+        if (pos >= end)
+            throw new IndexOutOfBoundsException(pos);
+        return buf[pos];
+    }
+
+    private boolean consume(char c) {
+        if (pos < end && buf[pos] == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Compare the bytes in `[start, end)` with an expected value.
+     */
+    private boolean equals(int start, int end, byte[] expected) {
+        if (end - start != expected.length)
+            return false;
+        for (int i = 0; i < expected.length; i++)
+            if (buf[start + i] != expected[i])
+                return false;
+        return true;
+    }
+}
@@ -9,6 +9,8 @@ import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
+import lob.common.Event;
+import lob.common.Instrument;
 import lob.common.Side;
 
 class BitstampOrderDeserializer extends StdDeserializer<BitstampOrder> {
@@ -54,11 +56,33 @@ class BitstampOrderDeserializer extends StdDeserializer<BitstampOrder> {
                 throw new IOException("received unrecognised 'order_type', only 0 or 1 is valid.");
         }
 
-        order.amount = (long) (node.get("data").get("amount").asDouble() * 1e9);
-        order.price = node.get("data").get("price").asLong();
+        JsonNode timestamp = node.get("data").get("microtimestamp");
+        if (timestamp != null)
+            order.timestamp = timestamp.asLong();
+
+        JsonNode channel = node.get("channel");
+        if (channel != null)
+            order.channel = channel.asText();
+
+        // the exact decimal strings are parsed into the scales of the instrument
+        order.instrument = Bitstamp.channelInstrument(order.channel);
+        try {
+            order.amount = order.instrument.parseSize(decimal(node.get("data"), "amount"));
+            order.price = order.instrument.parsePrice(decimal(node.get("data"), "price"));
+        } catch (NumberFormatException e) {
+            throw new IOException("received an invalid 'amount' or 'price'", e);
+        }
 
         return order;
     }
+
+    /**
+     * Get the text of a decimal field, from its `_str` twin when there is one.
+     */
+    private static String decimal(JsonNode data, String field) {
+        JsonNode exact = data.get(field + "_str");
+        return exact != null ? exact.asText() : data.get(field).asText();
+    }
 }
 
 @JsonDeserialize(using = BitstampOrderDeserializer.class)
@@ -66,8 +90,11 @@ public class BitstampOrder {
     public OrderEvent event;
     public Side side;
     public long id;
-    public long amount;
-    public long price; // the order is a taker if its price is 0.
+    public long amount; // fixed-point with the size scale of the instrument.
+    public long price; // fixed-point with the price scale of the instrument, the order is a taker if it is 0.
+    public Instrument instrument = Instrument.DEFAULT; // the scales of the amount and the price.
+    public long timestamp; // microseconds since the epoch, 0 if unknown.
+    public String channel; // e.g. `live_orders_btcusd`, null if unknown.
 
     public enum OrderEvent {
         Created,
@@ -75,8 +102,32 @@ public class BitstampOrder {
         Changed,
     }
 
+    /**
+     * Convert the message into the command it stands for on the order book, an
+     * order created with a price of 0 is a market order.
+     *
+     * @param event - The event to copy the fields into.
+     * @return the event itself.
+     */
+    public Event toEvent(Event event) {
+        byte type;
+        switch (this.event) {
+            case Created:
+                type = price == 0 ? Event.MARKET : Event.LIMIT;
+                break;
+            case Deleted:
+                type = Event.CANCEL;
+                break;
+            default:
+                type = Event.AMEND;
+                break;
+        }
+        return event.set(type, side, id, amount, price, timestamp);
+    }
+
     @Override
     public String toString() {
-        return event + " id: " + id + " side: " + side + " amount: " + amount + " price: " + price;
+        return event + " id: " + id + " side: " + side + " amount: " + instrument.formatSize(amount) + " price: "
+                + instrument.formatPrice(price);
     }
 }
\ No newline at end of file
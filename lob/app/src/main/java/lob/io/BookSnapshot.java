@@ -0,0 +1,315 @@
+package lob.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+
+import lob.LimitOrderBook;
+import lob.common.Instrument;
+import lob.common.Order;
+import lob.common.Side;
+import lob.v1.Limit;
+
+/**
+ * BookSnapshot is a compact binary copy of every resting order of a book, so
+ * that a book can be restored from a file and only the tail of the feed after
+ * the snapshot has to be replayed on a restart.
+ * <p>
+ * A snapshot is taken in two steps. `capture` walks the book and encodes it
+ * into memory, it must run on the thread that writes the book, between two
+ * events, and it costs a copy of 16 bytes per resting order. The captured
+ * snapshot is immutable, so `write` can then be called from any other thread
+ * without stalling the matching.
+ * </p>
+ *
+ * <pre>
+ * header: magic (int) | version (short) | price scale (byte) | size scale (byte) | reserved (int) | sequence (long)
+ * side:   levels (int) | orders (int) | volume (long)         (buy side, then sell side)
+ * level:  price (long) | count (int) | reserved (int) | volume (long)
+ * order:  id (long) | size (long)                            (`count` orders per level)
+ * </pre>
+ *
+ * The levels of a side are stored best price first and the orders of a level
+ * oldest first, so restoring them one by one gives the same price-time
+ * priority. All values are little-endian. The scales are the number of decimals
+ * of the prices and sizes (see `lob.common.Instrument`), a snapshot of version 1
+ * has none and is read with the scales of `Instrument.DEFAULT`.
+ */
+public class BookSnapshot {
+    public final static int MAGIC = 0x53424f4c; // "LOBS" in little-endian
+    public final static short VERSION = 2;
+    private final static short VERSION_WITHOUT_SCALES = 1;
+
+    public final static int HEADER_SIZE = 24;
+    public final static int SIDE_SIZE = 16;
+    public final static int LEVEL_SIZE = 24;
+    public final static int ORDER_SIZE = 16;
+
+    public final static ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    // The encoded snapshot, from 0 to its limit.
+    private final ByteBuffer buf;
+
+    private BookSnapshot(ByteBuffer buf) {
+        this.buf = buf;
+    }
+
+    /**
+     * Copy every resting order of a book. This must be called by the thread that
+     * writes the book and the book must be a `lob.v1.LOB` or `lob.v2.LOB` (or a
+     * decorator that returns their limits), whose limits link to their orders.
+     *
+     * @param book     - The order book.
+     * @param sequence - The position in the feed that the book has reached, e.g.
+     *                 the number of events of an `EventLog` applied to it.
+     * @return the snapshot.
+     * @throws IllegalArgumentException if the orders linked to a limit are not
+     *                                  as many as its count, e.g. the copied
+     *                                  limits of a `ConcurrentBook`.
+     */
+    public static BookSnapshot capture(LimitOrderBook book, long sequence) {
+        return capture(book, sequence, Instrument.DEFAULT);
+    }
+
+    /**
+     * Copy every resting order of a book whose prices and sizes have the scales
+     * of an instrument, see `capture(LimitOrderBook, long)`.
+     *
+     * @param book       - The order book.
+     * @param sequence   - The position in the feed that the book has reached.
+     * @param instrument - The instrument whose scales the book has.
+     * @return the snapshot.
+     * @throws IllegalArgumentException if the orders linked to a limit are not
+     *                                  as many as its count.
+     */
+    public static BookSnapshot capture(LimitOrderBook book, long sequence, Instrument instrument) {
+        ByteBuffer buf = ByteBuffer.allocate(4096).order(BYTE_ORDER);
+        buf.putInt(0, MAGIC);
+        buf.putShort(4, VERSION);
+        buf.put(6, (byte) instrument.priceScale);
+        buf.put(7, (byte) instrument.sizeScale);
+        buf.putLong(16, sequence);
+        buf.position(HEADER_SIZE);
+
+        for (Side side : Side.values()) {
+            buf = ensure(buf, SIDE_SIZE);
+            int start = buf.position();
+            buf.position(start + SIDE_SIZE);
+
+            int levels = 0, orders = 0;
+            long volume = 0;
+            Iterator<Limit> it = book.topN(Integer.MAX_VALUE, side);
+            while (it.hasNext()) {
+                Limit limit = it.next();
+                buf = ensure(buf, LEVEL_SIZE + limit.count * ORDER_SIZE);
+                buf.putLong(limit.price).putInt(limit.count).putInt(0).putLong(limit.volume);
+                int linked = 0;
+                for (Order order = limit.head; order != null && linked++ < limit.count; order = order.next)
+                    buf.putLong(order.id).putLong(order.size);
+                if (linked != limit.count)
+                    throw new IllegalArgumentException("the limit " + limit.price + " has " + limit.count
+                            + " orders but " + (linked > limit.count ? "more" : String.valueOf(linked)) + " are linked to it");
+
+                levels++;
+                orders += limit.count;
+                volume += limit.volume;
+            }
+
+            buf.putInt(start, levels);
+            buf.putInt(start + 4, orders);
+            buf.putLong(start + 8, volume);
+        }
+
+        buf.flip();
+        return new BookSnapshot(buf);
+    }
+
+    /**
+     * Grow a buffer so that it has room for at least the given number of bytes
+     * after its position.
+     */
+    private static ByteBuffer ensure(ByteBuffer buf, int bytes) {
+        if (buf.remaining() >= bytes)
+            return buf;
+
+        ByteBuffer grown = ByteBuffer.allocate(Math.max(buf.capacity() * 2, buf.position() + bytes))
+                .order(BYTE_ORDER);
+        buf.flip();
+        grown.put(buf);
+        return grown;
+    }
+
+    /**
+     * Load a snapshot written by `write`.
+     *
+     * @param path - The path of the snapshot.
+     * @throws IOException if the file is not a snapshot or it is truncated.
+     */
+    public static BookSnapshot read(Path path) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(path)).order(BYTE_ORDER);
+        if (buf.limit() < HEADER_SIZE + 2 * SIDE_SIZE || buf.getInt(0) != MAGIC)
+            throw new IOException("not a book snapshot");
+        if (buf.getShort(4) != VERSION && buf.getShort(4) != VERSION_WITHOUT_SCALES)
+            throw new IOException("unsupported book snapshot version " + buf.getShort(4));
+
+        // walk the sides once so that a truncated file is rejected before it is restored
+        int offset = HEADER_SIZE;
+        for (int s = 0; s < 2; s++) {
+            int levels = buf.getInt(offset);
+            offset += SIDE_SIZE;
+            for (int i = 0; i < levels; i++) {
+                if (offset + LEVEL_SIZE > buf.limit())
+                    throw new IOException("the book snapshot is truncated");
+                offset += LEVEL_SIZE + buf.getInt(offset + 8) * ORDER_SIZE;
+                if (offset > buf.limit())
+                    throw new IOException("the book snapshot is truncated");
+            }
+            if (s == 0 && offset + SIDE_SIZE > buf.limit())
+                throw new IOException("the book snapshot is truncated");
+        }
+        if (offset != buf.limit())
+            throw new IOException("the book snapshot has trailing bytes");
+
+        return new BookSnapshot(buf);
+    }
+
+    /**
+     * Write the snapshot to a file, replacing the file if it exists. This can be
+     * called from any thread.
+     *
+     * @param path - The path of the snapshot.
+     */
+    public void write(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer data = buf.duplicate();
+            while (data.hasRemaining())
+                channel.write(data);
+        }
+    }
+
+    /**
+     * Returns the position in the feed that the book had reached when the
+     * snapshot was captured.
+     */
+    public long sequence() {
+        return buf.getLong(16);
+    }
+
+    /**
+     * Returns the number of decimals of the prices of the snapshot.
+     */
+    public int priceScale() {
+        return buf.getShort(4) == VERSION_WITHOUT_SCALES ? Instrument.DEFAULT.priceScale : buf.get(6);
+    }
+
+    /**
+     * Returns the number of decimals of the sizes of the snapshot.
+     */
+    public int sizeScale() {
+        return buf.getShort(4) == VERSION_WITHOUT_SCALES ? Instrument.DEFAULT.sizeScale : buf.get(7);
+    }
+
+    /**
+     * Returns the number of resting orders in the snapshot.
+     */
+    public int orders() {
+        return buf.getInt(HEADER_SIZE + 4) + buf.getInt(side(Side.SELL) + 4);
+    }
+
+    /**
+     * Returns the size of the snapshot in bytes.
+     */
+    public int size() {
+        return buf.limit();
+    }
+
+    /**
+     * Returns the offset of the header of a side.
+     */
+    private int side(Side side) {
+        int offset = HEADER_SIZE;
+        if (side == Side.BUY)
+            return offset;
+
+        int levels = buf.getInt(offset);
+        offset += SIDE_SIZE;
+        for (int i = 0; i < levels; i++)
+            offset += LEVEL_SIZE + buf.getInt(offset + 8) * ORDER_SIZE;
+        return offset;
+    }
+
+    /**
+     * Place every order of the snapshot into an empty book, then check that the
+     * levels and the volume of the book match the ones recorded in the snapshot.
+     *
+     * @param book - An empty order book.
+     * @throws IOException if the snapshot is inconsistent or the restored book
+     *                     does not match it.
+     */
+    public void restore(LimitOrderBook book) throws IOException {
+        if (book.bestBuy() != 0 || book.bestSell() != 0)
+            throw new IllegalArgumentException("a snapshot can only be restored into an empty book");
+
+        Order message = new Order();
+        long total = 0;
+        for (Side side : Side.values()) {
+            int offset = side(side);
+            int levels = buf.getInt(offset);
+            total += buf.getLong(offset + 8);
+            offset += SIDE_SIZE;
+
+            for (int i = 0; i < levels; i++) {
+                long price = buf.getLong(offset);
+                int count = buf.getInt(offset + 8);
+                long volume = buf.getLong(offset + 16);
+                offset += LEVEL_SIZE;
+
+                for (int j = 0; j < count; j++, offset += ORDER_SIZE) {
+                    long size = buf.getLong(offset + 8);
+                    book.limit(message.set(buf.getLong(offset), side, size, price));
+                    volume -= size;
+                }
+                if (volume != 0)
+                    throw new IOException("the orders of the level " + price + " do not add up to its volume");
+            }
+        }
+
+        verify(book);
+        if (book.volume() != total)
+            throw new IOException("the restored book has the volume " + book.volume() + " instead of " + total);
+    }
+
+    /**
+     * Compare the levels of a book with the levels of the snapshot.
+     */
+    private void verify(LimitOrderBook book) throws IOException {
+        for (Side side : Side.values()) {
+            int offset = side(side);
+            int levels = buf.getInt(offset);
+            offset += SIDE_SIZE;
+
+            Iterator<Limit> it = book.topN(Integer.MAX_VALUE, side);
+            for (int i = 0; i < levels; i++) {
+                long price = buf.getLong(offset);
+                int count = buf.getInt(offset + 8);
+                long volume = buf.getLong(offset + 16);
+                offset += LEVEL_SIZE + count * ORDER_SIZE;
+
+                if (!it.hasNext())
+                    throw new IOException("the restored book is missing the level " + price);
+                Limit limit = it.next();
+                if (limit.price != price || limit.count != count || limit.volume != volume)
+                    throw new IOException("the restored level " + limit.price + " does not match the level "
+                            + price + " of the snapshot");
+            }
+            if (it.hasNext())
+                throw new IOException("the restored book has more " + side + " levels than the snapshot");
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package lob.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import lob.common.Event;
+import lob.common.Instrument;
+import lob.common.Side;
+import lob.common.TimeInForce;
+
+/**
+ * EventLog defines a compact binary format for a recorded feed of order book
+ * events. A log is a 16 bytes header followed by fixed-width records of 40
+ * bytes, so the n-th event is at `HEADER_SIZE + n * RECORD_SIZE` and a log can
+ * be read without any parsing or searching for line ends.
+ *
+ * <pre>
+ * header:  magic (int) | version (short) | record size (short) | count (int)
+ *          | price scale (byte) | size scale (byte) | reserved (short)
+ * record:  type (byte) | side (byte) | time in force (byte) | flags (byte) | symbol (int)
+ *          | id (long) | size (long) | price (long) | timestamp (long)
+ * </pre>
+ *
+ * All values are little-endian. The side is 0 for buy and 1 for sell like the
+ * `order_type` of Bitstamp. The time in force is the ordinal of `TimeInForce`
+ * and bit 0 of the flags marks a post-only order, both are 0 for a plain good
+ * till cancelled order.
+ * <p>
+ * The sizes and prices are fixed-point numbers, the header records their
+ * scales (see `Instrument`) so that a log can be read back with the scales it
+ * was written with. The scales are shared by every symbol of the log. A log of
+ * version 1 has no scales and uses those of `Instrument.DEFAULT`.
+ * </p>
+ * <p>
+ * The count is the number of records of the log, the file may be longer than
+ * its records, e.g. a `Journal` segment keeps the size it was mapped with and
+ * only publishes its committed records in the count. A log of version 1 has no
+ * count and its records fill the file.
+ * </p>
+ */
+public class EventLog {
+    public final static int MAGIC = 0x31424f4c; // "LOB1" in little-endian
+    public final static short VERSION = 2;
+
+    // The version before the scales were recorded in the header.
+    private final static short VERSION_WITHOUT_SCALES = 1;
+
+    public final static int HEADER_SIZE = 16;
+    public final static int RECORD_SIZE = 40;
+
+    public final static ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    // The flag of a post-only order.
+    private final static byte POST_ONLY = 1;
+
+    private final static TimeInForce[] TIME_IN_FORCE = TimeInForce.values();
+
+    private EventLog() {
+    }
+
+    /**
+     * Write the header at the start of a buffer.
+     *
+     * @param buf        - A little-endian buffer with at least `HEADER_SIZE` bytes.
+     * @param instrument - The instrument whose scales the sizes and prices have.
+     */
+    static void writeHeader(ByteBuffer buf, Instrument instrument) {
+        buf.putInt(0, MAGIC);
+        buf.putShort(4, VERSION);
+        buf.putShort(6, (short) RECORD_SIZE);
+        buf.putInt(8, 0);
+        buf.put(12, (byte) instrument.priceScale);
+        buf.put(13, (byte) instrument.sizeScale);
+        buf.putShort(14, (short) 0);
+    }
+
+    /**
+     * Check the header at the start of a buffer.
+     *
+     * @param buf - A little-endian buffer.
+     * @throws IOException if the buffer does not start with a supported header.
+     */
+    static void checkHeader(ByteBuffer buf) throws IOException {
+        if (buf.limit() < HEADER_SIZE || buf.getInt(0) != MAGIC)
+            throw new IOException("not an event log");
+        short version = buf.getShort(4);
+        if ((version != VERSION && version != VERSION_WITHOUT_SCALES) || buf.getShort(6) != RECORD_SIZE)
+            throw new IOException("unsupported event log version " + buf.getShort(4));
+        if ((buf.limit() - HEADER_SIZE) % RECORD_SIZE != 0)
+            throw new IOException("the event log ends with a partial record");
+    }
+
+    /**
+     * Returns the price scale recorded in a header checked by `checkHeader`.
+     */
+    static int priceScale(ByteBuffer buf) {
+        return buf.getShort(4) == VERSION_WITHOUT_SCALES ? Instrument.DEFAULT.priceScale : buf.get(12);
+    }
+
+    /**
+     * Returns the size scale recorded in a header checked by `checkHeader`.
+     */
+    static int sizeScale(ByteBuffer buf) {
+        return buf.getShort(4) == VERSION_WITHOUT_SCALES ? Instrument.DEFAULT.sizeScale : buf.get(13);
+    }
+
+    /**
+     * Returns the number of records of a log checked by `checkHeader`, at most
+     * the number of records that fit in the buffer.
+     */
+    static int count(ByteBuffer buf) {
+        int records = (buf.limit() - HEADER_SIZE) / RECORD_SIZE;
+        return buf.getShort(4) == VERSION_WITHOUT_SCALES ? records : Math.min(buf.getInt(8), records);
+    }
+
+    /**
+     * Encode an event at an absolute offset of a buffer, the position of the
+     * buffer is not changed.
+     *
+     * @param buf    - A little-endian buffer.
+     * @param offset - The offset of the record.
+     * @param event  - The event to encode.
+     */
+    public static void encode(ByteBuffer buf, int offset, Event event) {
+        buf.put(offset, event.type);
+        buf.put(offset + 1, (byte) (event.side == Side.SELL ? 1 : 0));
+        buf.put(offset + 2, (byte) event.timeInForce.ordinal());
+        buf.put(offset + 3, (byte) (event.postOnly ? POST_ONLY : 0));
+        buf.putInt(offset + 4, event.symbol);
+        buf.putLong(offset + 8, event.id);
+        buf.putLong(offset + 16, event.size);
+        buf.putLong(offset + 24, event.price);
+        buf.putLong(offset + 32, event.timestamp);
+    }
+
+    /**
+     * Decode the record at an absolute offset of a buffer into an event, the
+     * position of the buffer is not changed so many threads can decode from the
+     * same buffer.
+     *
+     * @param buf    - A little-endian buffer.
+     * @param offset - The offset of the record.
+     * @param event  - The event to copy the record into.
+     * @return the event itself.
+     */
+    public static Event decode(ByteBuffer buf, int offset, Event event) {
+        event.type = buf.get(offset);
+        event.side = buf.get(offset + 1) == 0 ? Side.BUY : Side.SELL;
+        event.timeInForce = TIME_IN_FORCE[buf.get(offset + 2)];
+        event.postOnly = (buf.get(offset + 3) & POST_ONLY) != 0;
+        event.symbol = buf.getInt(offset + 4);
+        event.id = buf.getLong(offset + 8);
+        event.size = buf.getLong(offset + 16);
+        event.price = buf.getLong(offset + 24);
+        event.timestamp = buf.getLong(offset + 32);
+        return event;
+    }
+}
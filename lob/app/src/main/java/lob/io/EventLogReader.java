@@ -0,0 +1,114 @@
+package lob.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import lob.LimitOrderBook;
+import lob.common.Event;
+import lob.common.Order;
+
+/**
+ * EventLogReader memory-maps an event log so that events are decoded straight
+ * from the page cache, there is no read call or copy into a buffer per event.
+ * <p>
+ * Reading only uses absolute offsets, so one reader can be shared by many
+ * threads as long as each thread decodes into its own `Event`.
+ * </p>
+ */
+public class EventLogReader implements Closeable {
+    private final FileChannel channel;
+    private final ByteBuffer buf;
+    private final int count;
+
+    /**
+     * Map an event log into memory.
+     *
+     * @param path - The path of the log.
+     * @throws IOException if the file is not an event log or is larger than 2GB
+     *                     (about 53 million events) which cannot be mapped at once.
+     */
+    public EventLogReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        if (channel.size() > Integer.MAX_VALUE) {
+            channel.close();
+            throw new IOException("the event log is too large to be mapped: " + channel.size() + " bytes");
+        }
+
+        buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(EventLog.BYTE_ORDER);
+        try {
+            EventLog.checkHeader(buf);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        count = EventLog.count(buf);
+    }
+
+    /**
+     * Returns the number of decimals of the prices of the events.
+     */
+    public int priceScale() {
+        return EventLog.priceScale(buf);
+    }
+
+    /**
+     * Returns the number of decimals of the sizes of the events.
+     */
+    public int sizeScale() {
+        return EventLog.sizeScale(buf);
+    }
+
+    /**
+     * Returns the number of events in the log.
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Read the n-th event of the log.
+     *
+     * @param index - The index of the event.
+     * @param event - The event to copy the record into.
+     * @return the event itself.
+     */
+    public Event read(int index, Event event) {
+        return EventLog.decode(buf, EventLog.HEADER_SIZE + index * EventLog.RECORD_SIZE, event);
+    }
+
+    /**
+     * Apply every event of the log to an order book in order.
+     *
+     * @param book - The order book.
+     * @return the number of events applied.
+     */
+    public int replay(LimitOrderBook book) {
+        return replay(book, 0, count);
+    }
+
+    /**
+     * Apply a range of events of the log to an order book in order.
+     *
+     * @param book - The order book.
+     * @param from - The index of the first event, inclusive.
+     * @param to   - The index of the last event, exclusive.
+     * @return the number of events applied.
+     */
+    public int replay(LimitOrderBook book, int from, int to) {
+        Event event = new Event();
+        Order message = new Order();
+        for (int i = from; i < to; i++)
+            read(i, event).apply(book, message);
+        return to - from;
+    }
+
+    @Override
+    public void close() throws IOException {
+        // the mapping stays valid until the buffer is garbage collected
+        channel.close();
+    }
+}
@@ -0,0 +1,92 @@
+package lob.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import lob.common.Event;
+import lob.common.Instrument;
+
+/**
+ * EventLogWriter appends events to a new event log file. The records are
+ * encoded into a buffer and written to the file whenever the buffer is full,
+ * `close` must be called to write the remaining records and their count into
+ * the header.
+ */
+public class EventLogWriter implements Closeable {
+    private final static int BUFFER_RECORDS = 4096;
+
+    private final FileChannel channel;
+    private final ByteBuffer buf;
+
+    // The number of events written so far.
+    private long count = 0;
+
+    /**
+     * Create a log at the given path, replacing the file if it exists, for sizes
+     * and prices with the scales of `Instrument.DEFAULT`.
+     *
+     * @param path - The path of the log.
+     */
+    public EventLogWriter(Path path) throws IOException {
+        this(path, Instrument.DEFAULT);
+    }
+
+    /**
+     * Create a log at the given path, replacing the file if it exists.
+     *
+     * @param path       - The path of the log.
+     * @param instrument - The instrument whose scales the sizes and prices of the
+     *                   events have, only its scales are recorded.
+     */
+    public EventLogWriter(Path path, Instrument instrument) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        buf = ByteBuffer.allocateDirect(BUFFER_RECORDS * EventLog.RECORD_SIZE).order(EventLog.BYTE_ORDER);
+
+        EventLog.writeHeader(buf, instrument);
+        buf.position(EventLog.HEADER_SIZE);
+    }
+
+    /**
+     * Returns the number of events written so far.
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Append an event to the log.
+     *
+     * @param event - The event to append.
+     */
+    public void write(Event event) throws IOException {
+        if (buf.remaining() < EventLog.RECORD_SIZE)
+            flush();
+
+        EventLog.encode(buf, buf.position(), event);
+        buf.position(buf.position() + EventLog.RECORD_SIZE);
+        count++;
+    }
+
+    /**
+     * Write the buffered records to the file.
+     */
+    public void flush() throws IOException {
+        buf.flip();
+        while (buf.hasRemaining())
+            channel.write(buf);
+        buf.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        buf.putInt(0, (int) Math.min(count, Integer.MAX_VALUE)).limit(Integer.BYTES);
+        channel.write(buf, 8);
+        channel.close();
+    }
+}
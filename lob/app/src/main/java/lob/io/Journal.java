@@ -0,0 +1,301 @@
+package lob.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import lob.LimitOrderBook;
+import lob.common.Event;
+import lob.common.Instrument;
+import lob.common.Order;
+
+/**
+ * Journal is an append-only write-ahead log of the commands applied to a book,
+ * so that a book can be recovered after a crash from its last `BookSnapshot`
+ * and the commands journaled after it.
+ * <p>
+ * The journal is a directory of segments. A segment is an `EventLog` file of a
+ * fixed number of records that is memory-mapped when it is created, so
+ * appending a command only encodes 40 bytes into the page cache. The number of
+ * committed records of a segment is kept in the reserved bytes of its header.
+ * A segment is named after the sequence of its first record, the sequence of a
+ * record being its index since the journal was first created.
+ * </p>
+ * <p>
+ * Commands are committed in groups: `commit` forces the records appended since
+ * the last commit to the disk and then publishes the new count in the header,
+ * so a crash can lose at most the uncommitted records and never exposes a torn
+ * record. `append` commits by itself every `batch` records. Without `sync` the
+ * commit only publishes the count, the records then survive a crash of the
+ * process but not of the machine.
+ * </p>
+ * <p>
+ * A journal is written by a single thread. A segment keeps the size it was
+ * mapped with, the file is not shrunk to its records since a mapped file cannot
+ * be truncated on every platform (Windows forbids it), but `EventLogReader`
+ * reads only the committed records of the header so a segment can also be read
+ * with it.
+ * </p>
+ */
+public class Journal implements Closeable {
+    private final static String SUFFIX = ".wal";
+
+    // The offset of the number of committed records in the header of a segment,
+    // the count of `EventLog`. A segment of version 1 kept it as a long, whose
+    // low half is the same int in little-endian.
+    private final static int COMMITTED = 8;
+
+    private final Path dir;
+    private final int segmentRecords;
+    private final int batch;
+    private final boolean sync;
+
+    // The instrument whose scales the sizes and prices of the commands have.
+    private final Instrument instrument;
+
+    // The segment being appended to and the sequence of its first record.
+    private FileChannel channel;
+    private MappedByteBuffer buf;
+    private long base;
+
+    // The number of records written to the current segment and committed in it.
+    private int written = 0;
+    private int committed = 0;
+
+    /**
+     * Open the journal of a directory for appending, creating the directory if
+     * needed. The records are appended after the last committed record of the
+     * existing segments, in a new segment.
+     *
+     * @param dir            - The directory of the segments.
+     * @param segmentRecords - The number of records per segment.
+     * @param batch          - The number of records appended between two commits.
+     * @param sync           - Whether a commit forces the records to the disk.
+     */
+    public Journal(Path dir, int segmentRecords, int batch, boolean sync) throws IOException {
+        this(dir, segmentRecords, batch, sync, Instrument.DEFAULT);
+    }
+
+    /**
+     * Open the journal of a directory for appending, for commands whose sizes and
+     * prices have the scales of an instrument, the scales are recorded in the
+     * header of every segment.
+     *
+     * @param dir            - The directory of the segments.
+     * @param segmentRecords - The number of records per segment.
+     * @param batch          - The number of records appended between two commits.
+     * @param sync           - Whether a commit forces the records to the disk.
+     * @param instrument     - The instrument whose scales the commands have.
+     */
+    public Journal(Path dir, int segmentRecords, int batch, boolean sync, Instrument instrument)
+            throws IOException {
+        if (segmentRecords < 1 || batch < 1)
+            throw new IllegalArgumentException("the segment size and the batch must be positive");
+
+        this.dir = dir;
+        this.segmentRecords = segmentRecords;
+        this.batch = batch;
+        this.sync = sync;
+        this.instrument = instrument;
+
+        Files.createDirectories(dir);
+        List<Path> segments = segments(dir);
+        long next = 0;
+        if (!segments.isEmpty()) {
+            Path last = segments.get(segments.size() - 1);
+            next = first(last) + committed(last);
+            if (next == first(last)) // nothing was committed, the new segment takes its name
+                Files.delete(last);
+        }
+        open(next);
+    }
+
+    /**
+     * Returns the sequence of the next record, i.e. the number of records ever
+     * appended to the journal.
+     */
+    public long sequence() {
+        return base + written;
+    }
+
+    /**
+     * Returns the number of records that survive a crash.
+     */
+    public long committed() {
+        return base + committed;
+    }
+
+    /**
+     * Append a command to the journal, it is committed with the rest of its
+     * batch.
+     *
+     * @param event - The command, its symbol is kept.
+     */
+    public void append(Event event) throws IOException {
+        if (written == segmentRecords)
+            roll();
+
+        EventLog.encode(buf, EventLog.HEADER_SIZE + written * EventLog.RECORD_SIZE, event);
+        if (++written - committed >= batch)
+            commit();
+    }
+
+    /**
+     * Make every appended record durable.
+     */
+    public void commit() throws IOException {
+        if (written == committed)
+            return;
+
+        if (sync) // the records reach the disk before the count that exposes them
+            buf.force(EventLog.HEADER_SIZE + committed * EventLog.RECORD_SIZE,
+                    (written - committed) * EventLog.RECORD_SIZE);
+        buf.putInt(COMMITTED, written);
+        if (sync)
+            buf.force(0, EventLog.HEADER_SIZE);
+        committed = written;
+    }
+
+    /**
+     * Delete the segments whose records all come before a sequence, e.g. the
+     * sequence of a snapshot that was written.
+     *
+     * @param sequence - The first sequence that must be kept.
+     */
+    public void truncate(long sequence) throws IOException {
+        List<Path> segments = segments(dir);
+        for (int i = 0; i + 1 < segments.size(); i++) {
+            if (first(segments.get(i + 1)) > sequence)
+                break;
+            Files.delete(segments.get(i));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        commit();
+        channel.close();
+    }
+
+    /**
+     * Commit the current segment and continue in a new one.
+     */
+    private void roll() throws IOException {
+        commit();
+        channel.close();
+        open(base + written);
+    }
+
+    /**
+     * Create and map a new segment.
+     */
+    private void open(long first) throws IOException {
+        Path path = dir.resolve(String.format("%020d%s", first, SUFFIX));
+        channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        buf = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                EventLog.HEADER_SIZE + (long) segmentRecords * EventLog.RECORD_SIZE);
+        buf.order(EventLog.BYTE_ORDER);
+        EventLog.writeHeader(buf, instrument);
+        buf.force(0, EventLog.HEADER_SIZE);
+
+        base = first;
+        written = 0;
+        committed = 0;
+    }
+
+    /**
+     * Rebuild a book after a crash: restore a snapshot, if any, then apply every
+     * committed record of the journal from the sequence of the snapshot on.
+     *
+     * @param dir      - The directory of the segments.
+     * @param snapshot - The last snapshot of the book, or null to replay the whole
+     *                 journal.
+     * @param book     - An empty order book.
+     * @return the sequence of the next record, the position the book has reached.
+     * @throws IOException if a segment is not readable, the journal does not go
+     *                     back as far as the snapshot or the scales of a segment
+     *                     are not those of the snapshot or of the other segments.
+     */
+    public static long recover(Path dir, BookSnapshot snapshot, LimitOrderBook book) throws IOException {
+        long sequence = 0;
+        int priceScale = -1, sizeScale = -1; // the scales of the records, -1 until known
+        if (snapshot != null) {
+            snapshot.restore(book);
+            sequence = snapshot.sequence();
+            priceScale = snapshot.priceScale();
+            sizeScale = snapshot.sizeScale();
+        }
+
+        List<Path> segments = Files.isDirectory(dir) ? segments(dir) : Collections.emptyList();
+        if (!segments.isEmpty() && first(segments.get(0)) > sequence)
+            throw new IOException("the journal starts at " + first(segments.get(0)) + " after the sequence "
+                    + sequence);
+
+        Event event = new Event();
+        Order message = new Order();
+        for (Path segment : segments) {
+            long first = first(segment);
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                ByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                        .order(EventLog.BYTE_ORDER);
+                if (buf.limit() < EventLog.HEADER_SIZE || buf.getInt(0) != EventLog.MAGIC)
+                    throw new IOException("not a journal segment: " + segment);
+                if (priceScale < 0) {
+                    priceScale = EventLog.priceScale(buf);
+                    sizeScale = EventLog.sizeScale(buf);
+                } else if (EventLog.priceScale(buf) != priceScale || EventLog.sizeScale(buf) != sizeScale)
+                    throw new IOException("the scales of " + segment + " are not " + priceScale + " and " + sizeScale);
+
+                long count = buf.getInt(COMMITTED);
+                for (long i = Math.max(0, sequence - first); i < count; i++) {
+                    EventLog.decode(buf, EventLog.HEADER_SIZE + (int) i * EventLog.RECORD_SIZE, event);
+                    event.apply(book, message);
+                }
+                sequence = Math.max(sequence, first + count);
+            }
+        }
+        return sequence;
+    }
+
+    /**
+     * Returns the segments of a directory in the order of their records.
+     */
+    private static List<Path> segments(Path dir) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+            for (Path path : stream)
+                segments.add(path);
+        }
+        Collections.sort(segments); // the names are zero padded
+        return segments;
+    }
+
+    /**
+     * Returns the sequence of the first record of a segment.
+     */
+    private static long first(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    /**
+     * Returns the number of committed records of a segment.
+     */
+    private static long committed(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(EventLog.HEADER_SIZE).order(EventLog.BYTE_ORDER);
+            channel.read(header, 0);
+            return header.getInt(COMMITTED);
+        }
+    }
+}
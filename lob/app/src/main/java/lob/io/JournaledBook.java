@@ -0,0 +1,131 @@
+package lob.io;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+
+import lob.DepthListener;
+import lob.ExecutionListener;
+import lob.LimitOrderBook;
+import lob.common.Event;
+import lob.common.Order;
+import lob.common.Side;
+import lob.v1.Limit;
+
+/**
+ * JournaledBook wraps an order book so that every `limit`, `market`, `cancel`
+ * and `amend` is appended to a `Journal` before it is applied. The book can
+ * then be rebuilt after a crash with `Journal.recover`, from a snapshot
+ * captured with `BookSnapshot.capture(book, journal.sequence())` and the
+ * commands journaled after it.
+ * <p>
+ * Only the thread that writes the book may use the journal. An error of the
+ * journal is thrown as an `UncheckedIOException` and the command is not
+ * applied.
+ * </p>
+ */
+public class JournaledBook implements LimitOrderBook {
+    private final LimitOrderBook book;
+    private final Journal journal;
+
+    // Reused to encode every command.
+    private final Event event = new Event();
+
+    /**
+     * Wrap a book, the book must not be used directly afterwards.
+     *
+     * @param book    - The order book.
+     * @param journal - The journal the commands are appended to.
+     */
+    public JournaledBook(LimitOrderBook book, Journal journal) {
+        this.book = book;
+        this.journal = journal;
+    }
+
+    /**
+     * Returns the journal of the book.
+     */
+    public Journal journal() {
+        return journal;
+    }
+
+    private void append(Event event) {
+        try {
+            journal.append(event);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void limit(Order order) {
+        event.set(Event.LIMIT, order.side, order.id, order.size, order.price, 0);
+        event.timeInForce = order.timeInForce;
+        event.postOnly = order.postOnly;
+        append(event);
+        book.limit(order);
+    }
+
+    @Override
+    public void market(Order order) {
+        append(event.set(Event.MARKET, order.side, order.id, order.size, order.price, 0));
+        book.market(order);
+    }
+
+    @Override
+    public void cancel(long orderId) {
+        append(event.set(Event.CANCEL, Side.BUY, orderId, 0, 0, 0));
+        book.cancel(orderId);
+    }
+
+    @Override
+    public void amend(long orderId, long size) {
+        append(event.set(Event.AMEND, Side.BUY, orderId, size, 0, 0));
+        book.amend(orderId, size);
+    }
+
+    @Override
+    public long bestBuy() {
+        return book.bestBuy();
+    }
+
+    @Override
+    public long bestSell() {
+        return book.bestSell();
+    }
+
+    @Override
+    public long volume() {
+        return book.volume();
+    }
+
+    @Override
+    public Iterator<Limit> topN(int n, Side side) {
+        return book.topN(n, side);
+    }
+
+    @Override
+    public long depth(Side side, long price) {
+        return book.depth(side, price);
+    }
+
+    @Override
+    public long priceFor(Side side, long quantity) {
+        return book.priceFor(side, quantity);
+    }
+
+    @Override
+    public long cost(Side side, long quantity) {
+        return book.cost(side, quantity);
+    }
+
+    @Override
+    public void setDepthListener(DepthListener listener) {
+        book.setDepthListener(listener);
+    }
+
+    @Override
+    public void setExecutionListener(ExecutionListener listener) {
+        book.setExecutionListener(listener);
+    }
+}
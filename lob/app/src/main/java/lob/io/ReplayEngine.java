@@ -0,0 +1,189 @@
+package lob.io;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import lob.LimitOrderBook;
+import lob.common.Event;
+import lob.common.Order;
+
+/**
+ * ReplayEngine drives many independent order books from one memory-mapped
+ * event log in parallel, e.g. to backtest many strategies over the same
+ * recorded feed.
+ * <p>
+ * The log is mapped once and shared by every thread: a record is decoded with
+ * absolute reads so the threads never coordinate with each other. Each book is
+ * owned by a single task, hence the books do not need to be thread-safe. The
+ * events are decoded in batches into an array of reused events before they are
+ * applied, so the loop applying the events to the book stays tight.
+ * </p>
+ */
+public class ReplayEngine {
+    // The number of events decoded before they are applied to the book.
+    private final static int BATCH_SIZE = 256;
+
+    private final EventLogReader reader;
+
+    // The indices of the events of every symbol, built on the first replay by symbol.
+    private int[][] bySymbol;
+
+    /**
+     * The outcome of a replay.
+     */
+    public static class Result {
+        // The books after the replay, in the order they were created.
+        public final LimitOrderBook[] books;
+
+        // The total number of events applied over all the books.
+        public final long events;
+
+        // The wall-clock time of the replay in nanoseconds.
+        public final long duration;
+
+        Result(LimitOrderBook[] books, long events, long duration) {
+            this.books = books;
+            this.events = events;
+            this.duration = duration;
+        }
+
+        /**
+         * Returns the aggregate throughput of all the books.
+         */
+        public double eventsPerSecond() {
+            return events * 1e9 / duration;
+        }
+    }
+
+    /**
+     * Create an engine replaying the given log.
+     *
+     * @param reader - The log to replay, it must stay open while the engine is used.
+     */
+    public ReplayEngine(EventLogReader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Replay the whole log into each of a number of books, one task per book.
+     *
+     * @param factory - Creates an empty book.
+     * @param books   - The number of books, e.g. one per strategy.
+     * @param threads - The number of threads, e.g. the number of cores.
+     * @return the books and the aggregate throughput.
+     */
+    public Result replay(Supplier<LimitOrderBook> factory, int books, int threads) throws InterruptedException {
+        LimitOrderBook[] result = new LimitOrderBook[books];
+        for (int i = 0; i < books; i++)
+            result[i] = factory.get();
+
+        List<Runnable> tasks = new ArrayList<>();
+        for (LimitOrderBook book : result)
+            tasks.add(() -> replay(book, null, reader.count()));
+
+        long duration = run(tasks, threads);
+        return new Result(result, (long) books * reader.count(), duration);
+    }
+
+    /**
+     * Replay the log with one book per symbol, every book only receives the
+     * events of its symbol. The books are indexed by symbol in the result.
+     *
+     * @param factory - Creates an empty book.
+     * @param threads - The number of threads, e.g. the number of cores.
+     * @return the books and the aggregate throughput.
+     */
+    public Result replayBySymbol(Supplier<LimitOrderBook> factory, int threads) throws InterruptedException {
+        int[][] indices = bySymbol();
+
+        LimitOrderBook[] result = new LimitOrderBook[indices.length];
+        List<Runnable> tasks = new ArrayList<>();
+        for (int symbol = 0; symbol < indices.length; symbol++) {
+            LimitOrderBook book = result[symbol] = factory.get();
+            int[] events = indices[symbol];
+            tasks.add(() -> replay(book, events, events.length));
+        }
+
+        long duration = run(tasks, threads);
+        return new Result(result, reader.count(), duration);
+    }
+
+    /**
+     * Apply events of the log to a book in batches.
+     *
+     * @param book    - The book.
+     * @param indices - The indices of the events to apply, null for every event.
+     * @param count   - The number of events to apply.
+     */
+    private void replay(LimitOrderBook book, int[] indices, int count) {
+        Event[] batch = new Event[BATCH_SIZE];
+        for (int i = 0; i < BATCH_SIZE; i++)
+            batch[i] = new Event();
+        Order message = new Order();
+
+        for (int start = 0; start < count; start += BATCH_SIZE) {
+            int size = Math.min(BATCH_SIZE, count - start);
+            for (int i = 0; i < size; i++)
+                reader.read(indices == null ? start + i : indices[start + i], batch[i]);
+            for (int i = 0; i < size; i++)
+                batch[i].apply(book, message);
+        }
+    }
+
+    /**
+     * Run the tasks on a pool of threads and wait for all of them to finish.
+     *
+     * @return the wall-clock time in nanoseconds.
+     */
+    private long run(List<Runnable> tasks, int threads) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, tasks.size())));
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (Runnable task : tasks)
+                futures.add(executor.submit(task));
+            for (Future<?> future : futures)
+                future.get();
+            return System.nanoTime() - start;
+        } catch (ExecutionException e) {
+            throw new RuntimeException("replay failed", e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Group the indices of the events by symbol, this scans the log once.
+     */
+    private int[][] bySymbol() {
+        if (bySymbol != null)
+            return bySymbol;
+
+        Event event = new Event();
+        int[] counts = new int[0];
+        for (int i = 0; i < reader.count(); i++) {
+            int symbol = reader.read(i, event).symbol;
+            if (symbol >= counts.length)
+                counts = Arrays.copyOf(counts, symbol + 1);
+            counts[symbol]++;
+        }
+
+        int[][] indices = new int[counts.length][];
+        for (int symbol = 0; symbol < counts.length; symbol++)
+            indices[symbol] = new int[counts[symbol]];
+
+        int[] filled = new int[counts.length];
+        for (int i = 0; i < reader.count(); i++) {
+            int symbol = reader.read(i, event).symbol;
+            indices[symbol][filled[symbol]++] = i;
+        }
+
+        return bySymbol = indices;
+    }
+}
@@ -0,0 +1,216 @@
+package lob.metrics;
+
+import java.util.Iterator;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.SingleWriterRecorder;
+
+import lob.DepthListener;
+import lob.ExecutionListener;
+import lob.LimitOrderBook;
+import lob.common.Execution;
+import lob.common.Order;
+import lob.common.Side;
+import lob.metrics.OperationStats.Operation;
+import lob.v1.Limit;
+
+/**
+ * InstrumentedBook wraps an order book and records the latency of every
+ * `limit`, `market`, `cancel`, `amend` and `topN` call into an HdrHistogram, as
+ * well as the number of price levels each market order takes liquidity from.
+ * <p>
+ * The histograms are recorded wait-free by the thread that writes the book and
+ * can be taken by another thread at any time with `snapshot`, which returns the
+ * recordings since the previous snapshot. Calling it periodically (e.g. every
+ * few seconds from a scheduled task) gives the percentiles of every interval.
+ * </p>
+ * <p>
+ * Recording costs two `System.nanoTime` calls per operation. When the book is
+ * disabled the operations are forwarded after a single volatile read. `topN`
+ * only measures creating the iterator, the levels are walked by the caller.
+ * </p>
+ */
+public class InstrumentedBook implements LimitOrderBook {
+    // The largest latency and level count recorded, larger values are clamped.
+    private final static long MAX_LATENCY = 10_000_000_000L;
+    private final static long MAX_LEVELS = 1 << 20;
+
+    // The number of significant decimal digits kept by the histograms.
+    private final static int PRECISION = 2;
+
+    private final LimitOrderBook book;
+
+    // One recorder per operation, indexed by the ordinal of the operation.
+    private final SingleWriterRecorder[] latencies;
+    private final SingleWriterRecorder levels;
+
+    private volatile boolean enabled = true;
+
+    // The execution listener of the caller, if any, and the levels touched by the
+    // current market order.
+    private ExecutionListener listener;
+    private int touched = 0;
+    private long lastPrice = 0;
+
+    /**
+     * Wrap a book, the book must not be used directly afterwards. The recording
+     * starts enabled.
+     *
+     * @param book - The order book.
+     */
+    public InstrumentedBook(LimitOrderBook book) {
+        this.book = book;
+        this.latencies = new SingleWriterRecorder[Operation.values().length];
+        for (int i = 0; i < latencies.length; i++)
+            latencies[i] = new SingleWriterRecorder(1, MAX_LATENCY, PRECISION);
+        this.levels = new SingleWriterRecorder(1, MAX_LEVELS, PRECISION);
+        book.setExecutionListener(this::onExecution);
+    }
+
+    /**
+     * Turn the recording on or off, it can be called from any thread.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Take the recordings since the previous snapshot (or since the book was
+     * wrapped) and start a new interval. It can be called from any thread, but
+     * from only one thread at a time.
+     *
+     * @return the stats of the interval.
+     */
+    public synchronized OperationStats snapshot() {
+        Histogram[] histograms = new Histogram[latencies.length];
+        for (int i = 0; i < latencies.length; i++)
+            histograms[i] = latencies[i].getIntervalHistogram();
+        return new OperationStats(histograms, levels.getIntervalHistogram());
+    }
+
+    private void record(Operation op, long nanos) {
+        latencies[op.ordinal()].recordValue(Math.min(Math.max(nanos, 1), MAX_LATENCY));
+    }
+
+    /**
+     * Count the levels of the current market order, the fills of an order come
+     * level by level so a level starts whenever the price changes.
+     */
+    private void onExecution(Execution execution) {
+        if (touched == 0 || execution.price != lastPrice) {
+            touched++;
+            lastPrice = execution.price;
+        }
+        if (listener != null)
+            listener.onExecution(execution);
+    }
+
+    @Override
+    public void limit(Order order) {
+        if (!enabled) {
+            book.limit(order);
+            return;
+        }
+
+        long start = System.nanoTime();
+        book.limit(order);
+        record(Operation.LIMIT, System.nanoTime() - start);
+    }
+
+    @Override
+    public void market(Order order) {
+        if (!enabled) {
+            book.market(order);
+            return;
+        }
+
+        touched = 0;
+        long start = System.nanoTime();
+        book.market(order);
+        record(Operation.MARKET, System.nanoTime() - start);
+        levels.recordValue(Math.min(touched, MAX_LEVELS));
+    }
+
+    @Override
+    public void cancel(long orderId) {
+        if (!enabled) {
+            book.cancel(orderId);
+            return;
+        }
+
+        long start = System.nanoTime();
+        book.cancel(orderId);
+        record(Operation.CANCEL, System.nanoTime() - start);
+    }
+
+    @Override
+    public void amend(long orderId, long size) {
+        if (!enabled) {
+            book.amend(orderId, size);
+            return;
+        }
+
+        long start = System.nanoTime();
+        book.amend(orderId, size);
+        record(Operation.AMEND, System.nanoTime() - start);
+    }
+
+    @Override
+    public long bestBuy() {
+        return book.bestBuy();
+    }
+
+    @Override
+    public long bestSell() {
+        return book.bestSell();
+    }
+
+    @Override
+    public long volume() {
+        return book.volume();
+    }
+
+    @Override
+    public Iterator<Limit> topN(int n, Side side) {
+        if (!enabled)
+            return book.topN(n, side);
+
+        long start = System.nanoTime();
+        Iterator<Limit> it = book.topN(n, side);
+        record(Operation.TOP_N, System.nanoTime() - start);
+        return it;
+    }
+
+    @Override
+    public long depth(Side side, long price) {
+        return book.depth(side, price);
+    }
+
+    @Override
+    public long priceFor(Side side, long quantity) {
+        return book.priceFor(side, quantity);
+    }
+
+    @Override
+    public long cost(Side side, long quantity) {
+        return book.cost(side, quantity);
+    }
+
+    @Override
+    public void setDepthListener(DepthListener listener) {
+        book.setDepthListener(listener);
+    }
+
+    /**
+     * Subscribe to the fills of the wrapped book, the book keeps counting the
+     * levels of market orders through its own listener.
+     */
+    @Override
+    public void setExecutionListener(ExecutionListener listener) {
+        this.listener = listener;
+    }
+}
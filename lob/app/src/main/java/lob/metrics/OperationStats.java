@@ -0,0 +1,130 @@
+package lob.metrics;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * OperationStats holds the latency histograms of every operation of a book and
+ * the histogram of the levels touched per market order, over one interval of
+ * an `InstrumentedBook` or over several intervals added together.
+ * <p>
+ * The latencies are in nanoseconds. The object is owned by whoever took the
+ * snapshot, the book never touches it again.
+ * </p>
+ */
+public class OperationStats {
+    /**
+     * The operations of a book that are timed.
+     */
+    public enum Operation {
+        LIMIT, MARKET, CANCEL, AMEND, TOP_N
+    }
+
+    // The columns written by `toCsv`, the first four are the columns of `benchmark.csv`.
+    public final static String CSV_HEADER;
+
+    static {
+        StringBuilder header = new StringBuilder("readDuration,parseDuration,opDuration,count");
+        for (Operation op : Operation.values()) {
+            String name = op == Operation.TOP_N ? "topN" : op.name().toLowerCase();
+            header.append(',').append(name).append("P50");
+            header.append(',').append(name).append("P99");
+            header.append(',').append(name).append("P999");
+            header.append(',').append(name).append("Max");
+        }
+        header.append(",levelsP50,levelsP99,levelsMax");
+        CSV_HEADER = header.toString();
+    }
+
+    private final Histogram[] latencies;
+    private final Histogram levels;
+
+    OperationStats(Histogram[] latencies, Histogram levels) {
+        this.latencies = latencies;
+        this.levels = levels;
+    }
+
+    /**
+     * Returns the latencies of an operation in nanoseconds.
+     */
+    public Histogram latency(Operation op) {
+        return latencies[op.ordinal()];
+    }
+
+    /**
+     * Returns the number of price levels every market order took liquidity from.
+     */
+    public Histogram levels() {
+        return levels;
+    }
+
+    /**
+     * Returns the number of operations recorded.
+     */
+    public long count() {
+        long count = 0;
+        for (Histogram histogram : latencies)
+            count += histogram.getTotalCount();
+        return count;
+    }
+
+    /**
+     * Returns the time spent in all the operations in nanoseconds, it is exact up
+     * to the precision of the histograms.
+     */
+    public long duration() {
+        long duration = 0;
+        for (Histogram histogram : latencies)
+            duration += (long) (histogram.getMean() * histogram.getTotalCount());
+        return duration;
+    }
+
+    /**
+     * Add the recordings of other stats, e.g. to keep a total over every interval.
+     *
+     * @return the stats themselves.
+     */
+    public OperationStats add(OperationStats other) {
+        for (int i = 0; i < latencies.length; i++)
+            latencies[i].add(other.latencies[i]);
+        levels.add(other.levels);
+        return this;
+    }
+
+    /**
+     * Format the stats as a row under `CSV_HEADER`. The order book does not read
+     * or parse the messages, so those durations are given by the caller.
+     *
+     * @param readDuration  - The time spent reading the messages, 0 if unknown.
+     * @param parseDuration - The time spent parsing the messages, 0 if unknown.
+     */
+    public String toCsv(long readDuration, long parseDuration) {
+        StringBuilder row = new StringBuilder();
+        row.append(readDuration).append(',').append(parseDuration).append(',').append(duration()).append(',')
+                .append(count());
+        for (Histogram histogram : latencies) {
+            row.append(',').append(histogram.getValueAtPercentile(50));
+            row.append(',').append(histogram.getValueAtPercentile(99));
+            row.append(',').append(histogram.getValueAtPercentile(99.9));
+            row.append(',').append(histogram.getMaxValue());
+        }
+        row.append(',').append(levels.getValueAtPercentile(50));
+        row.append(',').append(levels.getValueAtPercentile(99));
+        row.append(',').append(levels.getMaxValue());
+        return row.toString();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+        for (Operation op : Operation.values()) {
+            Histogram histogram = latency(op);
+            s.append(String.format("%-6s count: %d p50: %dns p99: %dns p99.9: %dns max: %dns\n", op,
+                    histogram.getTotalCount(), histogram.getValueAtPercentile(50),
+                    histogram.getValueAtPercentile(99), histogram.getValueAtPercentile(99.9),
+                    histogram.getMaxValue()));
+        }
+        s.append(String.format("levels per market order p50: %d p99: %d max: %d", levels.getValueAtPercentile(50),
+                levels.getValueAtPercentile(99), levels.getMaxValue()));
+        return s.toString();
+    }
+}
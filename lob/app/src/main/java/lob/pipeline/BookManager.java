@@ -0,0 +1,191 @@
+package lob.pipeline;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import lob.LimitOrderBook;
+import lob.common.Event;
+import lob.exchange.BitstampOrder;
+
+/**
+ * BookManager keeps one order book per symbol and spreads the symbols over a
+ * fixed number of shards. Every shard is a `MatchingEngine` with its own ring
+ * buffer and matching thread that owns the books of its symbols, so a symbol is
+ * always matched on the same thread and the shards never share a lock or a
+ * book.
+ * <p>
+ * The symbols are registered before the manager is started and are assigned to
+ * the shards round-robin. The events are routed by the `channel` of the
+ * Bitstamp messages (or by the `symbol` of an `Event`), only one thread may
+ * publish events since every ring has a single producer.
+ * </p>
+ */
+public class BookManager implements AutoCloseable {
+    private final Supplier<LimitOrderBook> factory;
+    private final MatchingEngine[] shards;
+
+    // The symbol of every channel, the symbols are numbered from 0 in the order
+    // they are registered.
+    private final Map<String, Integer> symbols = new HashMap<>();
+    private final List<String> channels = new ArrayList<>();
+
+    // The number of messages of channels that were not registered.
+    private long dropped = 0;
+
+    private boolean started = false;
+
+    /**
+     * Create a manager without any symbol.
+     *
+     * @param factory  - Creates the book of a symbol.
+     * @param shards   - The number of shards (matching threads), e.g. the number of
+     *                 cores.
+     * @param capacity - The number of events the ring of each shard can hold.
+     * @param depth    - The number of levels per side in the snapshots.
+     */
+    public BookManager(Supplier<LimitOrderBook> factory, int shards, int capacity, int depth) {
+        this.factory = factory;
+        this.shards = new MatchingEngine[shards];
+        for (int i = 0; i < shards; i++)
+            this.shards[i] = new MatchingEngine(capacity, depth, "shard-" + i);
+    }
+
+    /**
+     * Create the book of a channel, this must be done before the manager is
+     * started.
+     *
+     * @param channel - The channel of the symbol, e.g. `live_orders_btcusd`.
+     * @return the symbol of the channel.
+     */
+    public int register(String channel) {
+        if (started)
+            throw new IllegalStateException("symbols must be registered before the manager is started");
+
+        Integer existing = symbols.get(channel);
+        if (existing != null)
+            return existing;
+
+        int symbol = channels.size();
+        symbols.put(channel, symbol);
+        channels.add(channel);
+        shards[shardOf(symbol)].addBook(symbol, factory.get());
+        return symbol;
+    }
+
+    /**
+     * Get the symbol of a channel.
+     *
+     * @return the symbol, or -1 if the channel was not registered.
+     */
+    public int symbol(String channel) {
+        Integer symbol = symbols.get(channel);
+        return symbol == null ? -1 : symbol;
+    }
+
+    /**
+     * Returns the channel of a symbol.
+     */
+    public String channel(int symbol) {
+        return channels.get(symbol);
+    }
+
+    /**
+     * Returns the number of registered symbols.
+     */
+    public int size() {
+        return channels.size();
+    }
+
+    /**
+     * Returns the index of the shard that owns a symbol.
+     */
+    public int shardOf(int symbol) {
+        return symbol % shards.length;
+    }
+
+    /**
+     * Returns a shard, e.g. to read its metrics.
+     */
+    public MatchingEngine shard(int index) {
+        return shards[index];
+    }
+
+    /**
+     * Returns the number of shards.
+     */
+    public int shards() {
+        return shards.length;
+    }
+
+    /**
+     * Returns the number of messages dropped because their channel was not
+     * registered.
+     */
+    public long dropped() {
+        return dropped;
+    }
+
+    /**
+     * Start the matching thread of every shard.
+     */
+    public void start() {
+        started = true;
+        for (MatchingEngine shard : shards)
+            shard.start();
+    }
+
+    /**
+     * Route an order message from Bitstamp to the shard of its channel, this can
+     * be passed directly as the `OrderCallback` of the client.
+     *
+     * @param order - The decoded message.
+     */
+    public void publish(BitstampOrder order) {
+        Integer symbol = order.channel == null ? null : symbols.get(order.channel);
+        if (symbol == null) {
+            dropped++;
+            return;
+        }
+
+        MatchingEngine shard = shards[shardOf(symbol)];
+        order.toEvent(shard.claim()).symbol = symbol;
+        shard.publish();
+    }
+
+    /**
+     * Route an event to the shard of its symbol, the event is copied into the
+     * ring of the shard.
+     *
+     * @param event - The event.
+     */
+    public void publish(Event event) {
+        if (event.symbol < 0 || event.symbol >= channels.size()) {
+            dropped++;
+            return;
+        }
+
+        MatchingEngine shard = shards[shardOf(event.symbol)];
+        shard.claim().set(event);
+        shard.publish();
+    }
+
+    /**
+     * Returns the latest snapshot of the book of a symbol, it can be called from
+     * any thread.
+     */
+    public Snapshot snapshot(int symbol) {
+        return shards[shardOf(symbol)].snapshot(symbol);
+    }
+
+    /**
+     * Stop every shard once it has applied every published event.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        for (MatchingEngine shard : shards)
+            shard.close();
+    }
+}
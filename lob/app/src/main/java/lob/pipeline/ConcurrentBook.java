@@ -0,0 +1,276 @@
+package lob.pipeline;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import lob.DepthListener;
+import lob.ExecutionListener;
+import lob.LimitOrderBook;
+import lob.common.Order;
+import lob.common.Side;
+import lob.v1.Limit;
+
+/**
+ * ConcurrentBook wraps an order book that is written by a single thread so that
+ * any number of other threads can read the top of the book at the same time,
+ * without locks and without ever blocking the writer.
+ * <p>
+ * After every change the writer copies the best prices, the volume and the top
+ * `depth` levels of each side into a flat array guarded by a seqlock: the
+ * version is odd while the array is being written and is incremented again
+ * once the copy is complete. A reader copies the array and retries if the
+ * version was odd or changed while it was copying, so a reader never sees a
+ * torn state and the writer never waits for readers.
+ * </p>
+ * <p>
+ * Only one thread may call `limit`, `market`, `cancel` and `amend`. `read` does
+ * not allocate, `topN` allocates a copy of the levels on every call. The depth
+ * queries (`depth`, `priceFor` and `cost`) only see the copied levels.
+ * </p>
+ */
+public class ConcurrentBook implements LimitOrderBook {
+    private final static VarHandle VERSION;
+
+    static {
+        try {
+            VERSION = MethodHandles.lookup().findVarHandle(ConcurrentBook.class, "version", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // The layout of the state array, every level takes 3 slots: price, volume, count.
+    private final static int BEST_BUY = 0, BEST_SELL = 1, VOLUME = 2, BIDS = 3, ASKS = 4, LEVELS = 5;
+
+    /**
+     * A consistent copy of the top of the book, reused across reads.
+     */
+    public static class Depth {
+        public long bestBuy, bestSell, volume;
+
+        // The number of levels copied on each side, at most the depth of the book.
+        public int bids, asks;
+
+        // The levels of each side with the best price first.
+        public final long[] bidPrice, bidVolume, askPrice, askVolume;
+        public final int[] bidCount, askCount;
+
+        private final long[] state;
+
+        /**
+         * Create a buffer for the given number of levels per side, it should be the
+         * depth of the book it reads from.
+         */
+        public Depth(int depth) {
+            bidPrice = new long[depth];
+            bidVolume = new long[depth];
+            bidCount = new int[depth];
+            askPrice = new long[depth];
+            askVolume = new long[depth];
+            askCount = new int[depth];
+            state = new long[LEVELS + 6 * depth];
+        }
+    }
+
+    private final LimitOrderBook book;
+    private final int depth;
+
+    // The published state and its version, odd while the writer is copying.
+    private final long[] state;
+    @SuppressWarnings("unused") // accessed through VERSION
+    private volatile long version = 0;
+
+    // Owned by the writer, the state is built here before it is published.
+    private final long[] pending;
+
+    /**
+     * Wrap a book, the book must not be used directly afterwards.
+     *
+     * @param book  - The order book.
+     * @param depth - The number of levels per side that readers can see.
+     */
+    public ConcurrentBook(LimitOrderBook book, int depth) {
+        this.book = book;
+        this.depth = depth;
+        this.state = new long[LEVELS + 6 * depth];
+        this.pending = new long[state.length];
+    }
+
+    /**
+     * Returns the number of levels per side that readers can see.
+     */
+    public int depth() {
+        return depth;
+    }
+
+    @Override
+    public void limit(Order order) {
+        book.limit(order);
+        publish();
+    }
+
+    @Override
+    public void market(Order order) {
+        book.market(order);
+        publish();
+    }
+
+    @Override
+    public void cancel(long orderId) {
+        book.cancel(orderId);
+        publish();
+    }
+
+    @Override
+    public void amend(long orderId, long size) {
+        book.amend(orderId, size);
+        publish();
+    }
+
+    /**
+     * Subscribe to the level changes of the wrapped book, the listener is called
+     * on the writer thread.
+     */
+    @Override
+    public void setDepthListener(DepthListener listener) {
+        book.setDepthListener(listener);
+    }
+
+    /**
+     * Subscribe to the fills of the wrapped book, the listener is called on the
+     * writer thread.
+     */
+    @Override
+    public void setExecutionListener(ExecutionListener listener) {
+        book.setExecutionListener(listener);
+    }
+
+    /**
+     * Copy the top of the book for readers, this is called by the writer after
+     * every change.
+     */
+    private void publish() {
+        // build the new state first so that the seqlock is held only for a copy
+        pending[BEST_BUY] = book.bestBuy();
+        pending[BEST_SELL] = book.bestSell();
+        pending[VOLUME] = book.volume();
+        pending[BIDS] = levels(Side.BUY, LEVELS);
+        pending[ASKS] = levels(Side.SELL, LEVELS + 3 * depth);
+
+        long v = (long) VERSION.getOpaque(this);
+        VERSION.setOpaque(this, v + 1); // odd, readers will retry
+        VarHandle.storeStoreFence(); // the odd version is visible before any of the data
+        System.arraycopy(pending, 0, state, 0, state.length);
+        VERSION.setRelease(this, v + 2); // even, the data is visible before the version
+    }
+
+    private int levels(Side side, int offset) {
+        int n = 0;
+        Iterator<Limit> it = book.topN(depth, side);
+        for (; n < depth && it.hasNext(); n++) {
+            Limit limit = it.next();
+            pending[offset + 3 * n] = limit.price;
+            pending[offset + 3 * n + 1] = limit.volume;
+            pending[offset + 3 * n + 2] = limit.count;
+        }
+        return n;
+    }
+
+    /**
+     * Copy a consistent state of the top of the book, it can be called from any
+     * thread and never blocks the writer.
+     *
+     * @param into - The buffer to copy into, created with the depth of this book.
+     * @return the buffer itself.
+     */
+    public Depth read(Depth into) {
+        long[] copy = into.state;
+        while (true) {
+            long before = (long) VERSION.getAcquire(this); // the data is read after the version
+            if ((before & 1) != 0) { // the writer is in the middle of a copy
+                Thread.onSpinWait();
+                continue;
+            }
+
+            System.arraycopy(state, 0, copy, 0, state.length);
+
+            VarHandle.loadLoadFence(); // the data is read before the version again
+            if ((long) VERSION.getOpaque(this) == before)
+                break;
+        }
+
+        into.bestBuy = copy[BEST_BUY];
+        into.bestSell = copy[BEST_SELL];
+        into.volume = copy[VOLUME];
+        into.bids = (int) copy[BIDS];
+        into.asks = (int) copy[ASKS];
+        for (int i = 0; i < into.bids; i++) {
+            into.bidPrice[i] = copy[LEVELS + 3 * i];
+            into.bidVolume[i] = copy[LEVELS + 3 * i + 1];
+            into.bidCount[i] = (int) copy[LEVELS + 3 * i + 2];
+        }
+        for (int i = 0, offset = LEVELS + 3 * depth; i < into.asks; i++) {
+            into.askPrice[i] = copy[offset + 3 * i];
+            into.askVolume[i] = copy[offset + 3 * i + 1];
+            into.askCount[i] = (int) copy[offset + 3 * i + 2];
+        }
+        return into;
+    }
+
+    @Override
+    public long bestBuy() {
+        return read(BEST_BUY);
+    }
+
+    @Override
+    public long bestSell() {
+        return read(BEST_SELL);
+    }
+
+    @Override
+    public long volume() {
+        return read(VOLUME);
+    }
+
+    /**
+     * Read a single value of the state under the seqlock.
+     */
+    private long read(int index) {
+        while (true) {
+            long before = (long) VERSION.getAcquire(this);
+            long value = state[index];
+            VarHandle.loadLoadFence();
+            if ((before & 1) == 0 && (long) VERSION.getOpaque(this) == before)
+                return value;
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Get a consistent copy of the best levels of a side. Unlike the wrapped book
+     * the limits are copies, they do not link to the resting orders.
+     *
+     * @param n    - The number of levels, at most the depth of this book.
+     * @param side - The side of the book.
+     * @return an iterator over the copied levels, the best price first.
+     */
+    @Override
+    public Iterator<Limit> topN(int n, Side side) {
+        Depth copy = read(new Depth(depth));
+        boolean buy = side == Side.BUY;
+        int count = Math.min(n, buy ? copy.bids : copy.asks);
+
+        List<Limit> levels = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Limit limit = new Limit();
+            limit.price = buy ? copy.bidPrice[i] : copy.askPrice[i];
+            limit.volume = buy ? copy.bidVolume[i] : copy.askVolume[i];
+            limit.count = buy ? copy.bidCount[i] : copy.askCount[i];
+            levels.add(limit);
+        }
+        return levels.iterator();
+    }
+}
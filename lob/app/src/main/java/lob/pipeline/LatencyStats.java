@@ -0,0 +1,47 @@
+package lob.pipeline;
+
+/**
+ * LatencyStats keeps the count, mean and maximum of a latency. It is written by
+ * a single thread (the stage that measures it) and can be read by any thread.
+ */
+public class LatencyStats {
+    private volatile long count = 0;
+    private volatile long total = 0;
+    private volatile long max = 0;
+
+    /**
+     * Record one latency, only the owning thread may call this.
+     *
+     * @param nanos - The latency in nanoseconds.
+     */
+    public void record(long nanos) {
+        total = total + nanos;
+        if (nanos > max)
+            max = nanos;
+        count = count + 1;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Returns the mean latency in nanoseconds, 0 if nothing was recorded.
+     */
+    public long mean() {
+        long n = count;
+        return n == 0 ? 0 : total / n;
+    }
+
+    /**
+     * Returns the maximum latency in nanoseconds.
+     */
+    public long max() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count: %d mean: %dns max: %dns", count(), mean(), max());
+    }
+}
@@ -0,0 +1,373 @@
+package lob.pipeline;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+import lob.LimitOrderBook;
+import lob.common.Event;
+import lob.common.Instrument;
+import lob.common.Order;
+import lob.exchange.BitstampOrder;
+import lob.io.BookSnapshot;
+
+/**
+ * MatchingEngine gives an order book a single writer: the events are published
+ * into a `RingBuffer` by one producer thread (e.g. the `Bitstamp` client) and
+ * applied by a dedicated matching thread which is the only thread that touches
+ * the book. Other threads read the book through immutable `Snapshot`s that the
+ * matching thread publishes after every batch of events.
+ * <p>
+ * An engine can also own the books of several symbols (see `BookManager`), an
+ * event is applied to the book of its `symbol`. The books must be added before
+ * the engine is started.
+ * </p>
+ * <p>
+ * The matching thread drains the ring in batches, applies them and spins for a
+ * short while when the ring is empty before parking, so a burst of events is
+ * applied without waking up the thread for each of them.
+ * </p>
+ * <p>
+ * A full copy of a book can be requested with `capture`, the matching thread
+ * takes it between two batches so the copy is consistent without any lock, and
+ * the returned `BookSnapshot` can be written to disk from another thread.
+ * </p>
+ */
+public class MatchingEngine implements AutoCloseable {
+    // The maximum number of events applied before a snapshot is published.
+    private final static int BATCH_SIZE = 1024;
+
+    // The number of empty polls the matching thread spins before parking.
+    private final static int SPIN_LIMIT = 1000;
+    private final static long PARK_NANOS = 50_000;
+
+    /**
+     * A book owned by the engine and its latest snapshot.
+     */
+    private static class Book {
+        final LimitOrderBook book;
+
+        // Replaced by the matching thread after every batch that changed the book.
+        volatile Snapshot snapshot = Snapshot.EMPTY;
+
+        // The number of events applied to the book and whether the last batch changed it.
+        long sequence = 0;
+        boolean dirty = false;
+
+        Book(LimitOrderBook book) {
+            this.book = book;
+        }
+    }
+
+    private final RingBuffer ring;
+    private final int depth;
+    private final Thread thread;
+
+    // The books indexed by symbol, null for the symbols owned by other engines.
+    private volatile Book[] books = new Book[0];
+
+    // The symbols of the books changed by the current batch.
+    private int[] dirty = new int[0];
+    private int dirtyCount = 0;
+
+    /**
+     * A request for a `BookSnapshot` of the book of a symbol.
+     */
+    private static class Capture {
+        final int symbol;
+        final Instrument instrument;
+        final CompletableFuture<BookSnapshot> future = new CompletableFuture<>();
+
+        Capture(int symbol, Instrument instrument) {
+            this.symbol = symbol;
+            this.instrument = instrument;
+        }
+    }
+
+    // The pending captures, served by the matching thread between batches.
+    private final ConcurrentLinkedQueue<Capture> captures = new ConcurrentLinkedQueue<>();
+
+    private volatile boolean running = false;
+
+    // Owned by the matching thread.
+    private final Order message = new Order();
+
+    // Only written by the matching thread, volatile so that any thread can read it.
+    private volatile long dropped = 0;
+
+    // The time an event waits in the ring and the time it takes to apply it.
+    private final LatencyStats queueLatency = new LatencyStats();
+    private final LatencyStats matchLatency = new LatencyStats();
+
+    private final RingBuffer.EventHandler handler = this::apply;
+
+    /**
+     * Create an engine for a single book, the book gets the symbol 0. The book
+     * must not be used by any other thread once the engine is started.
+     *
+     * @param book     - The order book owned by the engine.
+     * @param capacity - The number of events the ring can hold.
+     * @param depth    - The number of levels per side in the snapshots.
+     */
+    public MatchingEngine(LimitOrderBook book, int capacity, int depth) {
+        this(capacity, depth, "matching-engine");
+        addBook(0, book);
+    }
+
+    /**
+     * Create an engine without any book, they are added with `addBook`.
+     *
+     * @param capacity - The number of events the ring can hold.
+     * @param depth    - The number of levels per side in the snapshots.
+     * @param name     - The name of the matching thread.
+     */
+    public MatchingEngine(int capacity, int depth, String name) {
+        this.ring = new RingBuffer(capacity);
+        this.depth = depth;
+        this.thread = new Thread(this::run, name);
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Hand a book over to the engine, this must be done before the engine is
+     * started.
+     *
+     * @param symbol - The symbol of the events applied to the book.
+     * @param book   - The order book, it must not be used by any other thread.
+     */
+    public void addBook(int symbol, LimitOrderBook book) {
+        if (running)
+            throw new IllegalStateException("books must be added before the engine is started");
+
+        Book[] current = books;
+        Book[] next = Arrays.copyOf(current, Math.max(current.length, symbol + 1));
+        next[symbol] = new Book(book);
+        books = next;
+        dirty = new int[next.length];
+    }
+
+    /**
+     * Start the matching thread.
+     */
+    public void start() {
+        running = true;
+        thread.start();
+    }
+
+    /**
+     * Get a slot to fill with the next event, only the producer thread may call
+     * this and it must call `publish` afterwards.
+     *
+     * @return the event to fill.
+     */
+    public Event claim() {
+        return ring.claim();
+    }
+
+    /**
+     * Hand the claimed event over to the matching thread.
+     */
+    public void publish() {
+        ring.publish();
+        if (ring.size() == 1) // the matching thread may be parked on an empty ring
+            LockSupport.unpark(thread);
+    }
+
+    /**
+     * Publish an order message from Bitstamp to the book of symbol 0, this can be
+     * passed directly as the `OrderCallback` of the client.
+     *
+     * @param order - The decoded message.
+     */
+    public void publish(BitstampOrder order) {
+        order.toEvent(claim()).symbol = 0;
+        publish();
+    }
+
+    /**
+     * Returns the latest snapshot of the book of symbol 0, it can be called from
+     * any thread.
+     */
+    public Snapshot snapshot() {
+        return snapshot(0);
+    }
+
+    /**
+     * Returns the latest snapshot of the book of a symbol, it can be called from
+     * any thread.
+     *
+     * @param symbol - The symbol of the book.
+     * @return the snapshot, or null if the engine does not own the symbol.
+     */
+    public Snapshot snapshot(int symbol) {
+        Book[] current = books;
+        if (symbol < 0 || symbol >= current.length || current[symbol] == null)
+            return null;
+        return current[symbol].snapshot;
+    }
+
+    /**
+     * Request a copy of every resting order of the book of a symbol, it can be
+     * called from any thread. The sequence of the snapshot is the number of
+     * events applied to that book, so for an engine fed from the start of an
+     * `EventLog` of a single symbol it is the index of the next event to replay.
+     *
+     * @param symbol - The symbol of the book.
+     * @return the snapshot, completed by the matching thread after its current
+     *         batch, or exceptionally if the engine does not own the symbol.
+     */
+    public CompletableFuture<BookSnapshot> capture(int symbol) {
+        return capture(symbol, Instrument.DEFAULT);
+    }
+
+    /**
+     * Request a copy of the book of a symbol whose prices and sizes have the
+     * scales of an instrument, see `capture(int)`.
+     *
+     * @param symbol     - The symbol of the book.
+     * @param instrument - The instrument whose scales are recorded in the snapshot.
+     * @return the snapshot.
+     */
+    public CompletableFuture<BookSnapshot> capture(int symbol, Instrument instrument) {
+        Capture capture = new Capture(symbol, instrument);
+        captures.add(capture);
+        LockSupport.unpark(thread);
+        return capture.future;
+    }
+
+    /**
+     * Returns the number of events applied so far.
+     */
+    public long events() {
+        return matchLatency.count();
+    }
+
+    /**
+     * Returns the number of events dropped because the engine has no book for
+     * their symbol, only the matching thread updates it.
+     */
+    public long dropped() {
+        return dropped;
+    }
+
+    /**
+     * Returns the number of events waiting to be applied.
+     */
+    public int queueDepth() {
+        return ring.size();
+    }
+
+    /**
+     * Returns the number of times the producer found the ring full.
+     */
+    public long stalls() {
+        return ring.stalls();
+    }
+
+    /**
+     * Returns the time from publishing an event until the matching thread takes
+     * it.
+     */
+    public LatencyStats queueLatency() {
+        return queueLatency;
+    }
+
+    /**
+     * Returns the time the book takes to apply an event.
+     */
+    public LatencyStats matchLatency() {
+        return matchLatency;
+    }
+
+    /**
+     * Stop the matching thread once it has applied every published event.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(thread);
+        thread.join();
+        serveCaptures(); // the matching thread is gone, the books can be read here
+    }
+
+    private void apply(Event event, long publishTime) {
+        Book[] current = books;
+        if (event.symbol < 0 || event.symbol >= current.length || current[event.symbol] == null) {
+            dropped = dropped + 1; // a single writer, so the read and the write do not race
+            return;
+        }
+        Book book = current[event.symbol];
+
+        long start = System.nanoTime();
+        event.apply(book.book, message);
+        long end = System.nanoTime();
+
+        queueLatency.record(start - publishTime);
+        matchLatency.record(end - start);
+
+        book.sequence++;
+        if (!book.dirty) {
+            book.dirty = true;
+            dirty[dirtyCount++] = event.symbol;
+        }
+    }
+
+    /**
+     * Publish a snapshot of every book changed by the last batch.
+     */
+    private void publishSnapshots() {
+        Book[] current = books;
+        for (int i = 0; i < dirtyCount; i++) {
+            Book book = current[dirty[i]];
+            book.snapshot = Snapshot.of(book.book, depth, book.sequence);
+            book.dirty = false;
+        }
+        dirtyCount = 0;
+    }
+
+    /**
+     * Copy the books requested by `capture`, only the matching thread may call
+     * this.
+     */
+    private void serveCaptures() {
+        Capture capture;
+        while ((capture = captures.poll()) != null) {
+            Book[] current = books;
+            if (capture.symbol < 0 || capture.symbol >= current.length || current[capture.symbol] == null) {
+                capture.future.completeExceptionally(
+                        new IllegalArgumentException("the engine does not own the symbol " + capture.symbol));
+                continue;
+            }
+
+            Book book = current[capture.symbol];
+            try {
+                capture.future.complete(BookSnapshot.capture(book.book, book.sequence, capture.instrument));
+            } catch (IllegalArgumentException e) { // the book does not link its limits to their orders
+                capture.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void run() {
+        int idle = 0;
+        while (true) {
+            if (ring.drain(handler, BATCH_SIZE) > 0) {
+                publishSnapshots();
+                serveCaptures();
+                idle = 0;
+                continue;
+            }
+
+            serveCaptures();
+
+            if (!running && ring.size() == 0)
+                return;
+
+            if (++idle < SPIN_LIMIT)
+                Thread.onSpinWait();
+            else
+                LockSupport.parkNanos(this, PARK_NANOS);
+        }
+    }
+}
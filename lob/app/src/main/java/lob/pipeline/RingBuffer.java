@@ -0,0 +1,149 @@
+package lob.pipeline;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import lob.common.Event;
+
+/**
+ * RingBuffer is a lock-free single-producer single-consumer queue of events.
+ * The events are allocated once when the buffer is created, the producer fills
+ * a slot in place and publishes it, and the consumer reads it in place and
+ * releases it, so nothing is allocated or copied per event.
+ * <p>
+ * The producer and the consumer each own one sequence number, the next slot to
+ * publish and the next slot to consume. A sequence is only written by its
+ * owner and read by the other side with acquire / release semantics, hence no
+ * compare-and-swap or lock is needed. Each side also caches the last value it
+ * read of the other sequence so that it only touches the shared cache line
+ * when the cached value says the buffer is full (or empty).
+ * </p>
+ * <p>
+ * Exactly one thread may call `claim` / `publish` and exactly one thread may
+ * call `drain`.
+ * </p>
+ */
+public class RingBuffer {
+    /**
+     * Receives the events drained from the buffer.
+     */
+    @FunctionalInterface
+    public interface EventHandler {
+        /**
+         * Called for every event in the order they were published. The event is
+         * reused once the handler returns so it must be copied if it is kept.
+         *
+         * @param event       - The event.
+         * @param publishTime - The `System.nanoTime` when the event was published.
+         */
+        public void onEvent(Event event, long publishTime);
+    }
+
+    private final Event[] slots;
+    private final long[] publishTimes;
+    private final int mask;
+
+    // The next sequence to publish (written by the producer) and the next
+    // sequence to consume (written by the consumer). They are 128 bytes apart in
+    // the array so that they never share a cache line.
+    private final AtomicLongArray sequences = new AtomicLongArray(48);
+    private final static int TAIL = 15, HEAD = 31;
+
+    // The producer's last read of the head and the number of times it found the buffer full.
+    private long cachedHead = 0;
+    private volatile long stalls = 0;
+
+    // The consumer's last read of `tail`.
+    private long cachedTail = 0;
+
+    /**
+     * Create a buffer with every slot allocated upfront.
+     *
+     * @param capacity - The number of slots, rounded up to a power of two.
+     */
+    public RingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        slots = new Event[size];
+        publishTimes = new long[size];
+        mask = size - 1;
+        for (int i = 0; i < size; i++)
+            slots[i] = new Event();
+    }
+
+    /**
+     * Returns the number of slots.
+     */
+    public int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * Returns the number of events published but not consumed yet, it can be
+     * called from any thread.
+     */
+    public int size() {
+        return (int) (sequences.get(TAIL) - sequences.get(HEAD));
+    }
+
+    /**
+     * Returns the number of times the producer had to wait for a free slot.
+     */
+    public long stalls() {
+        return stalls;
+    }
+
+    /**
+     * Get the next free slot to fill, spinning while the buffer is full. Only the
+     * producer may call this and it must call `publish` before claiming again.
+     *
+     * @return the event to fill.
+     */
+    public Event claim() {
+        long sequence = sequences.getPlain(TAIL);
+        if (sequence - cachedHead >= slots.length) {
+            cachedHead = sequences.get(HEAD);
+            if (sequence - cachedHead >= slots.length) {
+                stalls = stalls + 1;
+                do {
+                    Thread.onSpinWait();
+                    cachedHead = sequences.get(HEAD);
+                } while (sequence - cachedHead >= slots.length);
+            }
+        }
+        return slots[(int) sequence & mask];
+    }
+
+    /**
+     * Make the claimed slot visible to the consumer.
+     */
+    public void publish() {
+        long sequence = sequences.getPlain(TAIL);
+        publishTimes[(int) sequence & mask] = System.nanoTime();
+        sequences.lazySet(TAIL, sequence + 1); // a release store, the slot is written before the sequence
+    }
+
+    /**
+     * Pass the published events to a handler and free their slots. Only the
+     * consumer may call this.
+     *
+     * @param handler - Receives the events.
+     * @param limit   - The maximum number of events to drain.
+     * @return the number of events drained, 0 if the buffer is empty.
+     */
+    public int drain(EventHandler handler, int limit) {
+        long sequence = sequences.getPlain(HEAD);
+        if (sequence >= cachedTail) {
+            cachedTail = sequences.get(TAIL);
+            if (sequence >= cachedTail)
+                return 0;
+        }
+
+        int count = (int) Math.min(limit, cachedTail - sequence);
+        for (int i = 0; i < count; i++) {
+            int index = (int) (sequence + i) & mask;
+            handler.onEvent(slots[index], publishTimes[index]);
+        }
+
+        sequences.lazySet(HEAD, sequence + count); // free the slots in one store for the whole batch
+        return count;
+    }
+}
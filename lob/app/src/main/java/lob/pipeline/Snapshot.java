@@ -0,0 +1,78 @@
+package lob.pipeline;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import lob.LimitOrderBook;
+import lob.common.Side;
+import lob.v1.Limit;
+
+/**
+ * Snapshot is an immutable copy of the top of an order book, it is built by
+ * the thread that owns the book and can then be read by any thread.
+ */
+public final class Snapshot {
+    /**
+     * An immutable copy of a price level.
+     */
+    public final static class Level {
+        public final long price;
+        public final long volume;
+        public final int count;
+
+        public Level(long price, long volume, int count) {
+            this.price = price;
+            this.volume = volume;
+            this.count = count;
+        }
+
+        @Override
+        public String toString() {
+            return price + " (" + volume + ")";
+        }
+    }
+
+    public final static Snapshot EMPTY = new Snapshot(0, 0, 0, 0, List.of(), List.of());
+
+    // The number of events applied to the book when the snapshot was taken.
+    public final long sequence;
+
+    public final long bestBuy, bestSell, volume;
+
+    // The best levels of each side, the best price first.
+    public final List<Level> bids, asks;
+
+    private Snapshot(long sequence, long bestBuy, long bestSell, long volume, List<Level> bids, List<Level> asks) {
+        this.sequence = sequence;
+        this.bestBuy = bestBuy;
+        this.bestSell = bestSell;
+        this.volume = volume;
+        this.bids = bids;
+        this.asks = asks;
+    }
+
+    /**
+     * Copy the top of a book, this must be called by the thread that owns it.
+     *
+     * @param book     - The order book.
+     * @param depth    - The number of levels to copy on each side.
+     * @param sequence - The number of events applied to the book.
+     * @return the snapshot.
+     */
+    public static Snapshot of(LimitOrderBook book, int depth, long sequence) {
+        return new Snapshot(sequence, book.bestBuy(), book.bestSell(), book.volume(), levels(book, depth, Side.BUY),
+                levels(book, depth, Side.SELL));
+    }
+
+    private static List<Level> levels(LimitOrderBook book, int depth, Side side) {
+        List<Level> levels = new ArrayList<>(depth);
+        Iterator<Limit> it = book.topN(depth, side);
+        while (it.hasNext()) {
+            Limit limit = it.next();
+            levels.add(new Level(limit.price, limit.volume, limit.count));
+        }
+        return Collections.unmodifiableList(levels);
+    }
+}
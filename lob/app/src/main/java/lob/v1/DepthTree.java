@@ -0,0 +1,304 @@
+package lob.v1;
+
+import java.util.Arrays;
+
+import lob.ds.AVL;
+
+/**
+ * DepthTree is an `AVL` tree of limits where every node also keeps the total
+ * volume, number of orders and notional (price times volume) of its subtree.
+ * With these aggregates the cumulative depth up to a price, the price at which
+ * a cumulative quantity is reached and the cost of taking a quantity are found
+ * by walking down a single path, in O(log n) instead of iterating the levels.
+ * The balancing, the free list of nodes and the iterators are the ones of
+ * `AVL`, which calls `update` on every node whose subtree changed.
+ * <p>
+ * Every node keeps the volume and orders of its limit as they were when the
+ * aggregates were last computed. When a limit in the tree changes it only has
+ * to be marked with `touch`, which is O(1), and the aggregates are brought up
+ * to date lazily by the next query: the difference of every touched limit is
+ * added along its path, so a limit that changed many times between two queries
+ * (like the best level of a busy book) is only walked once. Adding, removing
+ * and rotating nodes recomputes them from the limits as usual.
+ * </p>
+ * <p>
+ * The queries walk the levels from either end of the tree, from the lowest
+ * price for asks and from the highest price for bids.
+ * </p>
+ * <p>
+ * The notionals are summed in 128 bits, so the aggregates cannot overflow
+ * whatever the prices and volumes. `notionalFor` throws an
+ * `ArithmeticException` if its result does not fit in a long, e.g. with a
+ * price scale of 2 and a size scale of 8 a cost above about 922 million in the
+ * quote currency.
+ * </p>
+ */
+public class DepthTree extends AVL<Limit> {
+    // The limits touched since the aggregates were last brought up to date, each
+    // limit is in the list once, see `Limit.touched`.
+    private Limit[] touched = new Limit[16];
+    private int touchedCount = 0;
+
+    // The notional summed by `notionalFor`, reused so that a query does not allocate.
+    private final Notional sum = new Notional();
+
+    /**
+     * A node of the tree and the aggregates of its subtree.
+     */
+    private class DepthNode extends Node {
+        // The volume and orders of the limit counted in the aggregates.
+        long ownVolume;
+        int ownCount;
+
+        // The total volume, orders and notional of the subtree.
+        long volume;
+        int count;
+        final Notional notional = new Notional();
+
+        @Override
+        public DepthNode left() {
+            return (DepthNode) super.left();
+        }
+
+        @Override
+        public DepthNode right() {
+            return (DepthNode) super.right();
+        }
+    }
+
+    /**
+     * A signed 128-bit sum of notionals, `high` holds the upper 64 bits.
+     */
+    private static class Notional {
+        long low, high;
+
+        void clear() {
+            low = 0;
+            high = 0;
+        }
+
+        void add(Notional other) {
+            add(other.low, other.high);
+        }
+
+        /**
+         * Add price times size, the full 128-bit product.
+         */
+        void addProduct(long price, long size) {
+            add(price * size, Math.multiplyHigh(price, size));
+        }
+
+        private void add(long otherLow, long otherHigh) {
+            long total = low + otherLow;
+            high += otherHigh + (Long.compareUnsigned(total, low) < 0 ? 1 : 0); // the carry of the low half
+            low = total;
+        }
+
+        /**
+         * Returns the sum as a long.
+         *
+         * @throws ArithmeticException if it does not fit in a long.
+         */
+        long toLong() {
+            if (high != low >> 63)
+                throw new ArithmeticException("the notional overflows a long");
+            return low;
+        }
+    }
+
+    @Override
+    protected Node createNode() {
+        return new DepthNode();
+    }
+
+    /**
+     * Recompute the height and the aggregates of a node from its children and
+     * the current values of its limit.
+     */
+    @Override
+    protected void update(Node n) {
+        super.update(n);
+
+        DepthNode node = (DepthNode) n;
+        Limit limit = node.data();
+        node.ownVolume = limit.volume;
+        node.ownCount = limit.count;
+        node.volume = node.ownVolume;
+        node.count = node.ownCount;
+        node.notional.clear();
+        node.notional.addProduct(limit.price, node.ownVolume);
+
+        DepthNode left = node.left(), right = node.right();
+        if (left != null) {
+            node.volume += left.volume;
+            node.count += left.count;
+            node.notional.add(left.notional);
+        }
+        if (right != null) {
+            node.volume += right.volume;
+            node.count += right.count;
+            node.notional.add(right.notional);
+        }
+    }
+
+    /**
+     * Mark a limit of the tree whose volume or orders changed, the aggregates are
+     * brought up to date by the next query.
+     *
+     * @param limit - The limit that changed.
+     */
+    public void touch(Limit limit) {
+        if (limit.touched)
+            return;
+        limit.touched = true;
+        if (touchedCount == touched.length)
+            touched = Arrays.copyOf(touched, touchedCount * 2);
+        touched[touchedCount++] = limit;
+    }
+
+    /**
+     * Add the changes of the touched limits to the aggregates on their paths.
+     * A touched limit that has left the tree since is skipped, its node was
+     * removed with its latest values.
+     */
+    void flush() {
+        for (int i = 0; i < touchedCount; i++) {
+            Limit limit = touched[i];
+            touched[i] = null;
+            limit.touched = false;
+
+            DepthNode node = (DepthNode) find(limit);
+            if (node == null || node.data() != limit)
+                continue;
+
+            long volume = limit.volume - node.ownVolume;
+            int count = limit.count - node.ownCount;
+            if (volume == 0 && count == 0)
+                continue;
+
+            for (Node n = node.parent(); n != null; n = n.parent()) {
+                DepthNode ancestor = (DepthNode) n;
+                ancestor.volume += volume;
+                ancestor.count += count;
+                ancestor.notional.addProduct(limit.price, volume);
+            }
+            update(node);
+        }
+        touchedCount = 0;
+    }
+
+    private DepthNode top() {
+        return (DepthNode) root();
+    }
+
+    /**
+     * Returns the total volume of the tree.
+     */
+    public long volume() {
+        flush();
+        return volume(top());
+    }
+
+    /**
+     * Returns the total number of orders of the tree.
+     */
+    public int count() {
+        flush();
+        return top() == null ? 0 : top().count;
+    }
+
+    /**
+     * Returns the volume of the limits from one end of the tree up to a price,
+     * inclusive.
+     *
+     * @param price   - The last price counted.
+     * @param fromMax - Whether to count from the highest price down to `price`
+     *                instead of from the lowest price up to it.
+     */
+    public long volumeTo(long price, boolean fromMax) {
+        flush();
+        long volume = 0;
+        DepthNode node = top();
+        while (node != null) {
+            DepthNode near = fromMax ? node.right() : node.left();
+            DepthNode far = fromMax ? node.left() : node.right();
+            if (fromMax ? node.data().price >= price : node.data().price <= price) {
+                volume += volume(near) + node.data().volume;
+                node = far;
+            } else {
+                node = near;
+            }
+        }
+        return volume;
+    }
+
+    /**
+     * Find the limit where the cumulative volume from one end of the tree reaches
+     * a quantity, i.e. the last limit a market order of that quantity would take
+     * from.
+     *
+     * @param quantity - The cumulative volume.
+     * @param fromMax  - Whether to count from the highest price instead of from
+     *                 the lowest price.
+     * @return the limit, or null if the tree holds less than the quantity.
+     */
+    public Limit limitFor(long quantity, boolean fromMax) {
+        flush();
+        DepthNode node = top();
+        if (node == null || node.volume < quantity)
+            return null;
+
+        long remaining = quantity;
+        while (true) {
+            DepthNode near = fromMax ? node.right() : node.left();
+            if (near != null && near.volume >= remaining) {
+                node = near;
+                continue;
+            }
+
+            remaining -= volume(near);
+            if (node.data().volume >= remaining)
+                return node.data();
+            remaining -= node.data().volume;
+            node = fromMax ? node.left() : node.right();
+        }
+    }
+
+    /**
+     * Returns the notional of taking a quantity from one end of the tree, level
+     * by level, i.e. the sum of price times size of the fills of a market order.
+     * If the tree holds less than the quantity, the notional of the whole tree.
+     *
+     * @param quantity - The quantity to take.
+     * @param fromMax  - Whether to take from the highest price instead of from
+     *                 the lowest price.
+     * @throws ArithmeticException if the notional does not fit in a long.
+     */
+    public long notionalFor(long quantity, boolean fromMax) {
+        flush();
+        sum.clear();
+        long remaining = quantity;
+        DepthNode node = top();
+        while (node != null && remaining > 0) {
+            DepthNode near = fromMax ? node.right() : node.left();
+            if (near != null && near.volume >= remaining) {
+                node = near;
+                continue;
+            }
+
+            if (near != null) {
+                sum.add(near.notional);
+                remaining -= near.volume;
+            }
+            long size = Math.min(remaining, node.data().volume);
+            sum.addProduct(node.data().price, size);
+            remaining -= size;
+            node = fromMax ? node.left() : node.right();
+        }
+        return sum.toLong();
+    }
+
+    private static long volume(DepthNode node) {
+        return node == null ? 0 : node.volume;
+    }
+}
@@ -1,45 +1,125 @@
 package lob.v1;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Iterator;
+import java.util.function.Consumer;
 
+import lob.DepthListener;
+import lob.ExecutionListener;
 import lob.LimitOrderBook;
 import lob.common.Order;
 import lob.common.Side;
+import lob.common.TimeInForce;
+import lob.ds.LongMap;
+import lob.ds.Pool;
 import lob.ds.Tree.TraversalOrder;
 
 public class LOB implements LimitOrderBook {
     // The tree for storing buy limit levels.
-    private LimitTree buy = new LimitTree(Side.BUY);
+    private LimitTree buy;
 
     // The tree for storing sell limit levels.
-    private LimitTree sell = new LimitTree(Side.SELL);
+    private LimitTree sell;
 
     // Store the orders according to their id.
-    private HashMap<Long, Order> orders = new HashMap<>();
+    private LongMap<Order> orders;
 
+    // The resting orders are copies of the incoming orders taken from this pool,
+    // they go back to the pool once they are filled or cancelled.
+    private Pool<Order> pool;
+
+    // Removes a fully filled order from the map, created once so that matching
+    // does not allocate a callback for every market order. The order is only
+    // released if it is the one indexed under its id.
+    private final Consumer<Order> removeOrder = order -> {
+        if (orders.get(order.id) != order)
+            return;
+        orders.remove(order.id);
+        pool.release(order);
+    };
+
+    public LOB() {
+        this(LimitTree.TreeType.AVL);
+    }
+
+    /**
+     * Creates an order book whose limit levels are stored in the given kind of
+     * tree.
+     *
+     * @param type - The kind of tree used for both sides of the book.
+     */
+    public LOB(LimitTree.TreeType type) {
+        this(type, 0);
+    }
+
+    /**
+     * Creates an order book whose limit levels are stored in the given kind of
+     * tree, with an order index sized for the expected number of resting orders.
+     *
+     * @param type           - The kind of tree used for both sides of the book.
+     * @param expectedOrders - The number of resting orders the book is expected to
+     *                       hold, the index is not resized until it is reached.
+     */
+    public LOB(LimitTree.TreeType type, int expectedOrders) {
+        buy = new LimitTree(Side.BUY, type);
+        sell = new LimitTree(Side.SELL, type);
+        orders = new LongMap<>(expectedOrders);
+        pool = new Pool<>(Order::new, expectedOrders);
+    }
+
+    /**
+     * Place a limit order. The book keeps a copy of the order so the caller can
+     * reuse the same object for the next message.
+     * <p>
+     * If the price crosses the opposite side, the order is first matched against
+     * it like a market order limited to its price, then what is left rests on the
+     * book unless it is `IOC` or `FOK`. A `FOK` order is only matched if it can
+     * be filled in full, and a post-only order that crosses is dropped. Note that
+     * the size of the given order is reduced by the matched quantity.
+     * </p>
+     * <p>
+     * An order whose id is already resting on the book is rejected, cancel the
+     * resting order first to replace it.
+     * </p>
+     */
     @Override
     public void limit(Order order) {
-        getTree(order.side).limit(order);
-        orders.put(order.id, order); // add the order onto the map
+        if (orders.containsKey(order.id)) // the id must be unique among the resting orders
+            return;
+
+        LimitTree opposite = getTree(order.side.inverse());
+        if (opposite.crosses(order.price)) { // a non-crossing order only pays for this check
+            if (order.postOnly)
+                return;
+            if (order.timeInForce == TimeInForce.FOK && !opposite.canFill(order.price, order.size))
+                return;
+
+            opposite.market(order, order.price, removeOrder);
+            if (order.size == 0)
+                return;
+        }
+
+        if (order.timeInForce != TimeInForce.GTC) // the rest of an IOC or FOK order is dropped
+            return;
+
+        Order resting = pool.acquire().set(order.id, order.side, order.size, order.price);
+        getTree(order.side).limit(resting);
+        orders.put(order.id, resting); // add the order onto the map
     }
 
     @Override
     public void market(Order order) {
-        ArrayList<Long> executedOrders = getTree(order.side.inverse()).market(order);
-
-        // remove executed orders
-        for (long executedOrder : executedOrders)
-            orders.remove(executedOrder);
+        getTree(order.side.inverse()).market(order, removeOrder); // remove executed orders
     }
 
     @Override
     public void cancel(long orderId) {
         Order order = orders.remove(orderId); // removes the order from the map
 
-        if (order != null)
-            getTree(order.side).cancel(order); // cancel the order from the tree
+        if (order == null)
+            return;
+
+        getTree(order.side).cancel(order); // cancel the order from the tree
+        pool.release(order);
     }
 
     @Override
@@ -72,6 +152,33 @@ public class LOB implements LimitOrderBook {
         return buy.volume + sell.volume;
     }
 
+    @Override
+    public long depth(Side side, long price) {
+        return getTree(side).depth(price);
+    }
+
+    @Override
+    public long priceFor(Side side, long quantity) {
+        return getTree(side).priceFor(quantity);
+    }
+
+    @Override
+    public long cost(Side side, long quantity) {
+        return getTree(side).cost(quantity);
+    }
+
+    @Override
+    public void setDepthListener(DepthListener listener) {
+        buy.depthListener = listener;
+        sell.depthListener = listener;
+    }
+
+    @Override
+    public void setExecutionListener(ExecutionListener listener) {
+        buy.executionListener = listener;
+        sell.executionListener = listener;
+    }
+
     @Override
     public Iterator<Limit> topN(int n, Side side) {
         final Iterator<Limit> iter = getTree(side).limits
@@ -93,6 +200,33 @@ public class LOB implements LimitOrderBook {
         };
     }
 
+    /**
+     * Check that the book is consistent, see `LimitTree.checkInvariants`. On top
+     * of the checks of both trees the book must not be crossed and the orders
+     * indexed by id must be exactly the orders resting in the trees.
+     *
+     * @throws IllegalStateException if an invariant does not hold.
+     */
+    void checkInvariants() {
+        buy.checkInvariants();
+        sell.checkInvariants();
+
+        if (buy.best != null && sell.best != null && buy.best.price >= sell.best.price)
+            throw new IllegalStateException("crossed book: " + buy.best.price + " / " + sell.best.price);
+        if (orders.size() != buy.count + sell.count)
+            throw new IllegalStateException(
+                    orders.size() + " orders indexed but " + (buy.count + sell.count) + " resting");
+
+        for (LimitTree tree : new LimitTree[] { buy, sell }) {
+            for (Iterator<Limit> it = tree.limits.traverse(TraversalOrder.InOrderTraversal); it.hasNext();) {
+                for (Order order = it.next().head; order != null; order = order.next) {
+                    if (orders.get(order.id) != order)
+                        throw new IllegalStateException("resting order " + order.id + " is not indexed");
+                }
+            }
+        }
+    }
+
     private LimitTree getTree(Side side) {
         switch (side) {
             case BUY:
@@ -1,12 +1,15 @@
 package lob.v1;
 
-import java.util.LinkedList;
-import java.util.Iterator;
-
 import lob.common.Order;
 
 /**
  * Limit represents one price level in the orderbook.
+ * <p>
+ * The orders at this level are kept in an intrusive doubly linked list, the
+ * `prev` / `next` pointers live on `Order` itself so inserting at the tail,
+ * removing any order and filling the head are all O(1) without allocating a
+ * list node or an iterator.
+ * </p>
  */
 public class Limit implements Comparable<Limit> {
     // The price for this limit level.
@@ -18,74 +21,112 @@ public class Limit implements Comparable<Limit> {
     // The total volume at this limit level
     public long volume = 0;
 
-    // A queue of orders at this limit level
-    public LinkedList<Order> orders = new LinkedList<>();
+    // The first (oldest) and last (newest) order queued at this limit level
+    public Order head, tail;
+
+    // Whether the limit changed since its `DepthTree` last counted it.
+    boolean touched = false;
 
     /**
      * Creates a new limit with an initial order. A limit does not exist if it does
      * not have any orders hence to create a new limit it must has at least one
      * initial order.
-     * 
+     *
      * @param order - The first order in the limit.
      */
     public Limit(Order order) {
-        this.price = order.price;
-        this.count = 1;
-        this.volume = order.size;
-        this.orders.add(order);
+        init(order);
+    }
+
+    /**
+     * Creates an empty limit, this is used by pools and must be initialised with
+     * `init` before it is used.
+     */
+    public Limit() {
+    }
+
+    /**
+     * Reset the limit so that it holds only the given order, this allows a limit
+     * that was emptied to be reused for another price.
+     *
+     * @param order - The first order in the limit.
+     * @return the limit itself.
+     */
+    public Limit init(Order order) {
+        price = order.price;
+        count = 0;
+        volume = 0;
+        head = null;
+        tail = null;
+        add(order);
+        return this;
     }
 
     /**
-     * Insert a new order onto the limit level.
-     * 
+     * Insert a new order onto the back of the limit level.
+     *
      * @param order - The order to be inserted.
      */
     public void add(Order order) {
-        orders.add(order);
+        order.limit = this;
+        order.prev = tail;
+        order.next = null;
+
+        if (tail == null) // the level was empty so the order is also the head
+            head = order;
+        else
+            tail.next = order;
+        tail = order;
+
         ++count;
         volume += order.size;
     }
 
     /**
      * Remove an existing order from the limit level.
-     * 
+     *
      * @param order - The order to be removed.
      * @return whether the removal succeeded or not.
      */
     public boolean remove(Order order) {
-        // NOTE: this is O(n) but can be optimised to O(1) if we store the pointers on
-        // `Order` and avoid `LinkedList`.
-        if (orders.remove(order)) { // only deduct count if the order indeed exists
-            --count;
-            volume -= order.size;
-            return true;
-        }
-
-        return false;
+        if (order.limit != this) // the order is not queued at this level
+            return false;
+
+        // unlink the order from its neighbours
+        if (order.prev == null)
+            head = order.next;
+        else
+            order.prev.next = order.next;
+
+        if (order.next == null)
+            tail = order.prev;
+        else
+            order.next.prev = order.prev;
+
+        order.prev = null;
+        order.next = null;
+        order.limit = null;
+
+        --count;
+        volume -= order.size;
+        return true;
     }
 
     /**
-     * Update an order in the list.
-     * 
-     * @param orderId - The order to be updated.
-     * @param size    - The new size for the order.
+     * Update the size of an order in the list.
+     *
+     * @param order - The order to be updated.
+     * @param size  - The new size for the order.
      * @return the change in volume after the update.
      */
-    public long update(long orderId, long size) {
-        Iterator<Order> iter = orders.iterator();
-        Order order;
-
-        while (iter.hasNext()) {
-            order = iter.next();
-            if (order.id == orderId) {
-                long delta = size - order.size;
-                volume += delta; // update the volume
-                order.size = size;
-                return delta;
-            }
-        }
-
-        return 0;
+    public long update(Order order, long size) {
+        if (order.limit != this) // the order is not queued at this level
+            return 0;
+
+        long delta = size - order.size;
+        volume += delta; // update the volume
+        order.size = size;
+        return delta;
     }
 
     /**
@@ -106,4 +147,4 @@ public class Limit implements Comparable<Limit> {
     public String toString() {
         return price + " (" + volume + ")";
     }
-}
\ No newline at end of file
+}
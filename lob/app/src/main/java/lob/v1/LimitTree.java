@@ -1,17 +1,38 @@
 package lob.v1;
 
-import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.function.Consumer;
 
+import lob.DepthListener;
+import lob.ExecutionListener;
+import lob.common.Execution;
 import lob.common.Order;
 import lob.common.Side;
 import lob.ds.BST;
+import lob.ds.Pool;
+import lob.ds.Tree;
+import lob.ds.Tree.TraversalOrder;
 
 /**
  * Represents a tree of price levels (limits) stored in a binary search tree.
  */
 public class LimitTree {
+    /**
+     * The kind of binary search tree used to store the limits.
+     */
+    public enum TreeType {
+        BST, // unbalanced, degrades to a linked list when prices trend
+        AVL, // self-balancing, always O(log n) deep, with the aggregates of the depth queries
+    }
+
+    // The kind of tree that stores the limits.
+    final TreeType type;
+
     // The underlying binary search tree that stores the limits.
-    BST<Limit> limits = new BST<>();
+    Tree<Limit> limits;
+
+    // The same tree when it keeps the aggregates of the depth queries, null otherwise.
+    private DepthTree aggregates;
 
     // The price where the last order is executed.
     long lastPrice = 0;
@@ -28,16 +49,54 @@ public class LimitTree {
     // Indicate whether this is a buy tree or a sell tree.
     Side side;
 
+    // Receives the new state of every level that changes, null if nobody subscribed.
+    DepthListener depthListener;
+
+    // Receives every fill, null if nobody subscribed. The execution is reused for every fill.
+    ExecutionListener executionListener;
+    private final Execution execution = new Execution();
+
+    // Limits that were emptied and can be reused for new prices.
+    private final Pool<Limit> pool = new Pool<>(Limit::new, 0);
+
+    // A limit reused to search the tree by price without allocating.
+    private final Limit probe = new Limit();
+
     public LimitTree(Side side) {
+        this(side, TreeType.AVL);
+    }
+
+    public LimitTree(Side side, TreeType type) {
         this.side = side;
+        this.type = type;
+        this.limits = newTree();
+    }
+
+    /**
+     * Create an empty tree of the configured type.
+     */
+    private Tree<Limit> newTree() {
+        switch (type) {
+            case BST:
+                aggregates = null;
+                return new BST<>();
+            case AVL:
+            default:
+                aggregates = new DepthTree();
+                return aggregates;
+        }
     }
 
     /**
      * Clear all the limits in the tree.
      */
     void clear() {
+        // Unmark the touched limits first, some of them are back in the pool
+        if (aggregates != null)
+            aggregates.flush();
+
         // Create a new clean tree (the old one will be garbage collected)
-        limits = new BST<>();
+        limits = newTree();
         count = 0;
         volume = 0;
     }
@@ -49,15 +108,17 @@ public class LimitTree {
      * @param order - The order to be placed.
      */
     public void limit(Order order) {
-        Limit currentLimit = limits.search(new Limit(order)); // get the current limit
+        Limit currentLimit = find(order.price); // get the current limit
 
-        if (currentLimit != null) // if the tree contains the price limit
+        if (currentLimit != null) { // if the tree contains the price limit
             currentLimit.add(order); // add the order onto the existing limit
-        else { // if the tree does not contain the price limit
-            Limit limit = new Limit(order); // create a new limit
-            updateBest(limit); // update the best price limit
-            limits.add(limit); // insert the limit onto the tree
+            touch(currentLimit);
+        } else { // if the tree does not contain the price limit
+            currentLimit = pool.acquire().init(order); // create a new limit
+            updateBest(currentLimit); // update the best price limit
+            limits.add(currentLimit); // insert the limit onto the tree
         }
+        publish(currentLimit);
 
         ++count; // update the active orders count
         volume += order.size; // update the total volume
@@ -66,20 +127,29 @@ public class LimitTree {
     /**
      * Execute a market order by matching orders from the tree.
      * 
-     * @param order - The order to execute
-     * @return a list of order ids that was fully filled.
+     * @param order    - The order to execute
+     * @param onFilled - Called with every order that was fully filled, once it is
+     *                 unlinked from its limit.
      */
-    public ArrayList<Long> market(Order order) {
-        ArrayList<Long> executedOrders = new ArrayList<>();
+    public void market(Order order, Consumer<Order> onFilled) {
+        market(order, side == Side.SELL ? Long.MAX_VALUE : Long.MIN_VALUE, onFilled);
+    }
 
-        while (best != null && order.size > 0) { // keep executing until no more levels or the order is fully filled
-            if (best.orders.size() == 0) { // find the next best
-                updateBest();
-                if (best == null || best.orders.size() == 0) // no more liquidity
-                    return executedOrders;
-            }
+    /**
+     * Execute an order by matching orders from the tree, but only at prices that
+     * are at least as good as a limit price for the incoming order. This is how a
+     * limit order that crosses the book is matched before it rests.
+     * 
+     * @param order    - The order to execute
+     * @param price    - The worst price the order can be filled at.
+     * @param onFilled - Called with every order that was fully filled.
+     */
+    public void market(Order order, long price, Consumer<Order> onFilled) {
+        Limit touched = null; // the last limit filled from, published once matching leaves it
 
-            Order matchedOrder = best.orders.getFirst(); // get the first
+        // keep executing until no more levels in the price or the order is fully filled
+        while (order.size > 0 && crosses(price)) {
+            Order matchedOrder = best.head; // get the first
 
             long fillSize = Math.min(order.size, matchedOrder.size); // we can only at most fill the order size
 
@@ -87,29 +157,75 @@ public class LimitTree {
             matchedOrder.size -= fillSize;
             order.size -= fillSize;
 
-            if (matchedOrder.size == 0 && best.count == 1) { // order is fully filled and the limit has no orders
-                limits.remove(best); // remove the limit
-                updateBest(); // look for next best limit
-                count--; // update the total count
-                volume -= fillSize; // deduct filled size from total volume
-                executedOrders.add(matchedOrder.id); // add the filled order id
+            best.volume -= fillSize; // update the limit volume
+            volume -= fillSize; // deduct the filled size from total volume
+            lastPrice = best.price; // update the last executed price
+            touched = best;
+
+            if (executionListener != null) // report the fill
+                executionListener.onExecution(execution.set(matchedOrder, order, best.price, fillSize));
+
+            if (matchedOrder.size > 0) // order is partially filled
                 continue;
-            }
 
-            if (matchedOrder.size == 0) { // order is fully filled but limit has orders left
-                best.remove(matchedOrder); // remove the filled order from limit
-                executedOrders.add(matchedOrder.id); // add the filled order id
-            } else { // order is partially filled
+            best.remove(matchedOrder); // remove the filled order from limit
+            count--; // update the total count
+            onFilled.accept(matchedOrder); // report the filled order
+
+            if (best.count == 0) { // the limit has no orders left
+                Limit emptied = best;
+                limits.remove(emptied); // remove the limit
+                updateBest(); // look for next best limit
+                publish(emptied);
+                pool.release(emptied);
+                touched = null;
             }
+        }
 
-            best.volume -= fillSize; // update the limit volume
-            best.count--; // update the limit count
-            count--; // update the total count
-            volume -= fillSize; // deduct the filled size from total volume
-            lastPrice = best.price; // update the last executed price
+        if (touched != null) { // the last limit was only partially consumed
+            touch(touched);
+            publish(touched);
         }
+    }
+
+    /**
+     * Check whether an incoming order at a price would match the best limit of
+     * this tree, i.e. a buy price at or above the best sell or a sell price at or
+     * below the best buy.
+     *
+     * @param price - The price of the incoming order.
+     * @return true if the order can be matched, false otherwise
+     */
+    public boolean crosses(long price) {
+        if (best == null)
+            return false;
+        return side == Side.SELL ? best.price <= price : best.price >= price;
+    }
 
-        return executedOrders;
+    /**
+     * Check whether an incoming order can be matched in full at prices that are
+     * at least as good as its price, without changing the tree.
+     *
+     * @param price - The price of the incoming order.
+     * @param size  - The size of the incoming order.
+     * @return true if there is enough volume to fill the order, false otherwise
+     */
+    public boolean canFill(long price, long size) {
+        if (!crosses(price))
+            return false;
+        if (best.volume >= size) // the best limit alone is enough
+            return true;
+        if (aggregates != null)
+            return depth(price) >= size;
+
+        Iterator<Limit> it = fromBest();
+        while (it.hasNext() && size > 0) {
+            Limit limit = it.next();
+            if (side == Side.SELL ? limit.price > price : limit.price < price)
+                break;
+            size -= limit.volume;
+        }
+        return size <= 0;
     }
 
     /**
@@ -118,7 +234,7 @@ public class LimitTree {
      * @param order - The order to cancel
      */
     public void cancel(Order order) {
-        Limit currentLimit = limits.search(new Limit(order)); // get the current limit
+        Limit currentLimit = order.limit; // get the limit where the order is queued
         if (currentLimit == null) {
             // System.err.println(
             // "Failed to cancel order " + order.id + ": No orders in the level " +
@@ -126,14 +242,19 @@ public class LimitTree {
             return;
         }
 
-        if (currentLimit.count > 1) // if the limit has more than one order
-            currentLimit.remove(order);
-        else { // if the limit only has 1 order
+        currentLimit.remove(order); // unlink the order from the limit
+        publish(currentLimit);
+
+        if (currentLimit.count > 0)
+            touch(currentLimit);
+        else { // if the limit has no orders left
             limits.remove(currentLimit); // remove the limit from tree
 
             // update best limit if necessary
             if (currentLimit == best)
                 updateBest();
+
+            pool.release(currentLimit);
         }
 
         --count; // update the active orders count
@@ -147,7 +268,7 @@ public class LimitTree {
      * @param size  - The new size for the order.
      */
     public void amend(Order order, long size) {
-        Limit limit = limits.search(new Limit(order)); // find the limit where the order resides
+        Limit limit = order.limit; // the limit where the order resides
         if (limit == null) {
             // System.err.println(
             // "Failed to amend order " + order.id + ": No orders in the level " +
@@ -155,7 +276,112 @@ public class LimitTree {
             return;
         }
 
-        volume += limit.update(order.id, size);
+        volume += limit.update(order, size);
+        touch(limit);
+        publish(limit);
+    }
+
+    /**
+     * Report a change of a limit that stays in the tree to the aggregates, if
+     * the tree keeps them.
+     */
+    private void touch(Limit limit) {
+        if (aggregates != null)
+            aggregates.touch(limit);
+    }
+
+    /**
+     * Get an iterator over the limits from the best price to the worst price.
+     */
+    private Iterator<Limit> fromBest() {
+        return limits.traverse(side == Side.BUY ? TraversalOrder.PostOrderTraversal : TraversalOrder.InOrderTraversal);
+    }
+
+    /**
+     * Returns the volume at prices at least as good as a price, i.e. at or above
+     * it for buys and at or below it for sells. O(log n) with the aggregates, the
+     * levels are walked from the best otherwise.
+     *
+     * @param price - The worst price counted.
+     */
+    public long depth(long price) {
+        if (aggregates != null)
+            return aggregates.volumeTo(price, side == Side.BUY);
+
+        long depth = 0;
+        for (Iterator<Limit> it = fromBest(); it.hasNext();) {
+            Limit limit = it.next();
+            if (side == Side.SELL ? limit.price > price : limit.price < price)
+                break;
+            depth += limit.volume;
+        }
+        return depth;
+    }
+
+    /**
+     * Returns the price of the last level a market order of a quantity would
+     * take from, i.e. where the volume from the best reaches the quantity.
+     *
+     * @param quantity - The quantity of the market order.
+     * @return the price, or 0 if the tree holds less than the quantity.
+     */
+    public long priceFor(long quantity) {
+        if (aggregates != null) {
+            Limit limit = aggregates.limitFor(quantity, side == Side.BUY);
+            return limit == null ? 0 : limit.price;
+        }
+
+        long remaining = quantity;
+        for (Iterator<Limit> it = fromBest(); it.hasNext();) {
+            Limit limit = it.next();
+            remaining -= limit.volume;
+            if (remaining <= 0)
+                return limit.price;
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the cost of a market order of a quantity, the sum of price times
+     * size of the fills it would get, without changing the tree. If the tree
+     * holds less than the quantity only what can be filled is counted.
+     *
+     * @param quantity - The quantity of the market order.
+     * @throws ArithmeticException if the cost does not fit in a long.
+     */
+    public long cost(long quantity) {
+        if (aggregates != null)
+            return aggregates.notionalFor(quantity, side == Side.BUY);
+
+        long cost = 0, remaining = quantity;
+        for (Iterator<Limit> it = fromBest(); it.hasNext() && remaining > 0;) {
+            Limit limit = it.next();
+            long size = Math.min(remaining, limit.volume);
+            cost = Math.addExact(cost, Math.multiplyExact(limit.price, size));
+            remaining -= size;
+        }
+        return cost;
+    }
+
+    /**
+     * Report the new state of a limit to the depth listener, if any.
+     *
+     * @param limit - The limit that changed.
+     */
+    private void publish(Limit limit) {
+        if (depthListener != null)
+            depthListener.onDepth(side, limit.price, limit.volume, limit.count);
+    }
+
+    /**
+     * Search the limit of a price.
+     *
+     * @param price - The price to search for.
+     * @return the limit if the tree has orders at that price, null otherwise
+     */
+    public Limit find(long price) {
+        probe.price = price;
+        return limits.search(probe);
     }
 
     /**
@@ -187,15 +413,7 @@ public class LimitTree {
      * @return
      */
     private void updateBest() {
-        if (best == null)
-            return;
-
-        if (limits.size() == 0) { // if limits was emptied, then there is no best limit
-            best = null;
-            return;
-        }
-
-        if (best.orders.size() == 0) { // if no more orders in the best limit then it's cleared
+        if (limits.isEmpty()) { // if limits was emptied, then there is no best limit
             best = null;
             return;
         }
@@ -209,4 +427,71 @@ public class LimitTree {
                 return;
         }
     }
+
+    /**
+     * Check that the tree is consistent, this walks every order so it is only
+     * meant for tests: every limit holds orders of its price and side linked both
+     * ways, its count and volume are the sums of its orders, the limits are
+     * sorted by price, `count` and `volume` are the sums of the limits, the
+     * aggregates of the depth queries agree with them and `best` is the best
+     * limit of the tree.
+     *
+     * @throws IllegalStateException if an invariant does not hold.
+     */
+    void checkInvariants() {
+        long totalVolume = 0;
+        int totalCount = 0, levels = 0;
+        Limit previous = null;
+
+        for (Iterator<Limit> it = limits.traverse(TraversalOrder.InOrderTraversal); it.hasNext();) {
+            Limit limit = it.next();
+            if (previous != null && previous.price >= limit.price)
+                fail("limit " + limit.price + " follows limit " + previous.price);
+            if (limit.count == 0)
+                fail("empty limit " + limit.price + " left in the tree");
+
+            long limitVolume = 0;
+            int limitCount = 0;
+            Order prev = null;
+            for (Order order = limit.head; order != null; order = order.next) {
+                if (order.limit != limit || order.prev != prev)
+                    fail("order " + order.id + " is not linked to limit " + limit.price);
+                if (order.price != limit.price || order.side != side)
+                    fail("order " + order.id + " queued at " + side + " " + limit.price);
+                if (order.size <= 0)
+                    fail("order " + order.id + " rests with size " + order.size);
+                limitVolume += order.size;
+                limitCount++;
+                prev = order;
+            }
+            if (limit.tail != prev)
+                fail("the tail of limit " + limit.price + " is not its last order");
+            if (limit.count != limitCount || limit.volume != limitVolume)
+                fail("limit " + limit.price + " has count " + limit.count + " and volume " + limit.volume
+                        + ", its orders sum to " + limitCount + " and " + limitVolume);
+
+            totalVolume += limitVolume;
+            totalCount += limitCount;
+            levels++;
+            previous = limit;
+        }
+
+        if (levels != limits.size())
+            fail("the tree has " + limits.size() + " limits but " + levels + " were traversed");
+        if (count != totalCount || volume != totalVolume)
+            fail("the tree has count " + count + " and volume " + volume + ", its limits sum to " + totalCount
+                    + " and " + totalVolume);
+        if (aggregates != null && (aggregates.count() != totalCount || aggregates.volume() != totalVolume))
+            fail("the aggregates have count " + aggregates.count() + " and volume " + aggregates.volume()
+                    + ", the limits sum to " + totalCount + " and " + totalVolume);
+
+        Limit expected = limits.isEmpty() ? null : side == Side.BUY ? limits.max() : limits.min();
+        if (best != expected)
+            fail("best is " + (best == null ? "empty" : best.price) + " instead of "
+                    + (expected == null ? "empty" : expected.price));
+    }
+
+    private void fail(String message) {
+        throw new IllegalStateException(side + " tree: " + message);
+    }
 }
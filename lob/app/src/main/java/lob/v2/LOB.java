@@ -0,0 +1,226 @@
+package lob.v2;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+import lob.DepthListener;
+import lob.ExecutionListener;
+import lob.LimitOrderBook;
+import lob.common.Order;
+import lob.common.Side;
+import lob.common.TimeInForce;
+import lob.ds.LongMap;
+import lob.ds.Pool;
+import lob.v1.Limit;
+
+/**
+ * A limit order book for instruments that trade in a narrow band of integer
+ * ticks. Each side is a `PriceLadder` so finding the limit of a price is O(1)
+ * instead of a tree traversal, and the best limit is cached and moves by
+ * scanning the ladder.
+ */
+public class LOB implements LimitOrderBook {
+    // The default number of ticks covered by the window of each ladder.
+    public final static int DEFAULT_WINDOW = 4096;
+
+    // The ladder for storing buy limit levels.
+    private PriceLadder buy;
+
+    // The ladder for storing sell limit levels.
+    private PriceLadder sell;
+
+    // Store the orders according to their id.
+    private LongMap<Order> orders;
+
+    // The resting orders are copies of the incoming orders taken from this pool,
+    // they go back to the pool once they are filled or cancelled.
+    private Pool<Order> pool;
+
+    // Removes a fully filled order from the map, created once so that matching
+    // does not allocate a callback for every market order. The order is only
+    // released if it is the one indexed under its id.
+    private final Consumer<Order> removeOrder = order -> {
+        if (orders.get(order.id) != order)
+            return;
+        orders.remove(order.id);
+        pool.release(order);
+    };
+
+    public LOB() {
+        this(DEFAULT_WINDOW);
+    }
+
+    /**
+     * Creates an order book whose ladders cover the given number of ticks.
+     *
+     * @param window - The number of ticks covered by each ladder, prices outside
+     *               of it are still accepted but are slower to look up.
+     */
+    public LOB(int window) {
+        this(window, 0);
+    }
+
+    /**
+     * Creates an order book whose ladders cover the given number of ticks, with
+     * an order index sized for the expected number of resting orders.
+     *
+     * @param window         - The number of ticks covered by each ladder.
+     * @param expectedOrders - The number of resting orders the book is expected to
+     *                       hold, the index is not resized until it is reached.
+     */
+    public LOB(int window, int expectedOrders) {
+        buy = new PriceLadder(Side.BUY, window);
+        sell = new PriceLadder(Side.SELL, window);
+        orders = new LongMap<>(expectedOrders);
+        pool = new Pool<>(Order::new, expectedOrders);
+    }
+
+    /**
+     * Place a limit order. The book keeps a copy of the order so the caller can
+     * reuse the same object for the next message.
+     * <p>
+     * If the price crosses the opposite side, the order is first matched against
+     * it like a market order limited to its price, then what is left rests on the
+     * book unless it is `IOC` or `FOK`. A `FOK` order is only matched if it can
+     * be filled in full, and a post-only order that crosses is dropped. Note that
+     * the size of the given order is reduced by the matched quantity.
+     * </p>
+     * <p>
+     * An order whose id is already resting on the book is rejected, cancel the
+     * resting order first to replace it.
+     * </p>
+     */
+    @Override
+    public void limit(Order order) {
+        if (orders.containsKey(order.id)) // the id must be unique among the resting orders
+            return;
+
+        PriceLadder opposite = getLadder(order.side.inverse());
+        if (opposite.crosses(order.price)) { // a non-crossing order only pays for this check
+            if (order.postOnly)
+                return;
+            if (order.timeInForce == TimeInForce.FOK && !opposite.canFill(order.price, order.size))
+                return;
+
+            opposite.market(order, order.price, removeOrder);
+            if (order.size == 0)
+                return;
+        }
+
+        if (order.timeInForce != TimeInForce.GTC) // the rest of an IOC or FOK order is dropped
+            return;
+
+        Order resting = pool.acquire().set(order.id, order.side, order.size, order.price);
+        getLadder(order.side).limit(resting);
+        orders.put(order.id, resting); // add the order onto the map
+    }
+
+    @Override
+    public void market(Order order) {
+        getLadder(order.side.inverse()).market(order, removeOrder); // remove executed orders
+    }
+
+    @Override
+    public void cancel(long orderId) {
+        Order order = orders.remove(orderId); // removes the order from the map
+
+        if (order == null)
+            return;
+
+        getLadder(order.side).cancel(order); // cancel the order from the ladder
+        pool.release(order);
+    }
+
+    @Override
+    public void amend(long orderId, long size) {
+        Order order = orders.get(orderId); // get the order from the map
+        if (order == null)
+            return;
+
+        getLadder(order.side).amend(order, size);
+    }
+
+    @Override
+    public long bestBuy() {
+        if (buy.best == null)
+            return 0;
+        return buy.best.price;
+    }
+
+    @Override
+    public long bestSell() {
+        if (sell.best == null)
+            return 0;
+        return sell.best.price;
+    }
+
+    @Override
+    public long volume() {
+        return buy.volume + sell.volume;
+    }
+
+    @Override
+    public void setDepthListener(DepthListener listener) {
+        buy.depthListener = listener;
+        sell.depthListener = listener;
+    }
+
+    @Override
+    public void setExecutionListener(ExecutionListener listener) {
+        buy.executionListener = listener;
+        sell.executionListener = listener;
+    }
+
+    @Override
+    public Iterator<Limit> topN(int n, Side side) {
+        final Iterator<Limit> iter = getLadder(side).iterator();
+
+        return new Iterator<Limit>() {
+            int count = 0;
+
+            @Override
+            public boolean hasNext() {
+                return count < n && iter.hasNext();
+            }
+
+            @Override
+            public Limit next() {
+                count++;
+                return iter.next();
+            }
+        };
+    }
+
+    private PriceLadder getLadder(Side side) {
+        switch (side) {
+            case BUY:
+                return buy;
+            case SELL:
+                return sell;
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+
+        // print the asks from the worst to the best like `lob.v1.LOB`
+        ArrayList<Limit> asks = new ArrayList<>();
+        sell.iterator().forEachRemaining(asks::add);
+        for (int i = asks.size() - 1; i >= 0; i--)
+            sb.append(asks.get(i).price + " (" + asks.get(i).volume + ")\n");
+
+        sb.append("----------------------------------------------------\n");
+
+        Iterator<Limit> it = buy.iterator();
+        while (it.hasNext()) {
+            Limit limit = it.next();
+            sb.append(limit.price + " (" + limit.volume + ")\n");
+        }
+
+        return sb.toString();
+    }
+}
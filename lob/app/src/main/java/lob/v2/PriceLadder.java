@@ -0,0 +1,438 @@
+package lob.v2;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import lob.DepthListener;
+import lob.ExecutionListener;
+import lob.common.Execution;
+import lob.common.Order;
+import lob.common.Side;
+import lob.ds.Pool;
+import lob.v1.Limit;
+
+/**
+ * Represents one side of the book as a ladder of price levels (limits) stored
+ * in a dense array indexed by price.
+ * <p>
+ * The array covers a window of `size` consecutive ticks near the best price, so
+ * finding the limit of a price in the window is O(1) without a tree traversal.
+ * Prices outside the window are outliers and are kept in a sorted map instead.
+ * The array is used as a ring buffer (a price lives at `price & mask`) so the
+ * window can slide without moving the limits that stay inside it.
+ * </p>
+ * <p>
+ * To use the same logic for both sides, prices are mapped to keys where a
+ * smaller key is always a better price: the key of a buy price is its negation
+ * and the key of a sell price is the price itself. The window covers the keys
+ * `[lo, lo + size)` and every outlier has a key of at least `lo + size`.
+ * </p>
+ */
+public class PriceLadder {
+    // The limits in the window, the limit with key `k` is at `slots[k & mask]`.
+    private final Limit[] slots;
+
+    // The number of ticks covered by the window, always a power of two.
+    private final int size;
+
+    // The mask to turn a key into an index of `slots`.
+    private final int mask;
+
+    // The number of ticks kept free in front of the best price when the window
+    // slides, so that the best price can improve without sliding again.
+    private final int headroom;
+
+    // The key of the first (best) tick covered by the window.
+    private long lo = 0;
+
+    // The limits whose prices fall outside of the window.
+    private final TreeMap<Long, Limit> outliers = new TreeMap<>();
+
+    // The price where the last order is executed.
+    long lastPrice = 0;
+
+    // The total number of active orders in this ladder across all limits.
+    int count = 0;
+
+    // The total volume aggregated from all orders in this ladder across all limits.
+    long volume = 0;
+
+    // The current top price limit and its key.
+    Limit best;
+    private long bestKey;
+
+    // Indicate whether this is a buy ladder or a sell ladder.
+    final Side side;
+
+    // Receives the new state of every level that changes, null if nobody subscribed.
+    DepthListener depthListener;
+
+    // Receives every fill, null if nobody subscribed. The execution is reused for every fill.
+    ExecutionListener executionListener;
+    private final Execution execution = new Execution();
+
+    // Limits that were emptied and can be reused for new prices.
+    private final Pool<Limit> pool = new Pool<>(Limit::new, 0);
+
+    /**
+     * Creates an empty ladder.
+     *
+     * @param side - The side of the book.
+     * @param size - The number of ticks covered by the window, rounded up to a
+     *             power of two.
+     */
+    public PriceLadder(Side side, int size) {
+        if (size < 2)
+            throw new IllegalArgumentException("the window must cover at least 2 ticks, got " + size);
+
+        this.side = side;
+        this.size = Integer.highestOneBit(size - 1) << 1;
+        this.mask = this.size - 1;
+        this.headroom = this.size / 4;
+        this.slots = new Limit[this.size];
+    }
+
+    /**
+     * Place a limit order onto the ladder. This action will create a new limit if
+     * there isn't any existing orders at that limit.
+     *
+     * @param order - The order to be placed.
+     */
+    public void limit(Order order) {
+        long key = key(order.price);
+
+        if (best == null) // the ladder is empty, center the window on the order
+            lo = key - headroom;
+        else if (key < lo) // the price is better than the window, slide it
+            slide(key - headroom);
+
+        Limit currentLimit = get(key); // get the current limit
+
+        if (currentLimit != null) // if the ladder contains the price limit
+            currentLimit.add(order); // add the order onto the existing limit
+        else { // if the ladder does not contain the price limit
+            currentLimit = pool.acquire().init(order); // create a new limit
+            put(key, currentLimit);
+
+            if (best == null || key < bestKey) { // update the best price limit
+                best = currentLimit;
+                bestKey = key;
+            }
+        }
+        publish(currentLimit);
+
+        ++count; // update the active orders count
+        volume += order.size; // update the total volume
+    }
+
+    /**
+     * Execute a market order by matching orders from the ladder.
+     *
+     * @param order    - The order to execute
+     * @param onFilled - Called with every order that was fully filled, once it is
+     *                 unlinked from its limit.
+     */
+    public void market(Order order, Consumer<Order> onFilled) {
+        match(order, Long.MAX_VALUE, onFilled);
+    }
+
+    /**
+     * Execute an order by matching orders from the ladder, but only at prices
+     * that are at least as good as a limit price for the incoming order. This is
+     * how a limit order that crosses the book is matched before it rests.
+     *
+     * @param order    - The order to execute
+     * @param price    - The worst price the order can be filled at.
+     * @param onFilled - Called with every order that was fully filled.
+     */
+    public void market(Order order, long price, Consumer<Order> onFilled) {
+        match(order, key(price), onFilled);
+    }
+
+    /**
+     * Match an order against the limits up to a key.
+     *
+     * @param order    - The order to execute
+     * @param bound    - The key of the worst limit the order can be filled from.
+     * @param onFilled - Called with every order that was fully filled.
+     */
+    private void match(Order order, long bound, Consumer<Order> onFilled) {
+        Limit touched = null; // the last limit filled from, published once matching leaves it
+
+        // keep executing until no more levels in the price or the order is fully filled
+        while (order.size > 0 && best != null && bestKey <= bound) {
+            Order matchedOrder = best.head; // get the first
+
+            long fillSize = Math.min(order.size, matchedOrder.size); // we can only at most fill the order size
+
+            // fill the order
+            matchedOrder.size -= fillSize;
+            order.size -= fillSize;
+
+            best.volume -= fillSize; // update the limit volume
+            volume -= fillSize; // deduct the filled size from total volume
+            lastPrice = best.price; // update the last executed price
+            touched = best;
+
+            if (executionListener != null) // report the fill
+                executionListener.onExecution(execution.set(matchedOrder, order, best.price, fillSize));
+
+            if (matchedOrder.size > 0) // order is partially filled
+                continue;
+
+            best.remove(matchedOrder); // remove the filled order from limit
+            count--; // update the total count
+            onFilled.accept(matchedOrder); // report the filled order
+
+            if (best.count == 0) { // the limit has no orders left
+                remove(best);
+                touched = null;
+            }
+        }
+
+        if (touched != null) // the last limit was only partially consumed
+            publish(touched);
+    }
+
+    /**
+     * Check whether an incoming order at a price would match the best limit of
+     * this ladder, i.e. a buy price at or above the best sell or a sell price at
+     * or below the best buy.
+     *
+     * @param price - The price of the incoming order.
+     * @return true if the order can be matched, false otherwise
+     */
+    public boolean crosses(long price) {
+        return best != null && bestKey <= key(price);
+    }
+
+    /**
+     * Check whether an incoming order can be matched in full at prices that are
+     * at least as good as its price, without changing the ladder.
+     *
+     * @param price - The price of the incoming order.
+     * @param size  - The size of the incoming order.
+     * @return true if there is enough volume to fill the order, false otherwise
+     */
+    public boolean canFill(long price, long size) {
+        if (!crosses(price))
+            return false;
+        if (best.volume >= size) // the best limit alone is enough
+            return true;
+
+        Iterator<Limit> it = iterator();
+        while (it.hasNext() && size > 0) {
+            Limit limit = it.next();
+            if (key(limit.price) > key(price))
+                break;
+            size -= limit.volume;
+        }
+        return size <= 0;
+    }
+
+    /**
+     * Removes an order from the ladder.
+     *
+     * @param order - The order to cancel
+     */
+    public void cancel(Order order) {
+        Limit currentLimit = order.limit; // get the limit where the order is queued
+        if (currentLimit == null)
+            return;
+
+        currentLimit.remove(order); // unlink the order from the limit
+
+        if (currentLimit.count == 0) // if the limit has no orders left
+            remove(currentLimit);
+        else
+            publish(currentLimit);
+
+        --count; // update the active orders count
+        volume -= order.size; // update the total volume
+    }
+
+    /**
+     * Amend an order from the ladder.
+     *
+     * @param order - The order to amend.
+     * @param size  - The new size for the order.
+     */
+    public void amend(Order order, long size) {
+        Limit limit = order.limit; // the limit where the order resides
+        if (limit == null)
+            return;
+
+        volume += limit.update(order, size);
+        publish(limit);
+    }
+
+    /**
+     * Get an iterator over the limits from the best price to the worst price.
+     *
+     * @return an iterator over the limits of the ladder
+     */
+    public Iterator<Limit> iterator() {
+        return new Iterator<Limit>() {
+            // the next key to look at in the window
+            long key = best == null ? lo + size : bestKey;
+
+            // the outliers are visited once the window is exhausted
+            Iterator<Limit> rest = null;
+
+            @Override
+            public boolean hasNext() {
+                if (rest != null)
+                    return rest.hasNext();
+
+                while (key < lo + size && slots[index(key)] == null)
+                    key++;
+
+                if (key < lo + size)
+                    return true;
+
+                rest = outliers.values().iterator();
+                return rest.hasNext();
+            }
+
+            @Override
+            public Limit next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+
+                if (rest != null)
+                    return rest.next();
+
+                return slots[index(key++)];
+            }
+        };
+    }
+
+    /**
+     * Remove an emptied limit from the ladder and look for the next best limit if
+     * it was the best.
+     *
+     * @param limit - The limit to remove.
+     */
+    private void remove(Limit limit) {
+        publish(limit);
+
+        long key = key(limit.price);
+
+        if (inWindow(key))
+            slots[index(key)] = null;
+        else
+            outliers.remove(key);
+
+        if (limit == best)
+            updateBest(key + 1);
+
+        pool.release(limit);
+    }
+
+    /**
+     * Report the new state of a limit to the depth listener, if any.
+     *
+     * @param limit - The limit that changed.
+     */
+    private void publish(Limit limit) {
+        if (depthListener != null)
+            depthListener.onDepth(side, limit.price, limit.volume, limit.count);
+    }
+
+    /**
+     * Search and update the current top price limit, scanning the window from the
+     * given key. If the window has no more limits, it slides to the best outlier.
+     *
+     * @param from - The key to start the search from.
+     */
+    private void updateBest(long from) {
+        for (long key = Math.max(from, lo); key < lo + size; key++) {
+            Limit limit = slots[index(key)];
+            if (limit != null) {
+                best = limit;
+                bestKey = key;
+                return;
+            }
+        }
+
+        if (outliers.isEmpty()) { // if the ladder was emptied, then there is no best limit
+            best = null;
+            return;
+        }
+
+        bestKey = outliers.firstKey();
+        slide(bestKey - headroom);
+        best = slots[index(bestKey)];
+    }
+
+    /**
+     * Move the window to start at a new key. Limits that fall outside of the new
+     * window become outliers and outliers that fall inside are moved to the
+     * window.
+     *
+     * @param newLo - The key of the first tick of the new window.
+     */
+    private void slide(long newLo) {
+        // the range of keys that leave the window
+        long from = lo, to = lo + size;
+        if (Math.abs(newLo - lo) < size) {
+            if (newLo < lo)
+                from = newLo + size;
+            else
+                to = newLo;
+        }
+
+        for (long key = from; key < to; key++) {
+            int i = index(key);
+            if (slots[i] != null) {
+                outliers.put(key, slots[i]);
+                slots[i] = null;
+            }
+        }
+
+        lo = newLo;
+
+        SortedMap<Long, Limit> entering = outliers.subMap(lo, lo + size);
+        for (Map.Entry<Long, Limit> entry : entering.entrySet())
+            slots[index(entry.getKey())] = entry.getValue();
+        entering.clear();
+    }
+
+    /**
+     * Get the limit with the given key, O(1) if the key is inside the window.
+     */
+    private Limit get(long key) {
+        if (inWindow(key))
+            return slots[index(key)];
+        return outliers.get(key);
+    }
+
+    /**
+     * Store a new limit with the given key.
+     */
+    private void put(long key, Limit limit) {
+        if (inWindow(key))
+            slots[index(key)] = limit;
+        else
+            outliers.put(key, limit);
+    }
+
+    private boolean inWindow(long key) {
+        return key >= lo && key - lo < size;
+    }
+
+    private int index(long key) {
+        return (int) (key & mask);
+    }
+
+    /**
+     * Map a price to a key where a smaller key is a better price.
+     */
+    private long key(long price) {
+        return side == Side.BUY ? -price : price;
+    }
+}
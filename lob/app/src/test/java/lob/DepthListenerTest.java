@@ -0,0 +1,113 @@
+package lob;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+import lob.common.Order;
+import lob.common.Side;
+import lob.v1.Limit;
+
+class DepthListenerTest {
+    /**
+     * A copy of the depth kept only from the updates, price -> { volume, count }.
+     */
+    private static class Mirror implements DepthListener {
+        final Map<Side, TreeMap<Long, long[]>> levels = Map.of(Side.BUY, new TreeMap<>(), Side.SELL,
+                new TreeMap<>());
+        int updates = 0;
+
+        @Override
+        public void onDepth(Side side, long price, long volume, int count) {
+            updates++;
+            if (count == 0) {
+                assertEquals(volume, 0);
+                levels.get(side).remove(price);
+            } else
+                levels.get(side).put(price, new long[] { volume, count });
+        }
+
+        void check(LimitOrderBook lob) {
+            for (Side side : Side.values()) {
+                TreeMap<Long, long[]> mirror = levels.get(side);
+                Iterator<long[]> expected = (side == Side.BUY ? mirror.descendingMap() : mirror).values().iterator();
+                Iterator<Limit> actual = lob.topN(Integer.MAX_VALUE, side);
+                while (actual.hasNext()) {
+                    Limit limit = actual.next();
+                    long[] level = expected.next();
+                    assertEquals(limit.volume, level[0]);
+                    assertEquals(limit.count, level[1]);
+                }
+                assertFalse(expected.hasNext());
+            }
+        }
+    }
+
+    private void testUpdates(LimitOrderBook lob) {
+        Mirror mirror = new Mirror();
+        lob.setDepthListener(mirror);
+
+        lob.limit(new Order(1, Side.BUY, 5, 1000));
+        assertEquals(mirror.updates, 1);
+        assertArrayEquals(mirror.levels.get(Side.BUY).get(1000L), new long[] { 5, 1 });
+
+        lob.limit(new Order(2, Side.BUY, 3, 1000));
+        lob.limit(new Order(3, Side.BUY, 4, 999));
+        assertArrayEquals(mirror.levels.get(Side.BUY).get(1000L), new long[] { 8, 2 });
+
+        // sweeps 1000 and part of 999, one update per level
+        mirror.updates = 0;
+        lob.market(new Order(4, Side.SELL, 10, 0));
+        assertEquals(mirror.updates, 2);
+        assertNull(mirror.levels.get(Side.BUY).get(1000L));
+        assertArrayEquals(mirror.levels.get(Side.BUY).get(999L), new long[] { 2, 1 });
+
+        lob.amend(3, 7);
+        assertArrayEquals(mirror.levels.get(Side.BUY).get(999L), new long[] { 7, 1 });
+        lob.cancel(3);
+        assertTrue(mirror.levels.get(Side.BUY).isEmpty());
+
+        // random operations, the mirror must always match the book
+        Random rand = new Random(11);
+        for (int i = 10; i < 5000; i++) {
+            Side side = rand.nextBoolean() ? Side.BUY : Side.SELL;
+            int dice = rand.nextInt(10);
+            if (dice < 5)
+                lob.limit(new Order(i, side, 1 + rand.nextInt(9),
+                        side == Side.BUY ? 990 - rand.nextInt(30) : 1010 + rand.nextInt(30)));
+            else if (dice < 7)
+                lob.cancel(10 + rand.nextInt(i - 9));
+            else if (dice < 9)
+                lob.amend(10 + rand.nextInt(i - 9), 1 + rand.nextInt(9));
+            else
+                lob.market(new Order(i, side, 1 + rand.nextInt(30), 0));
+        }
+        mirror.check(lob);
+
+        // nothing is reported once unsubscribed
+        lob.setDepthListener(null);
+        mirror.updates = 0;
+        lob.limit(new Order(100000, Side.BUY, 1, 900));
+        assertEquals(mirror.updates, 0);
+    }
+
+    @Test
+    void testV1() {
+        testUpdates(new lob.v1.LOB());
+    }
+
+    @Test
+    void testV1BST() {
+        testUpdates(new lob.v1.LOB(lob.v1.LimitTree.TreeType.BST));
+    }
+
+    @Test
+    void testV2() {
+        testUpdates(new lob.v2.LOB(64));
+    }
+}
@@ -0,0 +1,184 @@
+package lob;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Iterator;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+import lob.common.Order;
+import lob.common.Side;
+import lob.common.TimeInForce;
+import lob.ds.Tree.TraversalOrder;
+import lob.v1.DepthTree;
+import lob.v1.Limit;
+import lob.v1.LimitTree;
+
+class DepthQueryTest {
+    @Test
+    void testQueries() {
+        LimitOrderBook lob = new lob.v1.LOB();
+        lob.limit(new Order(1, Side.SELL, 5, 1001));
+        lob.limit(new Order(2, Side.SELL, 3, 1001));
+        lob.limit(new Order(3, Side.SELL, 4, 1003));
+        lob.limit(new Order(4, Side.SELL, 10, 1010));
+        lob.limit(new Order(5, Side.BUY, 6, 999));
+        lob.limit(new Order(6, Side.BUY, 2, 995));
+
+        assertEquals(lob.depth(Side.SELL, 1000), 0);
+        assertEquals(lob.depth(Side.SELL, 1001), 8);
+        assertEquals(lob.depth(Side.SELL, 1005), 12);
+        assertEquals(lob.depth(Side.BUY, 996), 6);
+        assertEquals(lob.depth(Side.BUY, 0), 8);
+
+        assertEquals(lob.priceFor(Side.SELL, 8), 1001);
+        assertEquals(lob.priceFor(Side.SELL, 9), 1003);
+        assertEquals(lob.priceFor(Side.SELL, 22), 1010);
+        assertEquals(lob.priceFor(Side.SELL, 23), 0);
+        assertEquals(lob.priceFor(Side.BUY, 7), 995);
+
+        assertEquals(lob.cost(Side.SELL, 10), 8 * 1001 + 2 * 1003);
+        assertEquals(lob.cost(Side.SELL, 100), 8 * 1001 + 4 * 1003 + 10 * 1010);
+        assertEquals(lob.cost(Side.BUY, 7), 6 * 999 + 995);
+
+        // the queries follow fills, amends and cancels
+        lob.market(new Order(7, Side.BUY, 6, 0));
+        lob.amend(3, 1);
+        lob.cancel(6);
+        assertEquals(lob.depth(Side.SELL, 1003), 3);
+        assertEquals(lob.cost(Side.SELL, 3), 2 * 1001 + 1003);
+        assertEquals(lob.priceFor(Side.BUY, 6), 999);
+        assertEquals(lob.depth(Side.BUY, 0), 6);
+    }
+
+    private static Order copy(Order order) {
+        return new Order().set(order.id, order.side, order.size, order.price, order.timeInForce, order.postOnly);
+    }
+
+    /**
+     * Compute the queries by walking the levels of a book.
+     */
+    private static long[] expected(LimitOrderBook lob, Side side, long price, long quantity) {
+        long depth = 0, cost = 0, priceFor = 0, remaining = quantity;
+        for (Iterator<Limit> it = lob.topN(Integer.MAX_VALUE, side); it.hasNext();) {
+            Limit limit = it.next();
+            if (side == Side.SELL ? limit.price <= price : limit.price >= price)
+                depth += limit.volume;
+            long size = Math.max(0, Math.min(remaining, limit.volume));
+            cost += size * limit.price;
+            remaining -= limit.volume;
+            if (remaining <= 0 && priceFor == 0)
+                priceFor = limit.price;
+        }
+        return new long[] { depth, priceFor, cost };
+    }
+
+    @Test
+    void testAgainstWalk() {
+        LimitOrderBook[] books = { new lob.v1.LOB(), new lob.v1.LOB(LimitTree.TreeType.BST), new lob.v2.LOB() };
+        Random rand = new Random(11);
+
+        for (int i = 1; i <= 20000; i++) {
+            Side side = rand.nextBoolean() ? Side.BUY : Side.SELL;
+            int dice = rand.nextInt(10);
+            Order order;
+            if (dice < 5)
+                order = new Order(i, side, 1 + rand.nextInt(10),
+                        side == Side.BUY ? 1000 - rand.nextInt(50) : 1001 + rand.nextInt(50));
+            else if (dice < 6) // crosses the book
+                order = new Order().set(i, side, 1 + rand.nextInt(40), side == Side.BUY ? 1010 : 990,
+                        TimeInForce.values()[rand.nextInt(3)], false);
+            else if (dice < 7)
+                order = new Order(i, side, 1 + rand.nextInt(40), 0);
+            else
+                order = null;
+            long target = rand.nextInt(i);
+            long size = 1 + rand.nextInt(10);
+
+            for (LimitOrderBook lob : books) {
+                if (dice < 6)
+                    lob.limit(copy(order));
+                else if (dice < 7)
+                    lob.market(copy(order));
+                else if (dice < 9)
+                    lob.cancel(target);
+                else
+                    lob.amend(target, size);
+            }
+
+            if (i % 10 != 0)
+                continue;
+            Side query = rand.nextBoolean() ? Side.BUY : Side.SELL;
+            long price = 950 + rand.nextInt(100);
+            long quantity = rand.nextInt(300);
+            long[] expected = expected(books[0], query, price, quantity);
+            for (LimitOrderBook lob : books) {
+                assertEquals(lob.depth(query, price), expected[0]);
+                assertEquals(lob.priceFor(query, quantity), expected[1]);
+                assertEquals(lob.cost(query, quantity), expected[2]);
+            }
+        }
+    }
+
+    @Test
+    void testTree() {
+        DepthTree tree = new DepthTree();
+        Random rand = new Random(3);
+        TreeMap<Long, Limit> limits = new TreeMap<>();
+
+        for (int i = 0; i < 5000; i++) {
+            long price = rand.nextInt(200);
+            Limit limit = limits.get(price);
+            if (limit == null) {
+                limit = new Limit(new Order(i, Side.SELL, 1 + rand.nextInt(10), price));
+                tree.add(limit);
+                limits.put(price, limit);
+            } else if (rand.nextBoolean()) {
+                tree.remove(limit);
+                limits.remove(price);
+            } else {
+                Order order = new Order(i, Side.SELL, 1 + rand.nextInt(10), price);
+                limit.add(order);
+                tree.touch(limit);
+            }
+
+            assertEquals(tree.size(), limits.size());
+            assertTrue(tree.height() <= 1.45 * Math.log(tree.size() + 2) / Math.log(2));
+            long volume = 0, count = 0;
+            for (Limit l : limits.values()) {
+                volume += l.volume;
+                count += l.count;
+            }
+            assertEquals(tree.volume(), volume);
+            assertEquals(tree.count(), count);
+        }
+
+        // both sorted traversals
+        Iterator<Limit> it = tree.traverse(TraversalOrder.InOrderTraversal);
+        for (Limit limit : limits.values())
+            assertSame(it.next(), limit);
+        assertFalse(it.hasNext());
+        it = tree.traverse(TraversalOrder.PostOrderTraversal);
+        for (Limit limit : limits.descendingMap().values())
+            assertSame(it.next(), limit);
+        assertFalse(it.hasNext());
+    }
+
+    @Test
+    void testCostOverflow() {
+        LimitOrderBook[] books = { new lob.v1.LOB(), new lob.v1.LOB(LimitTree.TreeType.BST), new lob.v2.LOB() };
+        for (LimitOrderBook lob : books) {
+            // price times volume of the second level does not fit in a long
+            lob.limit(new Order(1, Side.SELL, 10, 100));
+            lob.limit(new Order(2, Side.SELL, 10_000_000, 1_000_000_000_000L));
+            for (int i = 3; i < 20; i++)
+                lob.limit(new Order(i, Side.SELL, 1, 100 + i));
+
+            assertEquals(lob.cost(Side.SELL, 10), 1000);
+            assertEquals(lob.cost(Side.SELL, 1_000_010), 1000 + 1887 + 999_983_000_000_000_000L);
+            assertThrows(ArithmeticException.class, () -> lob.cost(Side.SELL, 10_000_000));
+        }
+    }
+}
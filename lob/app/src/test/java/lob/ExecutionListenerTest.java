@@ -0,0 +1,61 @@
+package lob;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import lob.common.Execution;
+import lob.common.Order;
+import lob.common.Side;
+
+class ExecutionListenerTest {
+    private void testExecutions(LimitOrderBook lob) {
+        List<long[]> fills = new ArrayList<>(); // { maker, taker, price, size, makerRemaining, takerRemaining, flags }
+        lob.setExecutionListener(e -> fills.add(new long[] { e.makerId, e.takerId, e.price, e.size,
+                e.makerRemaining, e.takerRemaining, e.flags }));
+
+        lob.limit(new Order(1, Side.SELL, 5, 1001));
+        lob.limit(new Order(2, Side.SELL, 3, 1001));
+        lob.limit(new Order(3, Side.SELL, 4, 1002));
+
+        // fills order 1, order 2 and part of order 3
+        lob.market(new Order(10, Side.BUY, 10, 0));
+        assertEquals(fills.size(), 3);
+        assertArrayEquals(fills.get(0), new long[] { 1, 10, 1001, 5, 0, 5, Execution.MAKER_FILLED });
+        assertArrayEquals(fills.get(1), new long[] { 2, 10, 1001, 3, 0, 2, Execution.MAKER_FILLED });
+        assertArrayEquals(fills.get(2), new long[] { 3, 10, 1002, 2, 2, 0, Execution.TAKER_FILLED });
+        assertEquals(lob.volume(), 2);
+
+        // fills both sides exactly
+        fills.clear();
+        lob.market(new Order(11, Side.BUY, 2, 0));
+        assertEquals(fills.size(), 1);
+        assertArrayEquals(fills.get(0),
+                new long[] { 3, 11, 1002, 2, 0, 0, Execution.MAKER_FILLED | Execution.TAKER_FILLED });
+
+        // nothing left to match
+        fills.clear();
+        lob.market(new Order(12, Side.BUY, 2, 0));
+        assertTrue(fills.isEmpty());
+
+        // nothing is reported once unsubscribed
+        lob.setExecutionListener(null);
+        lob.limit(new Order(4, Side.BUY, 5, 999));
+        lob.market(new Order(13, Side.SELL, 1, 0));
+        assertTrue(fills.isEmpty());
+        assertEquals(lob.volume(), 4);
+    }
+
+    @Test
+    void testV1() {
+        testExecutions(new lob.v1.LOB());
+    }
+
+    @Test
+    void testV2() {
+        testExecutions(new lob.v2.LOB(64));
+    }
+}
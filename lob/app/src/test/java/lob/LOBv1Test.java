@@ -3,10 +3,14 @@
  */
 package lob;
 
+import java.util.Iterator;
+
 import org.junit.jupiter.api.Test;
 
 import lob.common.Order;
 import lob.common.Side;
+import lob.common.TimeInForce;
+import lob.v1.Limit;
 import lob.v1.LOB;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -86,4 +90,137 @@ class LOBv1Test {
         assertEquals(lob.bestBuy(), 1001);
         assertEquals(lob.volume(), 6);
     }
+
+    @Test
+    void testCancelWithinLevel() {
+        LimitOrderBook lob = new LOB();
+
+        lob.limit(new Order(1, Side.SELL, 1, 1000));
+        lob.limit(new Order(2, Side.SELL, 2, 1000));
+        lob.limit(new Order(3, Side.SELL, 3, 1000));
+
+        lob.cancel(2); // cancel the order in the middle of the queue
+
+        assertEquals(lob.bestSell(), 1000);
+        assertEquals(lob.volume(), 4);
+
+        // the remaining orders should still be filled in time priority
+        lob.market(new Order(4, Side.BUY, 2, 0));
+        assertEquals(lob.volume(), 2);
+
+        lob.cancel(1); // already filled so this is a no-op
+        lob.cancel(3);
+
+        assertEquals(lob.bestSell(), 0);
+        assertEquals(lob.volume(), 0);
+    }
+
+    @Test
+    void testAmend() {
+        LimitOrderBook lob = new LOB();
+
+        lob.limit(new Order(1, Side.BUY, 3, 1000));
+        lob.limit(new Order(2, Side.BUY, 2, 1000));
+
+        lob.amend(2, 5);
+        assertEquals(lob.volume(), 8);
+
+        lob.amend(1, 1);
+        assertEquals(lob.volume(), 6);
+
+        lob.amend(3, 1); // amending a non-existent order is a no-op
+        assertEquals(lob.volume(), 6);
+    }
+
+    @Test
+    void testCrossingLimit() {
+        LimitOrderBook lob = new LOB();
+
+        lob.limit(new Order(1, Side.SELL, 3, 1001));
+        lob.limit(new Order(2, Side.SELL, 2, 1002));
+        lob.limit(new Order(3, Side.SELL, 4, 1004));
+
+        // takes 1001 and 1002 then rests the remaining 1 at 1003
+        lob.limit(new Order(4, Side.BUY, 6, 1003));
+        assertEquals(lob.bestBuy(), 1003);
+        assertEquals(lob.bestSell(), 1004);
+        assertEquals(lob.volume(), 1 + 4);
+
+        // fully matched, nothing rests
+        lob.limit(new Order(5, Side.SELL, 1, 1000));
+        assertEquals(lob.bestBuy(), 0);
+        assertEquals(lob.volume(), 4);
+
+        lob.cancel(4); // the order was filled so this is a no-op
+        assertEquals(lob.volume(), 4);
+    }
+
+    @Test
+    void testTimeInForce() {
+        LimitOrderBook lob = new LOB();
+
+        lob.limit(new Order(1, Side.SELL, 3, 1001));
+        lob.limit(new Order(2, Side.SELL, 3, 1003));
+
+        // IOC: matches 1001 and drops the rest instead of resting at 1002
+        lob.limit(new Order().set(3, Side.BUY, 5, 1002, TimeInForce.IOC, false));
+        assertEquals(lob.bestBuy(), 0);
+        assertEquals(lob.bestSell(), 1003);
+        assertEquals(lob.volume(), 3);
+
+        // IOC that does not cross is dropped
+        lob.limit(new Order().set(4, Side.BUY, 1, 1000, TimeInForce.IOC, false));
+        assertEquals(lob.bestBuy(), 0);
+
+        // FOK: not enough volume at or below 1003, nothing happens
+        lob.limit(new Order().set(5, Side.BUY, 4, 1003, TimeInForce.FOK, false));
+        assertEquals(lob.volume(), 3);
+
+        // FOK: enough volume, fully matched
+        lob.limit(new Order().set(6, Side.BUY, 3, 1003, TimeInForce.FOK, false));
+        assertEquals(lob.volume(), 0);
+        assertEquals(lob.bestSell(), 0);
+    }
+
+    @Test
+    void testPostOnly() {
+        LimitOrderBook lob = new LOB();
+
+        lob.limit(new Order(1, Side.BUY, 3, 1000));
+
+        // crosses the best buy so it is dropped
+        lob.limit(new Order().set(2, Side.SELL, 1, 1000, TimeInForce.GTC, true));
+        assertEquals(lob.volume(), 3);
+        assertEquals(lob.bestSell(), 0);
+
+        // does not cross so it rests
+        lob.limit(new Order().set(3, Side.SELL, 1, 1001, TimeInForce.GTC, true));
+        assertEquals(lob.volume(), 4);
+        assertEquals(lob.bestSell(), 1001);
+    }
+
+    @Test
+    void testDuplicateId() {
+        LimitOrderBook lob = new LOB();
+
+        lob.limit(new Order(1, Side.SELL, 1, 100));
+        lob.limit(new Order(1, Side.SELL, 1, 101)); // the id is resting, rejected
+        assertEquals(lob.volume(), 1);
+
+        // filling the first order frees its id, the pooled order is reused
+        lob.market(new Order(3, Side.BUY, 1, 0));
+        lob.limit(new Order(2, Side.SELL, 2, 102));
+        lob.limit(new Order(1, Side.SELL, 3, 101));
+        assertEquals(lob.bestSell(), 101);
+        assertEquals(lob.volume(), 5);
+
+        lob.cancel(2);
+        Iterator<Limit> it = lob.topN(10, Side.SELL);
+        Limit limit = it.next();
+        assertEquals(limit.price, 101);
+        assertEquals(limit.count, 1);
+        assertEquals(limit.volume, 3);
+        assertEquals(limit.head.id, 1);
+        assertFalse(it.hasNext());
+    }
 }
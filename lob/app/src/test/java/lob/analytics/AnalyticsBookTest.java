@@ -0,0 +1,133 @@
+package lob.analytics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import lob.LimitOrderBook;
+import lob.common.Order;
+import lob.common.Side;
+import lob.v1.Limit;
+
+public class AnalyticsBookTest {
+    @Test
+    public void testTouch() {
+        AnalyticsBook lob = new AnalyticsBook(new lob.v2.LOB(), 2, 3);
+        assertEquals(lob.spread(), 0);
+        assertTrue(Double.isNaN(lob.microprice()));
+        assertTrue(Double.isNaN(lob.vwap()));
+
+        lob.limit(new Order(1, Side.BUY, 30, 998));
+        lob.limit(new Order(2, Side.BUY, 10, 999));
+        lob.limit(new Order(3, Side.SELL, 30, 1001));
+        lob.limit(new Order(4, Side.SELL, 20, 1003));
+        lob.limit(new Order(5, Side.SELL, 50, 1004)); // beyond the best 2 levels
+
+        assertEquals(lob.spread(), 2);
+        assertEquals(lob.mid(), 1000.0);
+        assertEquals(lob.microprice(), (999 * 30 + 1001 * 10) / 40.0, 1e-9);
+        double bid = (998 * 30 + 999 * 10) / 40.0, ask = (1001 * 30 + 1003 * 20) / 50.0;
+        assertEquals(lob.depthWeightedMid(), (bid * 50 + ask * 40) / 90, 1e-9);
+        assertEquals(lob.imbalance(), (40 - 50) / 90.0, 1e-9);
+
+        // the last 3 updates of the best levels: -30 -20 and the rest beyond them
+        assertEquals(lob.orderFlowImbalance(), 10 - 30 - 20);
+        assertEquals(lob.totalOrderFlowImbalance(), 30 + 10 - 30 - 20);
+
+        // takes 30 at 1001 and 5 at 1003, both flows are buying
+        lob.market(new Order(6, Side.BUY, 35, 0));
+        assertEquals(lob.vwap(), (1001 * 30 + 1003 * 5) / 35.0, 1e-9);
+        assertEquals(lob.tradedVolume(), 35);
+        assertEquals(lob.spread(), 4);
+        assertEquals(lob.orderFlowImbalance(), -20 + 30 + 5);
+
+        // the oldest fill leaves the window
+        lob.market(new Order(7, Side.SELL, 5, 0));
+        lob.market(new Order(8, Side.SELL, 5, 0));
+        assertEquals(lob.tradedVolume(), 15);
+        assertEquals(lob.vwap(), (1003 * 5 + 999 * 10) / 15.0, 1e-9);
+    }
+
+    @Test
+    public void testListenersAreForwarded() {
+        AnalyticsBook lob = new AnalyticsBook(new lob.v1.LOB());
+        List<Long> depth = new ArrayList<>();
+        List<Long> fills = new ArrayList<>();
+        lob.setDepthListener((side, price, volume, count) -> depth.add(volume));
+        lob.setExecutionListener(execution -> fills.add(execution.size));
+
+        lob.limit(new Order(1, Side.SELL, 5, 1001));
+        lob.market(new Order(2, Side.BUY, 2, 0));
+        assertEquals(depth, List.of(5L, 3L));
+        assertEquals(fills, List.of(2L));
+        assertEquals(lob.vwap(), 1001.0);
+    }
+
+    @Test
+    public void testExistingLevels() {
+        LimitOrderBook book = new lob.v1.LOB();
+        book.limit(new Order(1, Side.BUY, 4, 990));
+        book.limit(new Order(2, Side.SELL, 4, 1010));
+
+        AnalyticsBook lob = new AnalyticsBook(book);
+        assertEquals(lob.spread(), 20);
+        assertEquals(lob.totalOrderFlowImbalance(), 0);
+    }
+
+    private double[] expected(LimitOrderBook book, int levels) {
+        double[] sums = new double[4]; // bid volume, bid notional, ask volume, ask notional
+        for (Side side : Side.values()) {
+            int offset = side == Side.BUY ? 0 : 2;
+            Iterator<Limit> it = book.topN(levels, side);
+            while (it.hasNext()) {
+                Limit limit = it.next();
+                sums[offset] += limit.volume;
+                sums[offset + 1] += (double) limit.price * limit.volume;
+            }
+        }
+        return sums;
+    }
+
+    @Test
+    public void testAgainstTopN() {
+        for (String version : new String[] { "v1", "v2" }) {
+            LimitOrderBook book = version.equals("v1") ? new lob.v1.LOB() : new lob.v2.LOB();
+            AnalyticsBook lob = new AnalyticsBook(book, 3, 100);
+            Random rand = new Random(7);
+
+            // long enough for the ladders to recompute their notionals a few times
+            for (int i = 1; i <= 20_000; i++) {
+                Side side = rand.nextBoolean() ? Side.BUY : Side.SELL;
+                int dice = rand.nextInt(10);
+                if (dice < 5)
+                    lob.limit(new Order(i, side, 1 + rand.nextInt(10),
+                            side == Side.BUY ? 1000 - rand.nextInt(30) : 1001 + rand.nextInt(30)));
+                else if (dice < 6)
+                    lob.market(new Order(i, side, 1 + rand.nextInt(20), 0));
+                else if (dice < 8)
+                    lob.cancel(rand.nextInt(i));
+                else
+                    lob.amend(rand.nextInt(i), 1 + rand.nextInt(10));
+
+                long bid = book.bestBuy(), ask = book.bestSell();
+                if (bid == 0 || ask == 0)
+                    continue;
+                assertEquals(lob.spread(), ask - bid);
+
+                double[] sums = expected(book, 3);
+                double bidPrice = sums[1] / sums[0], askPrice = sums[3] / sums[2];
+                assertEquals(lob.depthWeightedMid(), (bidPrice * sums[2] + askPrice * sums[0]) / (sums[0] + sums[2]),
+                        1e-6);
+                assertEquals(lob.imbalance(), (sums[0] - sums[2]) / (sums[0] + sums[2]), 1e-9);
+
+                sums = expected(book, 1);
+                assertEquals(lob.microprice(), (bid * sums[2] + ask * sums[0]) / (sums[0] + sums[2]), 1e-6);
+            }
+        }
+    }
+}
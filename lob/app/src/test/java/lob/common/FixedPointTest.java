@@ -0,0 +1,72 @@
+package lob.common;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class FixedPointTest {
+    @Test
+    public void testParse() {
+        assertEquals(FixedPoint.parse("0.0105", 9), 10500000);
+        assertEquals(FixedPoint.parse("0.01050000", 9), 10500000);
+        assertEquals(FixedPoint.parse("0.29", 9), 290000000); // 289999999 through a double
+        assertEquals(FixedPoint.parse("37012", 0), 37012);
+        assertEquals(FixedPoint.parse("37012.57", 2), 3701257);
+        assertEquals(FixedPoint.parse("37012.5700", 2), 3701257); // trailing zeros beyond the scale
+        assertEquals(FixedPoint.parse("37000.00", 0), 37000);
+        assertEquals(FixedPoint.parse("-1.5", 1), -15);
+        assertEquals(FixedPoint.parse("+7.", 3), 7000);
+        assertEquals(FixedPoint.parse(".5", 1), 5);
+        assertEquals(FixedPoint.parse("1e-05", 9), 10000);
+        assertEquals(FixedPoint.parse("1.0E-5", 9), 10000);
+        assertEquals(FixedPoint.parse("1.25e2", 0), 125);
+        assertEquals(FixedPoint.parse("0.000000000000000000000000", 9), 0);
+        assertEquals(FixedPoint.parse("1.123456789000000000000000000", 9), 1123456789);
+        assertEquals(FixedPoint.parse("9223372036854775807", 0), Long.MAX_VALUE);
+
+        byte[] buf = "xx12.34yy".getBytes();
+        assertEquals(FixedPoint.parse(buf, 2, 7, 4), 123400);
+    }
+
+    @Test
+    public void testParseInvalid() {
+        assertThrows(NumberFormatException.class, () -> FixedPoint.parse("", 2));
+        assertThrows(NumberFormatException.class, () -> FixedPoint.parse("-", 2));
+        assertThrows(NumberFormatException.class, () -> FixedPoint.parse("1.2.3", 2));
+        assertThrows(NumberFormatException.class, () -> FixedPoint.parse("12a", 2));
+        assertThrows(NumberFormatException.class, () -> FixedPoint.parse("1e", 2));
+        assertThrows(NumberFormatException.class, () -> FixedPoint.parse("92233720368547758070", 0));
+        assertThrows(NumberFormatException.class, () -> FixedPoint.parse("92233720368547758", 9));
+
+        // decimals beyond the scale are rejected instead of truncated
+        assertThrows(NumberFormatException.class, () -> FixedPoint.parse("37012.57", 0));
+        assertThrows(NumberFormatException.class, () -> FixedPoint.parse("37012.579", 2));
+        assertThrows(NumberFormatException.class, () -> FixedPoint.parse("1e-10", 9));
+        assertThrows(NumberFormatException.class, () -> FixedPoint.parse("0.000000000000000000000001", 9));
+        assertThrows(NumberFormatException.class, () -> FixedPoint.parse("1.123456789123456789123456789", 9));
+    }
+
+    @Test
+    public void testFormat() {
+        assertEquals(FixedPoint.format(10500000, 9), "0.010500000");
+        assertEquals(FixedPoint.format(3701257, 2), "37012.57");
+        assertEquals(FixedPoint.format(-15, 1), "-1.5");
+        assertEquals(FixedPoint.format(-5, 2), "-0.05");
+        assertEquals(FixedPoint.format(37012, 0), "37012");
+        assertEquals(FixedPoint.parse(FixedPoint.format(123456789, 5), 5), 123456789);
+    }
+
+    @Test
+    public void testInstrument() {
+        Instrument xrp = Instrument.register("XRPUSD", 5, 8);
+        assertSame(Instrument.of("xrpusd"), xrp);
+        assertSame(Instrument.of("unknown"), Instrument.DEFAULT);
+        assertSame(Instrument.of(null), Instrument.DEFAULT);
+
+        assertEquals(xrp.parsePrice("0.52341"), 52341);
+        assertEquals(xrp.parseSize("1500.5"), 150050000000L);
+        assertEquals(xrp.formatPrice(52341), "0.52341");
+        assertEquals(xrp.notional(52341, 200000000), 1.04682, 1e-9);
+        assertThrows(IllegalArgumentException.class, () -> new Instrument("bad", 19, 0));
+    }
+}
@@ -0,0 +1,240 @@
+package lob.ds;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.TreeSet;
+
+class AVLTest {
+    @Test
+    public void testIsEmpty() {
+        AVL<Integer> avl = new AVL<>();
+
+        assertTrue(avl.isEmpty());
+
+        avl.add(5);
+
+        assertFalse(avl.isEmpty());
+    }
+
+    @Test
+    public void testSize() {
+        AVL<Integer> avl = new AVL<>();
+
+        assertEquals(avl.size(), 0);
+
+        avl.add(5);
+
+        assertEquals(avl.size(), 1);
+    }
+
+    @Test
+    public void testMin() {
+        AVL<Integer> avl = new AVL<>();
+
+        avl.add(5);
+        avl.add(1);
+
+        assertEquals(avl.min(), Integer.valueOf(1));
+    }
+
+    @Test
+    public void testMax() {
+        AVL<Integer> avl = new AVL<>();
+
+        avl.add(5);
+        avl.add(1);
+
+        assertEquals(avl.max(), Integer.valueOf(5));
+    }
+
+    @Test
+    public void testContains() {
+        AVL<Integer> avl = new AVL<>();
+
+        avl.add(5);
+        avl.add(1);
+
+        assertTrue(avl.contains(5));
+        assertTrue(avl.contains(1));
+        assertFalse(avl.contains(6));
+    }
+
+    @Test
+    public void testAdd() {
+        AVL<Integer> avl = new AVL<>();
+
+        assertTrue(avl.add(1));
+
+        // A binary search tree cannot contain duplicate element
+        assertFalse(avl.add(1));
+
+        assertTrue(avl.add(5));
+    }
+
+    @Test
+    public void testRemove() {
+        AVL<Integer> avl = new AVL<>();
+
+        // Try removing an element which doesn't exist
+        avl.add(1);
+        assertEquals(avl.size(), 1);
+        assertFalse(avl.remove(2));
+        assertEquals(avl.size(), 1);
+
+        // Try removing an element which exist
+        avl.add(2);
+        assertEquals(avl.size(), 2);
+        assertTrue(avl.remove(2));
+        assertEquals(avl.size(), 1);
+
+        // Try removing the root
+        assertTrue(avl.remove(1));
+        assertTrue(avl.isEmpty());
+        assertEquals(avl.size(), 0);
+    }
+
+    @Test
+    public void testTraverse() {
+        AVL<Integer> avl = new AVL<>();
+        StringBuilder sb = new StringBuilder();
+
+        avl.add(100);
+        avl.add(20);
+        avl.add(10);
+        avl.add(30);
+        avl.add(200);
+        avl.add(150);
+        avl.add(300);
+
+        // Testing for InOrderTraversal
+        Iterator<Integer> itr = avl.traverse(Tree.TraversalOrder.InOrderTraversal);
+
+        while (itr.hasNext()) {
+            Integer i = itr.next();
+            sb.append(i + ", ");
+        }
+
+        assertEquals("10, 20, 30, 100, 150, 200, 300, ", sb.toString());
+
+        // Testing for PreOrderTraversal
+        Iterator<Integer> itr2 = avl.traverse(Tree.TraversalOrder.PreOrderTraversal);
+        StringBuilder sb2 = new StringBuilder();
+
+        while (itr2.hasNext()) {
+            Integer i = itr2.next();
+            sb2.append(i + ", ");
+        }
+
+        assertEquals("100, 20, 10, 30, 200, 150, 300, ", sb2.toString());
+    }
+
+    @Test
+    public void testHeight() {
+        AVL<Integer> avl = new AVL<>();
+
+        assertEquals(0, avl.height());
+
+        // Adding elements in sorted order would make an unbalanced tree as deep as
+        // the number of elements
+        int n = 1 << 16;
+        for (int i = 0; i < n; i++)
+            avl.add(i);
+
+        assertEquals(n, avl.size());
+        assertTrue(avl.height() <= 1.45 * Math.log(n + 2) / Math.log(2));
+        assertEquals(Integer.valueOf(0), avl.min());
+        assertEquals(Integer.valueOf(n - 1), avl.max());
+
+        // Removing every other element should keep the tree balanced
+        for (int i = 0; i < n; i += 2)
+            assertTrue(avl.remove(i));
+
+        assertEquals(n / 2, avl.size());
+        assertTrue(avl.height() <= 1.45 * Math.log(n / 2 + 2) / Math.log(2));
+
+        Iterator<Integer> itr = avl.traverse(Tree.TraversalOrder.InOrderTraversal);
+        for (int i = 1; i < n; i += 2)
+            assertEquals(Integer.valueOf(i), itr.next());
+        assertFalse(itr.hasNext());
+    }
+
+    @Test
+    public void testSearch() {
+        AVL<Integer> avl = new AVL<>();
+
+        for (int i = 0; i < 100; i++)
+            avl.add(i * 2);
+
+        assertEquals(Integer.valueOf(42), avl.search(42));
+        assertNull(avl.search(43));
+    }
+
+    @Test
+    public void testAscendingDescending() {
+        AVL<Integer> avl = new AVL<>();
+        for (int i = 10; i <= 100; i += 10)
+            avl.add(i);
+
+        Iterator<Integer> itr = avl.ascending(35);
+        for (int i = 40; i <= 100; i += 10)
+            assertEquals(itr.next(), Integer.valueOf(i));
+        assertFalse(itr.hasNext());
+
+        itr = avl.descending(35);
+        for (int i = 30; i >= 10; i -= 10)
+            assertEquals(itr.next(), Integer.valueOf(i));
+        assertFalse(itr.hasNext());
+
+        // an element of the tree is included
+        assertEquals(avl.ascending(50).next(), Integer.valueOf(50));
+        assertEquals(avl.descending(50).next(), Integer.valueOf(50));
+        assertEquals(avl.descending(null).next(), Integer.valueOf(100));
+        assertFalse(avl.ascending(101).hasNext());
+        assertFalse(avl.descending(9).hasNext());
+        assertFalse(new AVL<Integer>().ascending(null).hasNext());
+    }
+
+    @Test
+    public void testTraverseAfterChanges() {
+        AVL<Integer> avl = new AVL<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random rand = new Random(1);
+
+        for (int i = 0; i < 20000; i++) {
+            int element = rand.nextInt(500);
+            if (rand.nextInt(3) == 0) {
+                assertEquals(avl.remove(element), expected.remove(element));
+            } else {
+                assertEquals(avl.add(element), expected.add(element)); // a duplicate is rejected
+            }
+            assertEquals(avl.size(), expected.size());
+
+            if (i % 100 == 0) {
+                Iterator<Integer> itr = avl.traverse(Tree.TraversalOrder.InOrderTraversal);
+                for (Integer e : expected)
+                    assertEquals(itr.next(), e);
+                assertFalse(itr.hasNext());
+
+                itr = avl.traverse(Tree.TraversalOrder.PostOrderTraversal);
+                for (Integer e : expected.descendingSet())
+                    assertEquals(itr.next(), e);
+                assertFalse(itr.hasNext());
+
+                int from = rand.nextInt(500);
+                itr = avl.descending(from);
+                for (Integer e : expected.headSet(from, true).descendingSet())
+                    assertEquals(itr.next(), e);
+                assertFalse(itr.hasNext());
+
+                int count = 0;
+                for (itr = avl.traverse(Tree.TraversalOrder.PreOrderTraversal); itr.hasNext(); itr.next())
+                    count++;
+                assertEquals(count, expected.size());
+                assertTrue(avl.height() <= 1.45 * Math.log(expected.size() + 2) / Math.log(2));
+            }
+        }
+    }
+}
@@ -4,6 +4,8 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import org.junit.jupiter.api.Test;
 import java.util.Iterator;
+import java.util.Random;
+import java.util.TreeSet;
 
 class BSTTest {
     @Test
@@ -128,4 +130,83 @@ class BSTTest {
 
         assertEquals("100, 20, 10, 30, 200, 150, 300, ", sb2.toString());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testAscendingDescending() {
+        BST<Integer> bst = new BST<>();
+        for (int i = 10; i <= 100; i += 10)
+            bst.add(i);
+
+        Iterator<Integer> itr = bst.ascending(35);
+        for (int i = 40; i <= 100; i += 10)
+            assertEquals(itr.next(), Integer.valueOf(i));
+        assertFalse(itr.hasNext());
+
+        itr = bst.descending(35);
+        for (int i = 30; i >= 10; i -= 10)
+            assertEquals(itr.next(), Integer.valueOf(i));
+        assertFalse(itr.hasNext());
+
+        // an element of the tree is included
+        assertEquals(bst.ascending(50).next(), Integer.valueOf(50));
+        assertEquals(bst.descending(50).next(), Integer.valueOf(50));
+        assertEquals(bst.descending(null).next(), Integer.valueOf(100));
+        assertFalse(bst.ascending(101).hasNext());
+        assertFalse(bst.descending(9).hasNext());
+        assertFalse(new BST<Integer>().ascending(null).hasNext());
+    }
+
+    @Test
+    public void testTraverseAfterChanges() {
+        BST<Integer> bst = new BST<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random rand = new Random(1);
+
+        for (int i = 0; i < 20000; i++) {
+            int element = rand.nextInt(500);
+            if (rand.nextInt(3) == 0) {
+                assertEquals(bst.remove(element), expected.remove(element));
+            } else if (expected.add(element)) {
+                assertTrue(bst.add(element));
+            }
+
+            if (i % 100 == 0) {
+                Iterator<Integer> itr = bst.traverse(Tree.TraversalOrder.InOrderTraversal);
+                for (Integer e : expected)
+                    assertEquals(itr.next(), e);
+                assertFalse(itr.hasNext());
+
+                itr = bst.traverse(Tree.TraversalOrder.PostOrderTraversal);
+                for (Integer e : expected.descendingSet())
+                    assertEquals(itr.next(), e);
+                assertFalse(itr.hasNext());
+
+                int from = rand.nextInt(500);
+                itr = bst.descending(from);
+                for (Integer e : expected.headSet(from, true).descendingSet())
+                    assertEquals(itr.next(), e);
+                assertFalse(itr.hasNext());
+
+                int count = 0;
+                for (itr = bst.traverse(Tree.TraversalOrder.PreOrderTraversal); itr.hasNext(); itr.next())
+                    count++;
+                assertEquals(count, expected.size());
+            }
+        }
+    }
+
+    @Test
+    public void testDeepTree() {
+        // added from the greatest, the tree is a chain of left children
+        BST<Integer> bst = new BST<>();
+        int n = 5000;
+        for (int i = n - 1; i >= 0; i--)
+            bst.add(i);
+
+        for (int round = 0; round < 1000; round++) {
+            Iterator<Integer> itr = bst.traverse(Tree.TraversalOrder.InOrderTraversal);
+            for (int i = 0; i < 50; i++)
+                assertEquals(itr.next(), Integer.valueOf(i));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package lob.ds;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class LongMapTest {
+    @Test
+    public void testPutGet() {
+        LongMap<String> map = new LongMap<>();
+
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1));
+
+        assertNull(map.put(1, "a"));
+        assertNull(map.put(-1, "b"));
+        assertNull(map.put(0, "c"));
+
+        assertEquals(3, map.size());
+        assertEquals("a", map.get(1));
+        assertEquals("b", map.get(-1));
+        assertEquals("c", map.get(0));
+        assertTrue(map.containsKey(0));
+        assertFalse(map.containsKey(2));
+
+        // Putting an existing key replaces the value
+        assertEquals("a", map.put(1, "d"));
+        assertEquals("d", map.get(1));
+        assertEquals(3, map.size());
+    }
+
+    @Test
+    public void testRemove() {
+        LongMap<String> map = new LongMap<>();
+
+        assertNull(map.remove(1));
+
+        map.put(1, "a");
+        map.put(2, "b");
+
+        assertEquals("a", map.remove(1));
+        assertNull(map.get(1));
+        assertEquals("b", map.get(2));
+        assertEquals(1, map.size());
+
+        assertNull(map.remove(1));
+        assertEquals("b", map.remove(2));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void testGrowAndClear() {
+        LongMap<Long> map = new LongMap<>(4);
+
+        for (long i = 0; i < 10000; i++)
+            map.put(i * 1000003, i);
+
+        assertEquals(10000, map.size());
+        for (long i = 0; i < 10000; i++)
+            assertEquals(i, map.get(i * 1000003));
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(0));
+    }
+
+    @Test
+    public void testAgainstHashMap() {
+        // Random operations on a small key space so that there are many
+        // collisions and backward shifts when removing
+        LongMap<Long> map = new LongMap<>();
+        HashMap<Long, Long> expected = new HashMap<>();
+        Random rand = new Random(42);
+
+        for (int i = 0; i < 200000; i++) {
+            long key = rand.nextInt(512);
+            switch (rand.nextInt(3)) {
+                case 0:
+                    assertEquals(expected.put(key, (long) i), map.put(key, (long) i));
+                    break;
+                case 1:
+                    assertEquals(expected.remove(key), map.remove(key));
+                    break;
+                default:
+                    assertEquals(expected.get(key), map.get(key));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+
+        for (long key = 0; key < 512; key++)
+            assertEquals(expected.get(key), map.get(key));
+    }
+}
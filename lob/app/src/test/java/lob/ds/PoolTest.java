@@ -0,0 +1,44 @@
+package lob.ds;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class PoolTest {
+    @Test
+    public void testPreallocate() {
+        Pool<StringBuilder> pool = new Pool<>(StringBuilder::new, 4);
+
+        assertEquals(4, pool.available());
+        assertNotNull(pool.acquire());
+        assertEquals(3, pool.available());
+    }
+
+    @Test
+    public void testReuse() {
+        Pool<StringBuilder> pool = new Pool<>(StringBuilder::new, 0);
+
+        // An empty pool allocates a new object
+        StringBuilder a = pool.acquire();
+        StringBuilder b = pool.acquire();
+        assertNotSame(a, b);
+        assertEquals(0, pool.available());
+
+        // Released objects are handed out again, last released first
+        pool.release(a);
+        pool.release(b);
+        assertEquals(2, pool.available());
+        assertSame(b, pool.acquire());
+        assertSame(a, pool.acquire());
+    }
+
+    @Test
+    public void testGrow() {
+        Pool<Object> pool = new Pool<>(Object::new, 0);
+
+        for (int i = 0; i < 1000; i++)
+            pool.release(new Object());
+
+        assertEquals(1000, pool.available());
+    }
+}
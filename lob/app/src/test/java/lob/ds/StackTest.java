@@ -187,4 +187,41 @@ public class StackTest {
 
         assertEquals("100, 20, 10, 30, 200, 150, 300, ", sb.toString());
     }
+
+    @Test
+    public void testClear() {
+        Stack<Integer> list = new Stack<>(2);
+
+        for (int i = 0; i < 100; i++)
+            assertTrue(list.add(i));
+
+        list.clear();
+
+        assertTrue(list.isEmpty());
+        assertNull(list.peek());
+        assertNull(list.pop());
+        assertEquals("", list.toString());
+        assertFalse(list.iterator().hasNext());
+
+        assertTrue(list.add(7));
+        assertEquals(7, list.peek());
+        assertEquals(1, list.size());
+    }
+
+    @Test
+    public void testGrow() {
+        Stack<Integer> list = new Stack<>(1);
+
+        for (int i = 0; i < 1000; i++)
+            assertTrue(list.add(i));
+
+        assertEquals(1000, list.size());
+        assertEquals(500, list.get(500));
+
+        for (int i = 999; i >= 0; i--)
+            assertEquals(i, list.pop());
+
+        assertTrue(list.isEmpty());
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(0));
+    }
 }
\ No newline at end of file
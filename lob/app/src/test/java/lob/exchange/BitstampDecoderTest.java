@@ -0,0 +1,159 @@
+package lob.exchange;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lob.common.Instrument;
+import lob.common.Side;
+
+public class BitstampDecoderTest {
+    private final static String CREATED = "{\"data\": {\"id\": 1711234567890123, \"id_str\": \"1711234567890123\", "
+            + "\"order_type\": 1, \"datetime\": \"1700000000\", \"microtimestamp\": \"1700000000123456\", "
+            + "\"amount\": 0.0105, \"amount_str\": \"0.01050000\", \"price\": 37012, \"price_str\": \"37012\"}, "
+            + "\"channel\": \"live_orders_btcusd\", \"event\": \"order_created\"}";
+
+    @Test
+    public void testDecodeCreated() {
+        BitstampDecoder decoder = new BitstampDecoder();
+        BitstampOrder order = new BitstampOrder();
+
+        assertTrue(decoder.decode(CREATED, order));
+        assertEquals(BitstampOrder.OrderEvent.Created, order.event);
+        assertEquals(1711234567890123L, order.id);
+        assertEquals(Side.SELL, order.side);
+        assertEquals(1050000, order.amount);
+        assertEquals(37012, order.price);
+        assertEquals(1700000000123456L, order.timestamp);
+        assertEquals("live_orders_btcusd", order.channel);
+    }
+
+    @Test
+    public void testSameAsJackson() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        BitstampDecoder decoder = new BitstampDecoder();
+        BitstampOrder order = new BitstampOrder();
+
+        String[] messages = {
+                CREATED,
+                CREATED.replace("order_created", "order_deleted").replace("\"order_type\": 1", "\"order_type\": 0"),
+                // fields in another order and without whitespace
+                "{\"event\":\"order_changed\",\"channel\":\"live_orders_ethusd\",\"data\":{\"price\":1999.9,"
+                        + "\"amount\":2,\"order_type\":0,\"id\":42}}",
+                // a market order has a price of 0
+                "{\"data\":{\"id\":7,\"order_type\":1,\"amount\":1.5,\"price\":0},\"event\":\"order_created\"}",
+        };
+
+        for (String message : messages) {
+            BitstampOrder expected = Bitstamp.parseOrderMessage(mapper, message);
+            assertTrue(decoder.decode(message, order), message);
+            assertEquals(expected.event, order.event, message);
+            assertEquals(expected.id, order.id, message);
+            assertEquals(expected.side, order.side, message);
+            assertEquals(expected.amount, order.amount, message);
+            assertEquals(expected.price, order.price, message);
+            assertEquals(expected.timestamp, order.timestamp, message);
+            assertEquals(expected.channel, order.channel, message);
+        }
+    }
+
+    @Test
+    public void testAmountWithoutDouble() {
+        BitstampDecoder decoder = new BitstampDecoder();
+        BitstampOrder order = new BitstampOrder();
+
+        // 0.29 * 1e8 is 28999999.999999996 as a double
+        assertTrue(decoder.decode(CREATED.replace("0.0105", "0.29"), order));
+        assertEquals(29000000, order.amount);
+
+        assertTrue(decoder.decode(CREATED.replace("0.0105", "1e-05"), order));
+        assertEquals(1000, order.amount);
+
+        assertTrue(decoder.decode(CREATED.replace("0.0105", "1.23456789"), order));
+        assertEquals(123456789, order.amount);
+
+        // btcusd has 8 decimals of size and whole prices, more decimals are rejected
+        assertFalse(decoder.decode(CREATED.replace("0.0105", "1.23456789123"), order));
+        assertFalse(decoder.decode(CREATED.replace("\"price\": 37012", "\"price\": 37012.5"), order));
+        assertTrue(decoder.decode(CREATED.replace("\"price\": 37012", "\"price\": 37012.00"), order));
+        assertEquals(37012, order.price);
+
+        assertFalse(decoder.decode(CREATED.replace("0.0105", "0.01.05"), order));
+    }
+
+    @Test
+    public void testInstrumentScales() throws Exception {
+        Instrument.register("ltceur", 2, 8);
+        String message = CREATED.replace("btcusd", "ltceur").replace("\"price\": 37012", "\"price\": 65.37")
+                .replace("\"price_str\": \"37012\"", "\"price_str\": \"65.37\"");
+
+        BitstampDecoder decoder = new BitstampDecoder();
+        BitstampOrder order = new BitstampOrder();
+        assertTrue(decoder.decode(message, order));
+        assertEquals(6537, order.price);
+        assertEquals(1050000, order.amount);
+        assertEquals("ltceur", order.instrument.symbol);
+
+        BitstampOrder expected = Bitstamp.parseOrderMessage(new ObjectMapper(), message);
+        assertEquals(6537, expected.price);
+        assertEquals(1050000, expected.amount);
+
+        // the pairs of Bitstamp are registered with their scales
+        assertTrue(decoder.decode(CREATED, order));
+        assertEquals(37012, order.price);
+        assertSame(Instrument.of("btcusd"), order.instrument);
+        assertEquals(8, order.instrument.sizeScale);
+
+        // a message without a channel has the scales of the default instrument
+        assertTrue(decoder.decode("{\"event\":\"order_created\",\"data\":{\"id\":1,\"order_type\":0,"
+                + "\"amount\":\"1.5\",\"price\":\"37000\"}}", order));
+        assertEquals(1500000000, order.amount);
+        assertSame(Instrument.DEFAULT, order.instrument);
+    }
+
+    @Test
+    public void testChannelIsReused() {
+        BitstampDecoder decoder = new BitstampDecoder();
+        BitstampOrder order = new BitstampOrder();
+
+        assertTrue(decoder.decode(CREATED, order));
+        String channel = order.channel;
+        assertTrue(decoder.decode(CREATED.replace("btcusd", "ethusd"), order));
+        assertEquals("live_orders_ethusd", order.channel);
+        assertTrue(decoder.decode(CREATED, order));
+        assertSame(channel, order.channel);
+    }
+
+    @Test
+    public void testNonOrderMessages() {
+        BitstampDecoder decoder = new BitstampDecoder();
+        BitstampOrder order = new BitstampOrder();
+
+        assertFalse(decoder.decode("{\"event\":\"bts:subscription_succeeded\",\"channel\":\"live_orders_btcusd\","
+                + "\"data\":{}}", order));
+        assertFalse(decoder.decode("{\"event\":\"bts:request_reconnect\",\"channel\":\"\",\"data\":\"\"}", order));
+        assertFalse(decoder.decode(CREATED.replace("\"order_type\": 1", "\"order_type\": 2"), order));
+        assertFalse(decoder.decode(CREATED.substring(0, 60), order));
+        assertFalse(decoder.decode("not json", order));
+    }
+
+    @Test
+    public void testTruncatedAfterLongerMessage() {
+        BitstampDecoder decoder = new BitstampDecoder();
+        BitstampOrder order = new BitstampOrder();
+        String message = "{\"event\":\"order_created\",\"data\":{\"id\":1,\"order_type\":0,\"amount\":\"1\","
+                + "\"price\": \"37000\"}}";
+
+        assertTrue(decoder.decode(message, order));
+        assertEquals(37000, order.price);
+
+        // the bytes of the first message are still in the buffer past the cut
+        String cut = message.replace("\"id\":1", "\"id\":2");
+        assertFalse(decoder.decode(cut.substring(0, cut.indexOf("\"3") + 2), order));
+        assertFalse(decoder.decode(cut.substring(0, cut.indexOf("\"price\"") + 3), order));
+        assertFalse(decoder.decode(cut.substring(0, cut.length() - 1), order));
+        assertFalse(decoder.decode("{\"event\":\"order_created\",\"data\":{\"x\":[{\"a\":1", order));
+    }
+}
@@ -0,0 +1,155 @@
+package lob.io;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import lob.LimitOrderBook;
+import lob.common.Instrument;
+import lob.common.Order;
+import lob.common.Side;
+import lob.pipeline.ConcurrentBook;
+import lob.v1.Limit;
+
+public class BookSnapshotTest {
+    @TempDir
+    Path dir;
+
+    private LimitOrderBook book(LimitOrderBook lob) {
+        Random rand = new Random(3);
+        for (int i = 1; i <= 2000; i++) {
+            Side side = rand.nextBoolean() ? Side.BUY : Side.SELL;
+            lob.limit(new Order(i, side, 1 + rand.nextInt(10),
+                    side == Side.BUY ? 990 - rand.nextInt(50) : 1010 + rand.nextInt(50)));
+            if (i % 4 == 0)
+                lob.cancel(i - 2);
+            if (i % 7 == 0)
+                lob.amend(i - 3, 1 + rand.nextInt(10));
+        }
+        return lob;
+    }
+
+    private List<long[]> levels(LimitOrderBook lob, Side side) {
+        List<long[]> levels = new ArrayList<>();
+        Iterator<Limit> it = lob.topN(Integer.MAX_VALUE, side);
+        while (it.hasNext()) {
+            Limit limit = it.next();
+            long[] level = new long[2 + 2 * limit.count];
+            level[0] = limit.price;
+            level[1] = limit.volume;
+            int i = 2;
+            for (Order order = limit.head; order != null; order = order.next) {
+                level[i++] = order.id;
+                level[i++] = order.size;
+            }
+            levels.add(level);
+        }
+        return levels;
+    }
+
+    private void assertSameBook(LimitOrderBook actual, LimitOrderBook expected) {
+        assertEquals(actual.volume(), expected.volume());
+        for (Side side : Side.values()) {
+            List<long[]> a = levels(actual, side), e = levels(expected, side);
+            assertEquals(a.size(), e.size());
+            for (int i = 0; i < a.size(); i++)
+                assertArrayEquals(a.get(i), e.get(i));
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        LimitOrderBook original = book(new lob.v1.LOB());
+        Path path = dir.resolve("book.snapshot");
+        BookSnapshot snapshot = BookSnapshot.capture(original, 1234);
+        snapshot.write(path);
+        assertEquals(Files.size(path), snapshot.size());
+
+        BookSnapshot loaded = BookSnapshot.read(path);
+        assertEquals(loaded.sequence(), 1234);
+        assertEquals(loaded.orders(), snapshot.orders());
+
+        // the queues keep their order in every implementation
+        for (LimitOrderBook restored : new LimitOrderBook[] { new lob.v1.LOB(),
+                new lob.v1.LOB(lob.v1.LimitTree.TreeType.BST), new lob.v2.LOB() }) {
+            loaded.restore(restored);
+            assertSameBook(restored, original);
+        }
+    }
+
+    @Test
+    public void testEmptyBook() throws IOException {
+        Path path = dir.resolve("empty.snapshot");
+        BookSnapshot.capture(new lob.v2.LOB(), 0).write(path);
+
+        LimitOrderBook restored = new lob.v1.LOB();
+        BookSnapshot.read(path).restore(restored);
+        assertEquals(restored.volume(), 0);
+        assertEquals(restored.bestBuy(), 0);
+    }
+
+    @Test
+    public void testRejectsBadFiles() throws IOException {
+        Path path = dir.resolve("book.snapshot");
+        BookSnapshot.capture(book(new lob.v2.LOB()), 1).write(path);
+        byte[] bytes = Files.readAllBytes(path);
+
+        Path truncated = dir.resolve("truncated.snapshot");
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 8));
+        assertThrows(IOException.class, () -> BookSnapshot.read(truncated));
+
+        Path garbage = dir.resolve("garbage.snapshot");
+        Files.write(garbage, new byte[64]);
+        assertThrows(IOException.class, () -> BookSnapshot.read(garbage));
+
+        // the volume of the first bid level does not match its orders
+        int volume = BookSnapshot.HEADER_SIZE + BookSnapshot.SIDE_SIZE + 16;
+        bytes[volume]++;
+        Path corrupted = dir.resolve("corrupted.snapshot");
+        Files.write(corrupted, bytes);
+        assertThrows(IOException.class, () -> BookSnapshot.read(corrupted).restore(new lob.v1.LOB()));
+
+        LimitOrderBook full = book(new lob.v1.LOB());
+        assertThrows(IllegalArgumentException.class, () -> BookSnapshot.read(path).restore(full));
+    }
+
+    @Test
+    public void testScales() throws IOException {
+        Path path = dir.resolve("ethusd.snapshot");
+        BookSnapshot.capture(book(new lob.v2.LOB()), 1, new Instrument("ethusd", 2, 8)).write(path);
+        BookSnapshot snapshot = BookSnapshot.read(path);
+        assertEquals(snapshot.priceScale(), 2);
+        assertEquals(snapshot.sizeScale(), 8);
+
+        // a snapshot of version 1 has no scales, it is read with the default ones
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[4] = 1;
+        bytes[6] = bytes[7] = 0;
+        Path old = dir.resolve("old.snapshot");
+        Files.write(old, bytes);
+        snapshot = BookSnapshot.read(old);
+        assertEquals(snapshot.priceScale(), Instrument.DEFAULT.priceScale);
+        assertEquals(snapshot.sizeScale(), Instrument.DEFAULT.sizeScale);
+        snapshot.restore(new lob.v1.LOB());
+    }
+
+    @Test
+    public void testRejectsCopiedLimits() {
+        // the limits of a `ConcurrentBook` are copies that do not link to their orders
+        LimitOrderBook concurrent = book(new ConcurrentBook(new lob.v2.LOB(), 10));
+        assertThrows(IllegalArgumentException.class, () -> BookSnapshot.capture(concurrent, 1));
+
+        // an empty book has no limit to check
+        BookSnapshot.capture(new ConcurrentBook(new lob.v2.LOB(), 10), 0);
+    }
+}
@@ -0,0 +1,150 @@
+package lob.io;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import lob.LimitOrderBook;
+import lob.common.Event;
+import lob.common.Instrument;
+import lob.common.Order;
+import lob.common.Side;
+import lob.common.TimeInForce;
+import lob.v1.LOB;
+import lob.v1.Limit;
+
+public class EventLogTest {
+    @TempDir
+    Path dir;
+
+    private Event[] events() {
+        return new Event[] {
+                new Event().set(Event.LIMIT, Side.BUY, 1, 5, 1000, 1700000000000001L),
+                new Event().set(Event.LIMIT, Side.BUY, 2, 3, 1001, 1700000000000002L),
+                new Event().set(Event.LIMIT, Side.SELL, 3, 4, 1003, 1700000000000003L),
+                new Event().set(Event.LIMIT, Side.SELL, 4, 2, 1004, 1700000000000004L),
+                new Event().set(Event.MARKET, Side.BUY, 5, 5, 0, 1700000000000005L),
+                new Event().set(Event.AMEND, Side.BUY, 1, 7, 0, 1700000000000006L),
+                new Event().set(Event.CANCEL, Side.BUY, 2, 0, 0, 1700000000000007L),
+        };
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Path path = dir.resolve("events.bin");
+        Event[] events = events();
+        events[2].symbol = 7;
+        events[1].timeInForce = TimeInForce.IOC;
+        events[3].postOnly = true;
+
+        try (EventLogWriter writer = new EventLogWriter(path)) {
+            for (Event event : events)
+                writer.write(event);
+            assertEquals(events.length, writer.count());
+        }
+        assertEquals(EventLog.HEADER_SIZE + events.length * EventLog.RECORD_SIZE, Files.size(path));
+
+        try (EventLogReader reader = new EventLogReader(path)) {
+            assertEquals(events.length, reader.count());
+            Event event = new Event();
+            for (int i = 0; i < events.length; i++) {
+                reader.read(i, event);
+                assertEquals(events[i].type, event.type);
+                assertEquals(events[i].side, event.side);
+                assertEquals(events[i].symbol, event.symbol);
+                assertEquals(events[i].id, event.id);
+                assertEquals(events[i].size, event.size);
+                assertEquals(events[i].price, event.price);
+                assertEquals(events[i].timestamp, event.timestamp);
+                assertEquals(events[i].timeInForce, event.timeInForce);
+                assertEquals(events[i].postOnly, event.postOnly);
+            }
+        }
+    }
+
+    @Test
+    public void testReplay() throws IOException {
+        Path path = dir.resolve("events.bin");
+        Event[] events = events();
+
+        LimitOrderBook expected = new LOB();
+        Order message = new Order();
+        try (EventLogWriter writer = new EventLogWriter(path)) {
+            for (Event event : events) {
+                writer.write(event);
+                event.apply(expected, message);
+            }
+        }
+
+        LimitOrderBook lob = new LOB();
+        try (EventLogReader reader = new EventLogReader(path)) {
+            assertEquals(events.length, reader.replay(lob));
+        }
+
+        assertEquals(lob.bestBuy(), expected.bestBuy());
+        assertEquals(lob.bestSell(), expected.bestSell());
+        assertEquals(lob.volume(), expected.volume());
+        assertEquals(lob.bestBuy(), 1000);
+        assertEquals(lob.bestSell(), 1004);
+        assertEquals(lob.volume(), 7 + 1); // the market order took 4 at 1003 and 1 at 1004
+
+        for (Side side : Side.values()) {
+            Iterator<Limit> actual = lob.topN(10, side), wanted = expected.topN(10, side);
+            while (wanted.hasNext()) {
+                Limit limit = wanted.next();
+                Limit other = actual.next();
+                assertEquals(other.price, limit.price);
+                assertEquals(other.volume, limit.volume);
+                assertEquals(other.count, limit.count);
+            }
+            assertFalse(actual.hasNext());
+        }
+    }
+
+    @Test
+    public void testNotAnEventLog() throws IOException {
+        Path path = dir.resolve("events.ndjson");
+        Files.writeString(path, "{\"event\": \"order_created\"}\n");
+        assertThrows(IOException.class, () -> new EventLogReader(path));
+
+        // a log cut in the middle of a record
+        Path truncated = dir.resolve("truncated.bin");
+        try (EventLogWriter writer = new EventLogWriter(truncated)) {
+            writer.write(events()[0]);
+        }
+        byte[] bytes = Files.readAllBytes(truncated);
+        Files.write(truncated, java.util.Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IOException.class, () -> new EventLogReader(truncated));
+    }
+
+    @Test
+    public void testScales() throws IOException {
+        Path path = dir.resolve("xrpusd.bin");
+        try (EventLogWriter writer = new EventLogWriter(path, new Instrument("xrpusd", 5, 8))) {
+            writer.write(events()[0]);
+        }
+        try (EventLogReader reader = new EventLogReader(path)) {
+            assertEquals(reader.priceScale(), 5);
+            assertEquals(reader.sizeScale(), 8);
+            assertEquals(reader.count(), 1);
+        }
+
+        // a log of version 1 has no scales, it is read with the default ones
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[4] = 1;
+        bytes[12] = bytes[13] = 0;
+        Path old = dir.resolve("old.bin");
+        Files.write(old, bytes);
+        try (EventLogReader reader = new EventLogReader(old)) {
+            assertEquals(reader.priceScale(), Instrument.DEFAULT.priceScale);
+            assertEquals(reader.sizeScale(), Instrument.DEFAULT.sizeScale);
+            assertEquals(reader.count(), 1);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package lob.io;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import lob.LimitOrderBook;
+import lob.common.Event;
+import lob.common.Instrument;
+import lob.common.Order;
+import lob.common.Side;
+import lob.common.TimeInForce;
+import lob.v1.Limit;
+
+public class JournalTest {
+    @TempDir
+    Path dir;
+
+    /**
+     * Send a random command to a book.
+     */
+    private void command(LimitOrderBook lob, Random rand, int i) {
+        Side side = rand.nextBoolean() ? Side.BUY : Side.SELL;
+        int dice = rand.nextInt(10);
+        if (dice < 5)
+            lob.limit(new Order(i, side, 1 + rand.nextInt(10),
+                    side == Side.BUY ? 990 - rand.nextInt(20) : 1010 + rand.nextInt(20)));
+        else if (dice < 6) // crosses the book
+            lob.limit(new Order().set(i, side, 1 + rand.nextInt(30), side == Side.BUY ? 1020 : 980,
+                    TimeInForce.values()[rand.nextInt(3)], rand.nextBoolean()));
+        else if (dice < 7)
+            lob.market(new Order(i, side, 1 + rand.nextInt(20), 0));
+        else if (dice < 9)
+            lob.cancel(rand.nextInt(i));
+        else
+            lob.amend(rand.nextInt(i), 1 + rand.nextInt(10));
+    }
+
+    private void assertSameBook(LimitOrderBook actual, LimitOrderBook expected) {
+        assertEquals(actual.volume(), expected.volume());
+        assertEquals(actual.bestBuy(), expected.bestBuy());
+        assertEquals(actual.bestSell(), expected.bestSell());
+        for (Side side : Side.values()) {
+            Iterator<Limit> a = actual.topN(Integer.MAX_VALUE, side);
+            Iterator<Limit> e = expected.topN(Integer.MAX_VALUE, side);
+            while (e.hasNext()) {
+                Limit limit = a.next(), other = e.next();
+                assertEquals(limit.price, other.price);
+                assertEquals(limit.volume, other.volume);
+                assertEquals(limit.count, other.count);
+            }
+            assertFalse(a.hasNext());
+        }
+    }
+
+    @Test
+    public void testRecover() throws IOException {
+        Path journalDir = dir.resolve("journal");
+        LimitOrderBook book = new JournaledBook(new lob.v1.LOB(), new Journal(journalDir, 100, 16, true));
+        Journal journal = ((JournaledBook) book).journal();
+        Random rand = new Random(5);
+
+        BookSnapshot snapshot = null;
+        for (int i = 1; i <= 1000; i++) {
+            command(book, rand, i);
+            if (i == 500)
+                snapshot = BookSnapshot.capture(book, journal.sequence());
+        }
+        assertEquals(journal.sequence(), 1000);
+        journal.close();
+
+        try (Stream<Path> segments = Files.list(journalDir)) {
+            assertEquals(segments.count(), 10);
+        }
+
+        // from the snapshot and from the whole journal
+        LimitOrderBook recovered = new lob.v2.LOB();
+        assertEquals(Journal.recover(journalDir, snapshot, recovered), 1000);
+        assertSameBook(recovered, book);
+
+        recovered = new lob.v1.LOB();
+        assertEquals(Journal.recover(journalDir, null, recovered), 1000);
+        assertSameBook(recovered, book);
+
+        // the segments before the snapshot are not needed any more
+        new Journal(journalDir, 100, 16, true).truncate(snapshot.sequence());
+        recovered = new lob.v1.LOB();
+        assertEquals(Journal.recover(journalDir, snapshot, recovered), 1000);
+        assertSameBook(recovered, book);
+        assertThrows(IOException.class, () -> Journal.recover(journalDir, null, new lob.v1.LOB()));
+    }
+
+    @Test
+    public void testCrash() throws IOException {
+        Path journalDir = dir.resolve("journal");
+        Journal journal = new Journal(journalDir, 1000, 10, false);
+        Event event = new Event();
+        for (int i = 1; i <= 25; i++)
+            journal.append(event.set(Event.LIMIT, Side.BUY, i, 1, 1000 - i, 0));
+        assertEquals(journal.committed(), 20);
+        // the journal is never closed, as if the process died
+
+        LimitOrderBook recovered = new lob.v1.LOB();
+        assertEquals(Journal.recover(journalDir, null, recovered), 20);
+        assertEquals(recovered.volume(), 20);
+
+        // the next journal continues after the committed records
+        try (Journal next = new Journal(journalDir, 1000, 10, false)) {
+            assertEquals(next.sequence(), 20);
+            next.append(event.set(Event.CANCEL, Side.BUY, 1, 0, 0, 0));
+        }
+        recovered = new lob.v1.LOB();
+        assertEquals(Journal.recover(journalDir, null, recovered), 21);
+        assertEquals(recovered.volume(), 19);
+    }
+
+    @Test
+    public void testClosedSegmentIsEventLog() throws IOException {
+        Path journalDir = dir.resolve("journal");
+        Event event = new Event();
+        try (Journal journal = new Journal(journalDir, 1000, 4, false)) {
+            for (int i = 1; i <= 7; i++)
+                journal.append(event.set(Event.LIMIT, Side.SELL, i, 2, 1000 + i, 0));
+        }
+
+        // the segment keeps its mapped size, the reader honours the count of the header
+        Path segment = journalDir.resolve(String.format("%020d.wal", 0));
+        assertEquals(Files.size(segment), EventLog.HEADER_SIZE + 1000L * EventLog.RECORD_SIZE);
+        try (EventLogReader reader = new EventLogReader(segment)) {
+            assertEquals(reader.count(), 7);
+            LimitOrderBook lob = new lob.v1.LOB();
+            reader.replay(lob);
+            assertEquals(lob.volume(), 14);
+            assertEquals(lob.bestSell(), 1001);
+        }
+    }
+
+    @Test
+    public void testScales() throws IOException {
+        Path journalDir = dir.resolve("journal");
+        Instrument ethusd = new Instrument("ethusd", 2, 8);
+        LimitOrderBook book = new lob.v1.LOB();
+        Event event = new Event();
+        try (Journal journal = new Journal(journalDir, 4, 2, false, ethusd)) {
+            for (int i = 1; i <= 10; i++) {
+                journal.append(event.set(Event.LIMIT, Side.BUY, i, 1, 1000 - i, 0));
+                book.limit(new Order(i, Side.BUY, 1, 1000 - i));
+            }
+        }
+
+        try (EventLogReader reader = new EventLogReader(journalDir.resolve(String.format("%020d.wal", 0)))) {
+            assertEquals(reader.priceScale(), 2);
+            assertEquals(reader.sizeScale(), 8);
+        }
+
+        BookSnapshot snapshot = BookSnapshot.capture(book, 10, ethusd);
+        assertEquals(Journal.recover(journalDir, snapshot, new lob.v1.LOB()), 10);
+
+        // a snapshot of other scales does not match the journal
+        BookSnapshot other = BookSnapshot.capture(book, 8, Instrument.DEFAULT);
+        assertThrows(IOException.class, () -> Journal.recover(journalDir, other, new lob.v1.LOB()));
+    }
+}
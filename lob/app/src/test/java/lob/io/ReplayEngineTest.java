@@ -0,0 +1,87 @@
+package lob.io;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import lob.LimitOrderBook;
+import lob.common.Event;
+import lob.common.Order;
+import lob.common.Side;
+import lob.v1.LOB;
+
+public class ReplayEngineTest {
+    @TempDir
+    Path dir;
+
+    /**
+     * Write a log of limit orders over two symbols, with a cancel and a market
+     * order every few events, and apply the events of every symbol to a book.
+     */
+    private LimitOrderBook[] write(Path path, int events) throws IOException {
+        LimitOrderBook[] books = { new LOB(), new LOB() };
+        Order message = new Order();
+        Random rand = new Random(42);
+        Event event = new Event();
+
+        try (EventLogWriter writer = new EventLogWriter(path)) {
+            for (int i = 1; i <= events; i++) {
+                Side side = rand.nextBoolean() ? Side.BUY : Side.SELL;
+                if (i % 7 == 0)
+                    event.set(Event.CANCEL, side, i - 4, 0, 0, i); // an order of the same symbol
+                else if (i % 11 == 0)
+                    event.set(Event.MARKET, side, i, 1 + rand.nextInt(20), 0, i);
+                else
+                    event.set(Event.LIMIT, side, i, 1 + rand.nextInt(20),
+                            side == Side.BUY ? 990 - rand.nextInt(50) : 1010 + rand.nextInt(50), i);
+                event.symbol = i % 2;
+
+                writer.write(event);
+                event.apply(books[event.symbol], message);
+            }
+        }
+        return books;
+    }
+
+    @Test
+    public void testReplayManyBooks() throws Exception {
+        Path path = dir.resolve("events.bin");
+        write(path, 5000);
+
+        LimitOrderBook expected = new LOB();
+        try (EventLogReader reader = new EventLogReader(path)) {
+            reader.replay(expected);
+
+            ReplayEngine.Result result = new ReplayEngine(reader).replay(LOB::new, 6, 3);
+            assertEquals(result.books.length, 6);
+            assertEquals(result.events, 6 * 5000);
+            for (LimitOrderBook book : result.books) {
+                assertEquals(book.bestBuy(), expected.bestBuy());
+                assertEquals(book.bestSell(), expected.bestSell());
+                assertEquals(book.volume(), expected.volume());
+            }
+        }
+    }
+
+    @Test
+    public void testReplayBySymbol() throws Exception {
+        Path path = dir.resolve("events.bin");
+        LimitOrderBook[] expected = write(path, 5000);
+
+        try (EventLogReader reader = new EventLogReader(path)) {
+            ReplayEngine.Result result = new ReplayEngine(reader).replayBySymbol(LOB::new, 2);
+            assertEquals(result.books.length, 2);
+            assertEquals(result.events, 5000);
+            for (int symbol = 0; symbol < 2; symbol++) {
+                assertEquals(result.books[symbol].bestBuy(), expected[symbol].bestBuy());
+                assertEquals(result.books[symbol].bestSell(), expected[symbol].bestSell());
+                assertEquals(result.books[symbol].volume(), expected[symbol].volume());
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package lob.metrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import lob.common.Order;
+import lob.common.Side;
+import lob.metrics.OperationStats.Operation;
+
+class InstrumentedBookTest {
+    @Test
+    void testRecording() {
+        InstrumentedBook lob = new InstrumentedBook(new lob.v2.LOB());
+
+        lob.limit(new Order(1, Side.SELL, 5, 1001));
+        lob.limit(new Order(2, Side.SELL, 3, 1001));
+        lob.limit(new Order(3, Side.SELL, 4, 1002));
+        lob.limit(new Order(4, Side.SELL, 4, 1003));
+        lob.amend(4, 2);
+        lob.cancel(4);
+        lob.topN(10, Side.SELL);
+
+        // takes from 1001 and 1002, then from nothing
+        lob.market(new Order(10, Side.BUY, 10, 0));
+        lob.market(new Order(11, Side.BUY, 10, 0));
+        lob.market(new Order(12, Side.BUY, 10, 0));
+
+        OperationStats stats = lob.snapshot();
+        assertEquals(stats.latency(Operation.LIMIT).getTotalCount(), 4);
+        assertEquals(stats.latency(Operation.AMEND).getTotalCount(), 1);
+        assertEquals(stats.latency(Operation.CANCEL).getTotalCount(), 1);
+        assertEquals(stats.latency(Operation.TOP_N).getTotalCount(), 1);
+        assertEquals(stats.latency(Operation.MARKET).getTotalCount(), 3);
+        assertEquals(stats.count(), 10);
+        assertEquals(stats.levels().getMaxValue(), 2);
+        assertEquals(stats.levels().getTotalCount(), 3);
+
+        // the next snapshot only has what happened since
+        lob.cancel(1);
+        stats = lob.snapshot();
+        assertEquals(stats.count(), 1);
+        assertEquals(stats.latency(Operation.CANCEL).getTotalCount(), 1);
+    }
+
+    @Test
+    void testDisabled() {
+        InstrumentedBook lob = new InstrumentedBook(new lob.v1.LOB());
+        lob.setEnabled(false);
+
+        lob.limit(new Order(1, Side.SELL, 5, 1001));
+        lob.market(new Order(2, Side.BUY, 2, 0));
+        assertEquals(lob.volume(), 3);
+        assertEquals(lob.snapshot().count(), 0);
+
+        lob.setEnabled(true);
+        lob.market(new Order(3, Side.BUY, 2, 0));
+        assertEquals(lob.snapshot().count(), 1);
+    }
+
+    @Test
+    void testExecutionListener() {
+        InstrumentedBook lob = new InstrumentedBook(new lob.v1.LOB());
+        List<Long> sizes = new ArrayList<>();
+        lob.setExecutionListener(e -> sizes.add(e.size));
+
+        lob.limit(new Order(1, Side.BUY, 5, 999));
+        lob.limit(new Order(2, Side.BUY, 5, 998));
+        lob.market(new Order(3, Side.SELL, 7, 0));
+        assertEquals(sizes, List.of(5L, 2L));
+        assertEquals(lob.snapshot().levels().getMaxValue(), 2);
+    }
+
+    @Test
+    void testCsv() {
+        InstrumentedBook lob = new InstrumentedBook(new lob.v2.LOB());
+        lob.limit(new Order(1, Side.SELL, 5, 1001));
+
+        OperationStats total = lob.snapshot();
+        lob.cancel(1);
+        total.add(lob.snapshot());
+        assertEquals(total.count(), 2);
+
+        String[] row = total.toCsv(7, 8).split(",");
+        assertEquals(row.length, OperationStats.CSV_HEADER.split(",").length);
+        assertEquals(row[0], "7");
+        assertEquals(row[1], "8");
+        assertEquals(row[3], "2");
+    }
+}
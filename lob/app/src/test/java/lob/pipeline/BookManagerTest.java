@@ -0,0 +1,75 @@
+package lob.pipeline;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import lob.LimitOrderBook;
+import lob.common.Event;
+import lob.common.Order;
+import lob.common.Side;
+import lob.exchange.BitstampOrder;
+import lob.v1.LOB;
+
+public class BookManagerTest {
+    @Test
+    public void testRouteBySymbol() throws InterruptedException {
+        int symbols = 10;
+        BookManager manager = new BookManager(LOB::new, 3, 64, 1);
+        for (int i = 0; i < symbols; i++)
+            assertEquals(manager.register("live_orders_sym" + i), i);
+        assertEquals(manager.register("live_orders_sym3"), 3); // already registered
+        assertEquals(manager.symbol("live_orders_sym7"), 7);
+        assertEquals(manager.symbol("live_orders_unknown"), -1);
+        manager.start();
+
+        LimitOrderBook[] expected = new LimitOrderBook[symbols];
+        for (int i = 0; i < symbols; i++)
+            expected[i] = new LOB();
+        Order message = new Order();
+        Random rand = new Random(5);
+
+        Event event = new Event();
+        int n = 20000;
+        for (int i = 1; i <= n; i++) {
+            Side side = rand.nextBoolean() ? Side.BUY : Side.SELL;
+            event.set(Event.LIMIT, side, i, 1 + rand.nextInt(10),
+                    side == Side.BUY ? 990 - rand.nextInt(20) : 1010 + rand.nextInt(20), 0);
+            event.symbol = rand.nextInt(symbols);
+            event.apply(expected[event.symbol], message);
+            manager.publish(event);
+        }
+
+        // a message from Bitstamp is routed by its channel
+        BitstampOrder order = new BitstampOrder();
+        order.event = BitstampOrder.OrderEvent.Created;
+        order.side = Side.BUY;
+        order.id = n + 1;
+        order.amount = 5;
+        order.price = 1000;
+        order.channel = "live_orders_sym4";
+        manager.publish(order);
+        expected[4].limit(new Order(n + 1, Side.BUY, 5, 1000));
+
+        order.channel = "live_orders_unknown";
+        manager.publish(order);
+        assertEquals(manager.dropped(), 1);
+
+        manager.close();
+
+        long events = 0;
+        for (int i = 0; i < manager.shards(); i++)
+            events += manager.shard(i).events();
+        assertEquals(events, n + 1);
+
+        for (int i = 0; i < symbols; i++) {
+            Snapshot snapshot = manager.snapshot(i);
+            assertEquals(snapshot.bestBuy, expected[i].bestBuy());
+            assertEquals(snapshot.bestSell, expected[i].bestSell());
+            assertEquals(snapshot.volume, expected[i].volume());
+            assertNull(manager.shard((manager.shardOf(i) + 1) % 3).snapshot(i)); // other shards do not own it
+        }
+    }
+}
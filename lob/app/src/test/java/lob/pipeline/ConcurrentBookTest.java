@@ -0,0 +1,114 @@
+package lob.pipeline;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import lob.LimitOrderBook;
+import lob.common.Order;
+import lob.common.Side;
+import lob.v1.LOB;
+import lob.v1.Limit;
+
+public class ConcurrentBookTest {
+    @Test
+    public void testSameAsBook() {
+        LimitOrderBook expected = new LOB();
+        ConcurrentBook book = new ConcurrentBook(new LOB(), 3);
+        ConcurrentBook.Depth depth = new ConcurrentBook.Depth(3);
+
+        book.read(depth);
+        assertEquals(depth.bids, 0);
+        assertEquals(depth.asks, 0);
+
+        for (LimitOrderBook lob : new LimitOrderBook[] { expected, book }) {
+            lob.limit(new Order(1, Side.BUY, 5, 1000));
+            lob.limit(new Order(2, Side.BUY, 3, 1000));
+            lob.limit(new Order(3, Side.BUY, 2, 999));
+            lob.limit(new Order(4, Side.BUY, 1, 998));
+            lob.limit(new Order(5, Side.BUY, 1, 997));
+            lob.limit(new Order(6, Side.SELL, 4, 1002));
+            lob.market(new Order(7, Side.SELL, 6, 0));
+            lob.amend(6, 9);
+        }
+
+        book.read(depth);
+        assertEquals(depth.bestBuy, expected.bestBuy());
+        assertEquals(depth.bestSell, expected.bestSell());
+        assertEquals(depth.volume, expected.volume());
+        assertEquals(book.bestBuy(), 1000);
+        assertEquals(book.bestSell(), 1002);
+        assertEquals(book.volume(), expected.volume());
+
+        // only the top 3 bid levels are visible
+        assertEquals(depth.bids, 3);
+        assertEquals(depth.bidPrice[0], 1000);
+        assertEquals(depth.bidVolume[0], 2);
+        assertEquals(depth.bidCount[0], 1);
+        assertEquals(depth.bidPrice[2], 998);
+        assertEquals(depth.asks, 1);
+        assertEquals(depth.askVolume[0], 9);
+
+        Iterator<Limit> actual = book.topN(2, Side.BUY), wanted = expected.topN(2, Side.BUY);
+        while (wanted.hasNext()) {
+            Limit limit = wanted.next(), other = actual.next();
+            assertEquals(other.price, limit.price);
+            assertEquals(other.volume, limit.volume);
+            assertEquals(other.count, limit.count);
+        }
+        assertFalse(actual.hasNext());
+    }
+
+    @Test
+    public void testReadersNeverSeeTornState() throws InterruptedException {
+        // the book never has more than 5 levels per side so the whole book is visible
+        ConcurrentBook book = new ConcurrentBook(new LOB(), 8);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong reads = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+
+        Thread[] readers = new Thread[3];
+        for (int r = 0; r < readers.length; r++) {
+            readers[r] = new Thread(() -> {
+                ConcurrentBook.Depth depth = new ConcurrentBook.Depth(8);
+                while (running.get()) {
+                    book.read(depth);
+                    long volume = 0;
+                    for (int i = 0; i < depth.bids; i++)
+                        volume += depth.bidVolume[i];
+                    for (int i = 0; i < depth.asks; i++)
+                        volume += depth.askVolume[i];
+
+                    boolean consistent = volume == depth.volume
+                            && (depth.bids == 0 ? depth.bestBuy == 0 : depth.bestBuy == depth.bidPrice[0])
+                            && (depth.asks == 0 ? depth.bestSell == 0 : depth.bestSell == depth.askPrice[0]);
+                    if (!consistent)
+                        errors.incrementAndGet();
+                    reads.incrementAndGet();
+                }
+            });
+            readers[r].start();
+        }
+
+        Random rand = new Random(3);
+        Order message = new Order();
+        long start = System.nanoTime();
+        for (long id = 1; System.nanoTime() - start < 300_000_000L || reads.get() < 1000; id++) {
+            Side side = rand.nextBoolean() ? Side.BUY : Side.SELL;
+            long price = side == Side.BUY ? 100 + rand.nextInt(5) : 106 + rand.nextInt(5);
+            book.limit(message.set(id, side, 1 + rand.nextInt(10), price));
+            if (id > 20)
+                book.cancel(id - 20);
+        }
+
+        running.set(false);
+        for (Thread reader : readers)
+            reader.join();
+        assertEquals(errors.get(), 0);
+    }
+}
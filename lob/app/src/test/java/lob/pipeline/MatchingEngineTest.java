@@ -0,0 +1,94 @@
+package lob.pipeline;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.jupiter.api.Test;
+
+import lob.LimitOrderBook;
+import lob.common.Event;
+import lob.common.Order;
+import lob.common.Side;
+import lob.io.BookSnapshot;
+import lob.v1.LOB;
+
+public class MatchingEngineTest {
+    @Test
+    public void testSnapshotMatchesBook() throws InterruptedException {
+        LimitOrderBook expected = new LOB();
+        Order message = new Order();
+        Random rand = new Random(7);
+
+        MatchingEngine engine = new MatchingEngine(new LOB(), 64, 5);
+        engine.start();
+
+        int n = 20000;
+        for (int i = 1; i <= n; i++) {
+            Event event = engine.claim();
+            Side side = rand.nextBoolean() ? Side.BUY : Side.SELL;
+            if (i % 3 == 0)
+                event.set(Event.CANCEL, side, i - 2, 0, 0, 0);
+            else
+                event.set(Event.LIMIT, side, i, 1 + rand.nextInt(10),
+                        side == Side.BUY ? 990 - rand.nextInt(20) : 1010 + rand.nextInt(20), 0);
+            event.apply(expected, message);
+            engine.publish();
+        }
+        engine.close();
+
+        Snapshot snapshot = engine.snapshot();
+        assertEquals(snapshot.sequence, n);
+        assertEquals(snapshot.bestBuy, expected.bestBuy());
+        assertEquals(snapshot.bestSell, expected.bestSell());
+        assertEquals(snapshot.volume, expected.volume());
+        assertEquals(snapshot.bids.size(), 5);
+        assertEquals(snapshot.bids.get(0).price, expected.bestBuy());
+        assertEquals(snapshot.asks.get(0).price, expected.bestSell());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.bids.clear());
+
+        assertEquals(engine.queueDepth(), 0);
+        assertEquals(engine.matchLatency().count(), n);
+        assertEquals(engine.queueLatency().count(), n);
+    }
+
+    @Test
+    public void testCapture() throws InterruptedException, ExecutionException, IOException {
+        Random rand = new Random(11);
+        int n = 20000;
+        Event[] events = new Event[n];
+        for (int i = 0; i < n; i++) {
+            Side side = rand.nextBoolean() ? Side.BUY : Side.SELL;
+            events[i] = i % 3 == 2 ? new Event().set(Event.CANCEL, side, i - 1, 0, 0, 0)
+                    : new Event().set(Event.LIMIT, side, i, 1 + rand.nextInt(10),
+                            side == Side.BUY ? 990 - rand.nextInt(20) : 1010 + rand.nextInt(20), 0);
+        }
+
+        MatchingEngine engine = new MatchingEngine(new LOB(), 64, 5);
+        engine.start();
+        BookSnapshot snapshot = null;
+        for (int i = 0; i < n; i++) {
+            engine.claim().set(events[i]);
+            engine.publish();
+            if (i == n / 2)
+                snapshot = engine.capture(0).get();
+        }
+        assertThrows(ExecutionException.class, () -> engine.capture(1).get());
+        engine.close();
+
+        // restoring the snapshot and replaying the events after it gives the same book
+        assertTrue(snapshot.sequence() > 0 && snapshot.sequence() <= n / 2 + 1);
+        LimitOrderBook restored = new lob.v2.LOB();
+        snapshot.restore(restored);
+        Order message = new Order();
+        for (int i = (int) snapshot.sequence(); i < n; i++)
+            events[i].apply(restored, message);
+
+        Snapshot expected = engine.snapshot();
+        assertEquals(restored.bestBuy(), expected.bestBuy);
+        assertEquals(restored.bestSell(), expected.bestSell);
+        assertEquals(restored.volume(), expected.volume);
+    }
+}
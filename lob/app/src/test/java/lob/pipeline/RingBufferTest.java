@@ -0,0 +1,66 @@
+package lob.pipeline;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.jupiter.api.Test;
+
+import lob.common.Event;
+import lob.common.Side;
+
+public class RingBufferTest {
+    @Test
+    public void testCapacity() {
+        assertEquals(new RingBuffer(1).capacity(), 2);
+        assertEquals(new RingBuffer(8).capacity(), 8);
+        assertEquals(new RingBuffer(9).capacity(), 16);
+    }
+
+    @Test
+    public void testDrainInOrder() {
+        RingBuffer ring = new RingBuffer(4);
+        assertEquals(ring.drain((event, time) -> fail(), 10), 0);
+
+        for (int i = 1; i <= 3; i++) {
+            ring.claim().set(Event.LIMIT, Side.BUY, i, 1, 100, 0);
+            ring.publish();
+        }
+        assertEquals(ring.size(), 3);
+
+        long[] next = { 1 };
+        assertEquals(ring.drain((event, time) -> assertEquals(event.id, next[0]++), 2), 2);
+        assertEquals(ring.size(), 1);
+        assertEquals(ring.drain((event, time) -> assertEquals(event.id, next[0]++), 10), 1);
+        assertEquals(ring.size(), 0);
+    }
+
+    @Test
+    public void testProducerConsumer() throws InterruptedException {
+        RingBuffer ring = new RingBuffer(16);
+        int n = 1_000_000;
+
+        Thread producer = new Thread(() -> {
+            for (int i = 1; i <= n; i++) {
+                ring.claim().set(Event.LIMIT, Side.SELL, i, i, 100, 0);
+                ring.publish();
+            }
+        });
+        producer.start();
+
+        // every event must arrive exactly once, in order and fully written
+        long[] next = { 1 };
+        while (next[0] <= n) {
+            int drained = ring.drain((event, time) -> {
+                assertEquals(event.id, next[0]);
+                assertEquals(event.size, next[0]);
+                next[0]++;
+            }, 64);
+            if (drained == 0)
+                LockSupport.parkNanos(1); // the producer may share the core
+        }
+
+        producer.join();
+        assertEquals(ring.size(), 0);
+    }
+}
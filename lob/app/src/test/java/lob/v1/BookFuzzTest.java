@@ -0,0 +1,285 @@
+package lob.v1;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.junit.jupiter.api.io.TempDir;
+
+import lob.LimitOrderBook;
+import lob.analytics.AnalyticsBook;
+import lob.common.Order;
+import lob.common.Side;
+import lob.common.TimeInForce;
+import lob.io.Journal;
+import lob.io.JournaledBook;
+import lob.metrics.InstrumentedBook;
+import lob.pipeline.ConcurrentBook;
+
+/**
+ * Replays random sequences of limit, market, cancel and amend messages into
+ * every `LimitOrderBook` implementation and decorator and compares them with
+ * `lob.v1.LOB`, the reference. Some limit orders reuse the id of a recent
+ * order, which may still rest on the book. The best prices, the volume and the
+ * fills are compared after every message, the depth of both sides (the top
+ * levels for a `ConcurrentBook`) and the invariants of the `v1` books
+ * (`LOB.checkInvariants`) after every message or every `lob.fuzz.check`
+ * messages in the throughput mode.
+ * <p>
+ * A failure reports the seed and the message it happened at, run it again with
+ * e.g. `./gradlew test --tests lob.v1.BookFuzzTest -PfuzzSeed=42 -PfuzzOps=10000000`.
+ * </p>
+ */
+class BookFuzzTest {
+    // The messages of the throughput mode and how often it compares the depth.
+    private final static long OPS = Long.getLong("lob.fuzz.ops", 1_000_000);
+    private final static int CHECK = Integer.getInteger("lob.fuzz.check", 1000);
+    private final static long SEED = Long.getLong("lob.fuzz.seed", 42);
+
+    private final static int LIMIT = 0, MARKET = 1, CANCEL = 2, AMEND = 3;
+
+    // The levels per side that the `ConcurrentBook` copies for its readers.
+    private final static int CONCURRENT_DEPTH = 16;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testEveryStep() throws IOException {
+        try (Fuzzer fuzzer = new Fuzzer(SEED, dir)) {
+            fuzzer.run(5_000, 1);
+        }
+    }
+
+    @Test
+    void testThroughput(TestReporter reporter) throws IOException {
+        try (Fuzzer fuzzer = new Fuzzer(SEED + 1, dir)) {
+            long start = System.nanoTime();
+            fuzzer.run(OPS, CHECK);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            if (System.getProperty("lob.fuzz.ops") != null) // only report the rate of an explicit run
+                reporter.publishEntry("throughput", String.format(
+                        "%d messages into %d books in %.1f s (%.0f messages/s)", OPS, fuzzer.books.length, seconds,
+                        OPS / seconds));
+        }
+    }
+
+    @Test
+    void testInvariantsCatchCorruption() {
+        LOB lob = new LOB();
+        lob.limit(new Order(1, Side.BUY, 5, 1000));
+        lob.limit(new Order(2, Side.BUY, 3, 999));
+        lob.checkInvariants();
+
+        lob.topN(1, Side.BUY).next().volume++;
+        assertThrows(IllegalStateException.class, lob::checkInvariants);
+    }
+
+    /**
+     * Generates the messages and keeps the books and their fills.
+     */
+    private static class Fuzzer implements AutoCloseable {
+        final long seed;
+        final Random rand;
+
+        // The journal of the `JournaledBook`, in a temporary directory.
+        final Journal journal;
+
+        final LimitOrderBook[] books;
+        final String[] names = { "v1", "v1-bst", "v2", "v2-64", "analytics", "concurrent", "instrumented",
+                "journaled" };
+
+        // A running hash and the number of the fills of every book.
+        final long[] fills;
+        final long[] fillCount;
+
+        // The ids of the latest limit orders, the targets of cancels and amends.
+        final long[] recent = new long[1024];
+
+        final Order message = new Order();
+
+        // The current message.
+        long step;
+        int type;
+        Side side;
+        long id, size, price;
+        TimeInForce timeInForce;
+        boolean postOnly;
+
+        // The middle of the prices, it drifts and sometimes jumps.
+        long mid = 100_000;
+
+        Fuzzer(long seed, Path dir) throws IOException {
+            this.seed = seed;
+            this.rand = new Random(seed);
+            this.journal = new Journal(dir.resolve("journal-" + seed), 1 << 16, 256, false);
+            this.books = new LimitOrderBook[] {
+                    new LOB(), // the reference
+                    new LOB(LimitTree.TreeType.BST),
+                    new lob.v2.LOB(),
+                    new lob.v2.LOB(64), // a narrow window, the price often leaves it
+                    new AnalyticsBook(new lob.v2.LOB()),
+                    new ConcurrentBook(new lob.v2.LOB(), CONCURRENT_DEPTH),
+                    new InstrumentedBook(new LOB()),
+                    new JournaledBook(new LOB(), journal),
+            };
+            this.fills = new long[books.length];
+            this.fillCount = new long[books.length];
+            for (int i = 0; i < books.length; i++) {
+                final int book = i;
+                books[i].setExecutionListener(execution -> {
+                    fills[book] = fills[book] * 31 + execution.makerId;
+                    fills[book] = fills[book] * 31 + execution.takerId;
+                    fills[book] = fills[book] * 31 + execution.price;
+                    fills[book] = fills[book] * 31 + execution.size;
+                    fillCount[book]++;
+                });
+            }
+        }
+
+        /**
+         * Send messages to every book.
+         *
+         * @param ops   - The number of messages.
+         * @param check - Compare the depth and check the invariants every `check`
+         *              messages.
+         */
+        void run(long ops, int check) {
+            for (step = 1; step <= ops; step++) {
+                next();
+                for (LimitOrderBook book : books)
+                    apply(book);
+                compareTop();
+                if (step % check == 0)
+                    compareDepth();
+            }
+            compareDepth();
+        }
+
+        /**
+         * Generate the next message.
+         */
+        void next() {
+            if (rand.nextInt(20_000) == 0)
+                mid += rand.nextInt(2001) - 1000;
+            else if (rand.nextInt(8) == 0)
+                mid += rand.nextInt(3) - 1;
+            mid = Math.max(mid, 2_000);
+
+            side = rand.nextBoolean() ? Side.BUY : Side.SELL;
+            id = step;
+            size = 1 + rand.nextInt(rand.nextInt(4) == 0 ? 100 : 10);
+            price = 0;
+            timeInForce = TimeInForce.GTC;
+            postOnly = false;
+
+            int dice = rand.nextInt(100);
+            if (dice < 45) { // rests away from the touch, mostly close to it
+                type = LIMIT;
+                long offset = 1 + rand.nextInt(1 + rand.nextInt(200));
+                price = side == Side.BUY ? mid - offset : mid + offset;
+            } else if (dice < 55) { // crosses the touch
+                type = LIMIT;
+                long offset = rand.nextInt(20);
+                price = side == Side.BUY ? mid + offset : mid - offset;
+                timeInForce = TimeInForce.values()[rand.nextInt(TimeInForce.values().length)];
+                postOnly = rand.nextInt(10) == 0;
+            } else if (dice < 60) {
+                type = MARKET;
+            } else if (dice < 85) {
+                type = CANCEL;
+                id = recent[rand.nextInt(recent.length)];
+            } else {
+                type = AMEND;
+                id = recent[rand.nextInt(recent.length)];
+            }
+
+            if (type == LIMIT && rand.nextInt(50) == 0) // a recent id, the order may still rest
+                id = recent[rand.nextInt(recent.length)];
+
+            if (type == LIMIT)
+                recent[rand.nextInt(recent.length)] = id;
+        }
+
+        @Override
+        public void close() throws IOException {
+            journal.close();
+        }
+
+        void apply(LimitOrderBook book) {
+            switch (type) {
+                case LIMIT:
+                    book.limit(message.set(id, side, size, price, timeInForce, postOnly));
+                    break;
+                case MARKET:
+                    book.market(message.set(id, side, size, price));
+                    break;
+                case CANCEL:
+                    book.cancel(id);
+                    break;
+                case AMEND:
+                    book.amend(id, size);
+                    break;
+            }
+        }
+
+        void compareTop() {
+            LimitOrderBook reference = books[0];
+            for (int i = 1; i < books.length; i++) {
+                LimitOrderBook book = books[i];
+                expect(i, "best buy", book.bestBuy(), reference.bestBuy());
+                expect(i, "best sell", book.bestSell(), reference.bestSell());
+                expect(i, "volume", book.volume(), reference.volume());
+                expect(i, "fills", fillCount[i], fillCount[0]);
+                expect(i, "fill hash", fills[i], fills[0]);
+            }
+        }
+
+        void compareDepth() {
+            for (int i = 0; i < books.length; i++) {
+                if (books[i] instanceof LOB) {
+                    try {
+                        ((LOB) books[i]).checkInvariants();
+                    } catch (IllegalStateException e) {
+                        fail(describe(i, e.getMessage()), e);
+                    }
+                }
+            }
+
+            for (Side side : Side.values()) {
+                for (int i = 1; i < books.length; i++) {
+                    int depth = books[i] instanceof ConcurrentBook ? CONCURRENT_DEPTH : Integer.MAX_VALUE;
+                    Iterator<Limit> expected = books[0].topN(depth, side);
+                    Iterator<Limit> actual = books[i].topN(depth, side);
+                    for (int level = 0; expected.hasNext(); level++) {
+                        Limit e = expected.next();
+                        if (!actual.hasNext())
+                            fail(describe(i, side + " depth ends at level " + level));
+                        Limit a = actual.next();
+                        expect(i, side + " price", a.price, e.price);
+                        expect(i, side + " level volume", a.volume, e.volume);
+                        expect(i, side + " level count", a.count, e.count);
+                    }
+                    if (actual.hasNext())
+                        fail(describe(i, side + " has more levels than the reference"));
+                }
+            }
+        }
+
+        void expect(int book, String what, long actual, long expected) {
+            if (actual != expected)
+                fail(describe(book, what + " is " + actual + " instead of " + expected));
+        }
+
+        String describe(int book, String problem) {
+            String[] types = { "limit", "market", "cancel", "amend" };
+            return String.format("%s: %s (seed %d, message %d: %s %s id %d size %d price %d %s%s)", names[book],
+                    problem, seed, step, types[type], side, id, size, price, timeInForce, postOnly ? " post-only" : "");
+        }
+    }
+}